@@ -0,0 +1,388 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.SourceView;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Result cache in front of CodeAnalyzer.
+ *
+ * Results are keyed by a fast 128-bit hash of the source text plus the
+ * analyzer's rule fingerprint, so unchanged files are never analysed twice
+ * with the same rule set.
+ *
+ * Two tiers:
+ * - An in-memory LRU tier bounded by weight (one unit per entry plus one per issue).
+ * - An optional on-disk tier (one small binary file per key) that survives restarts.
+ *
+ * Callers that need a key the client can compute too (the servlet's ETags
+ * and hash-only lookups) use digestKeyFor instead, built on the SHA-256 of
+ * the source's UTF-8 bytes: for a well-formed UTF-8 file that is exactly
+ * what sha256sum prints.
+ *
+ * Returned lists are unmodifiable because they are shared between callers.
+ * All methods are thread-safe.
+ */
+
+public class AnalysisCache {
+
+    /**
+     * Default memory budget: roughly this many cached issues (plus one unit per entry).
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 200_000;
+
+    private static final int FILE_MAGIC = 0x43464331; // "CFC1"
+
+    private final long maxWeight;
+    private final Path diskDir;
+
+    private final LinkedHashMap<String, List<Issue>> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a memory-only cache with the default weight limit.
+     */
+
+    public AnalysisCache() {
+        this(DEFAULT_MAX_WEIGHT, null);
+    }
+
+    /**
+     * @param maxWeight Maximum weight kept in memory (entries + issues).
+     * @param diskDir   Directory for the persistent tier, or null for memory only.
+     */
+
+    public AnalysisCache(long maxWeight, Path diskDir) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.diskDir = diskDir;
+    }
+
+    /**
+     * Returns the cached issues for the source, analysing it on a miss.
+     *
+     * @param analyzer Analyzer to run on a miss; its rule fingerprint is part of the key.
+     * @param source   Source to analyze.
+     * @return Unmodifiable list of issues.
+     */
+
+    public List<Issue> analyze(CodeAnalyzer analyzer, SourceView source) {
+        String key = keyFor(analyzer, source);
+        List<Issue> cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Issue> issues = analyzer.analyze(source);
+        // A rule skipped for its budget may finish next time; keep that out of the cache.
+        return CodeAnalyzer.isIncomplete(issues) ? Collections.unmodifiableList(issues) : put(key, issues);
+    }
+
+    /**
+     * Builds the cache key for a source and the analyzer's active rule set.
+     */
+
+    public static String keyFor(CodeAnalyzer analyzer, SourceView source) {
+        return contentHash(source) + "-" + analyzer.getRuleFingerprint();
+    }
+
+    /**
+     * Builds a cache key from a SHA-256 digest of the source and the
+     * analyzer's active rule set.
+     *
+     * @param sha256 Hex SHA-256 of the source's UTF-8 bytes, e.g. from sha256(source).
+     */
+
+    public static String digestKeyFor(CodeAnalyzer analyzer, String sha256) {
+        return sha256.toLowerCase(Locale.ROOT) + "-" + analyzer.getRuleFingerprint();
+    }
+
+    /**
+     * Looks the key up in memory, then on disk. Counts a hit or a miss.
+     *
+     * @return The cached issues, or null on a miss.
+     */
+
+    public List<Issue> get(String key) {
+        List<Issue> issues;
+        synchronized (memory) {
+            issues = memory.get(key);
+        }
+        if (issues != null) {
+            hits.incrementAndGet();
+            return issues;
+        }
+
+        if (diskDir != null) {
+            issues = readFromDisk(key);
+            if (issues != null) {
+                hits.incrementAndGet();
+                diskHits.incrementAndGet();
+                storeInMemory(key, issues);
+                return issues;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores issues for the key in both tiers.
+     *
+     * @return The unmodifiable copy that was cached.
+     */
+
+    public List<Issue> put(String key, List<Issue> issues) {
+        // A detached IssueBuffer stays columnar without pinning the analyzed source.
+        List<Issue> copy = Collections.unmodifiableList(issues instanceof IssueBuffer
+                ? ((IssueBuffer) issues).detach()
+                : new ArrayList<>(issues));
+        storeInMemory(key, copy);
+        if (diskDir != null) {
+            writeToDisk(key, copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Drops the memory tier. The disk tier is left untouched.
+     */
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            weight = 0;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisCache[hits=" + hits.get() + " (disk " + diskHits.get() + "), misses=" +
+                misses.get() + ", evictions=" + evictions.get() + ", entries=" + size() + "]";
+    }
+
+    // ----- Memory tier -----
+
+    private void storeInMemory(String key, List<Issue> issues) {
+        long entryWeight = 1L + issues.size();
+        if (entryWeight > maxWeight) {
+            return; // would evict everything else
+        }
+        synchronized (memory) {
+            List<Issue> previous = memory.put(key, issues);
+            if (previous != null) {
+                weight -= 1L + previous.size();
+            }
+            weight += entryWeight;
+
+            Iterator<Map.Entry<String, List<Issue>>> it = memory.entrySet().iterator();
+            while (weight > maxWeight && it.hasNext()) {
+                Map.Entry<String, List<Issue>> eldest = it.next();
+                weight -= 1L + eldest.getValue().size();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // ----- Disk tier -----
+
+    private Path fileFor(String key) {
+        return diskDir.resolve(key.substring(0, 2)).resolve(key + ".issues");
+    }
+
+    private List<Issue> readFromDisk(String key) {
+        Path file = fileFor(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Bad cache file header");
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Bad cache file issue count");
+            }
+            List<Issue> issues = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                int line = in.readInt();
+                // Types are looked up, never registered: a file must not grow the registry.
+                IssueType type = IssueType.find(in.readUTF());
+                if (type == null) {
+                    throw new IOException("Unknown issue type in cache file");
+                }
+                String message = in.readUTF();
+                String fix = in.readUTF();
+                issues.add(new Issue(line, type, message, fix));
+            }
+            return Collections.unmodifiableList(issues);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // Corrupt or truncated entry: drop it and treat as a miss.
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, List<Issue> issues) {
+        Path file = fileFor(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(issues.size());
+                for (Issue issue : issues) {
+                    out.writeInt(issue.getLine());
+                    out.writeUTF(issue.getType());
+                    out.writeUTF(issue.getMessage());
+                    out.writeUTF(issue.getSuggestedFix());
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException e) {
+            // The disk tier is best effort; the result is still cached in memory.
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // ----- Hashing -----
+
+    /**
+     * Computes a 128-bit hash of the source characters as 32 hex digits.
+     *
+     * Two independent 64-bit lanes are mixed in a single pass; this is not a
+     * cryptographic hash, just a fast and well-distributed fingerprint.
+     */
+
+    static String contentHash(SourceView source) {
+        int length = source.length();
+        long h1 = 0xcbf29ce484222325L ^ length;
+        long h2 = 0x9E3779B97F4A7C15L + length;
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            h1 = (h1 ^ c) * 0x100000001b3L;
+            h2 = Long.rotateLeft(h2 + c * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+        }
+        return toHex(mix(h1 ^ (h2 >>> 29))) + toHex(mix(h2 ^ (h1 >>> 31)));
+    }
+
+    /**
+     * Computes the SHA-256 of the source's UTF-8 encoding as 64 hex digits,
+     * encoding through a small buffer instead of building a byte[] copy.
+     * Unpaired surrogates are encoded as '?', like String.getBytes.
+     */
+
+    public static String sha256(SourceView source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.wrap(source.chars());
+        ByteBuffer bytes = ByteBuffer.allocate(8192);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(bytes);
+            }
+            bytes.flip();
+            digest.update(bytes);
+            bytes.clear();
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
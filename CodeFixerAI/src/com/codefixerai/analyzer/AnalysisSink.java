@@ -0,0 +1,25 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.FileAnalysisResult;
+import java.io.IOException;
+
+/**
+ * Receives per-file results from a BatchAnalyzer as soon as each file is done.
+ *
+ * BatchAnalyzer never calls accept concurrently, so implementations do not
+ * need their own synchronization. A queued run (BatchAnalyzer.startQueued)
+ * calls it on the thread feeding the run, never on a pool worker. Results arrive in completion order,
+ * not in directory order.
+ */
+
+public interface AnalysisSink {
+
+    /**
+     * Consumes the result for one file.
+     *
+     * @param result Issues (or the failure) for a single file.
+     * @throws IOException If the result cannot be written; this aborts the batch.
+     */
+
+    void accept(FileAnalysisResult result) throws IOException;
+}
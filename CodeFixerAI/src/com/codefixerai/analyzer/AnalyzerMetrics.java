@@ -0,0 +1,328 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.report.JsonWriter;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.source.BudgetExceededException;
+import com.codefixerai.source.SourceView;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-rule timing, issue counts and allocation, collected while a
+ * CodeAnalyzer runs (see CodeAnalyzer.setMetrics).
+ *
+ * Every rule run is measured on the thread that executes it:
+ * - wall time, from System.nanoTime;
+ * - issues reported;
+ * - bytes allocated by that thread, when the JVM supports
+ *   com.sun.management.ThreadMXBean allocation counters.
+ *
+ * The figures can be read per rule through get(), written as JSON with
+ * writeJson() or toJson(), or published over JMX with register(). One instance may be shared by several
+ * analyzers and threads.
+ */
+
+public final class AnalyzerMetrics implements AnalyzerMetricsMXBean {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    private final ConcurrentMap<String, RuleMetrics> byName = new ConcurrentHashMap<>();
+    private final List<RuleMetrics> ordered = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns whether allocated bytes are measured on this JVM.
+     */
+
+    public static boolean isAllocationSupported() {
+        return ALLOCATION != null;
+    }
+
+    /**
+     * Returns the metrics of the rule with the given name, or null if it has not run.
+     */
+
+    public RuleMetrics get(String ruleName) {
+        return byName.get(ruleName);
+    }
+
+    /**
+     * Returns the metrics of every rule that has run, in the order they first ran.
+     */
+
+    public List<RuleMetrics> getAll() {
+        return new ArrayList<>(ordered);
+    }
+
+    /**
+     * Runs the rule body on the source and records what it cost. A run cancelled
+     * by its Deadline is counted as exceeding the budget and rethrown.
+     * The body is CodeAnalyzer.applyRule for a full run, or a partial run
+     * such as the lines an edit touched.
+     */
+
+    List<Issue> measure(Rule rule, SourceView source, CodeAnalyzer.RuleBody body) {
+        RuleMetrics metrics = metricsFor(rule.getName());
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = allocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        List<Issue> issues;
+        try {
+            issues = body.apply(rule, source);
+        } catch (BudgetExceededException e) {
+            metrics.recordBudgetExceeded(System.nanoTime() - start, allocatedSince(threadId, bytesBefore));
+            throw e;
+        }
+
+        metrics.record(System.nanoTime() - start, issues.size(), allocatedSince(threadId, bytesBefore));
+        return issues;
+    }
+
+    /**
+     * Records one rule run that was timed in slices, such as the rule's
+     * share of a fused pass (see CodeAnalyzer).
+     *
+     * @param bytes Bytes allocated during the run, or -1 if unknown.
+     */
+
+    void record(Rule rule, long elapsedNanos, int issueCount, long bytes) {
+        metricsFor(rule.getName()).record(elapsedNanos, issueCount, bytes);
+    }
+
+    /**
+     * Like record, for a run timed in slices that ran out of budget.
+     */
+
+    void recordBudgetExceeded(Rule rule, long elapsedNanos, long bytes) {
+        metricsFor(rule.getName()).recordBudgetExceeded(elapsedNanos, bytes);
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far, or -1 if unknown.
+     */
+
+    static long allocatedBytes() {
+        return allocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the bytes the current thread allocated since allocatedBytes()
+     * returned bytesBefore, or -1 if unknown.
+     */
+
+    static long allocatedSince(long bytesBefore) {
+        return allocatedSince(Thread.currentThread().getId(), bytesBefore);
+    }
+
+    private RuleMetrics metricsFor(String ruleName) {
+        RuleMetrics metrics = byName.get(ruleName);
+        if (metrics != null) {
+            return metrics;
+        }
+        synchronized (ordered) {
+            metrics = byName.get(ruleName);
+            if (metrics == null) {
+                metrics = new RuleMetrics(ruleName);
+                ordered.add(metrics);
+                byName.put(ruleName, metrics);
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Registers this instance with the platform MBeanServer as
+     * com.codefixerai:type=AnalyzerMetrics,name=<name>, replacing an earlier
+     * registration under the same name.
+     *
+     * @return The name it was registered under.
+     */
+
+    public ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("com.codefixerai:type=AnalyzerMetrics,name=" + ObjectName.quote(name));
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes a registration made by register(String), if it is still present.
+     */
+
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    // ----- MXBean -----
+
+    @Override
+    public String[] getRuleNames() {
+        List<RuleMetrics> all = getAll();
+        String[] names = new String[all.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = all.get(i).getRuleName();
+        }
+        return names;
+    }
+
+    @Override
+    public long[] getRuns() {
+        List<RuleMetrics> all = getAll();
+        long[] values = new long[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getRuns();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getIssueCounts() {
+        List<RuleMetrics> all = getAll();
+        long[] values = new long[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getIssueCount();
+        }
+        return values;
+    }
+
+    @Override
+    public double[] getMeanMillis() {
+        List<RuleMetrics> all = getAll();
+        double[] values = new double[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getMeanMillis();
+        }
+        return values;
+    }
+
+    @Override
+    public double[] getP99Millis() {
+        List<RuleMetrics> all = getAll();
+        double[] values = new double[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getPercentileMillis(99);
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getAllocatedBytes() {
+        List<RuleMetrics> all = getAll();
+        long[] values = new long[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getAllocatedBytes();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] getBudgetExceeded() {
+        List<RuleMetrics> all = getAll();
+        long[] values = new long[all.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = all.get(i).getBudgetExceeded();
+        }
+        return values;
+    }
+
+    @Override
+    public String getJson() {
+        return toJson();
+    }
+
+    /**
+     * Clears all figures. Rules keep their position in the listing.
+     */
+
+    @Override
+    public void reset() {
+        for (RuleMetrics metrics : ordered) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Renders the figures as a JSON object, as written by writeJson.
+     */
+
+    public String toJson() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            JsonWriter json = new JsonWriter(bytes);
+            writeJson(json.beginObject());
+            json.endObject().finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by a ByteArrayOutputStream
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the figures as members of the JSON object being written:
+     * "allocationSupported", and "rules" with one entry per rule.
+     * Durations are in milliseconds; allocatedBytes is -1 when unknown.
+     */
+
+    public void writeJson(JsonWriter json) throws IOException {
+        json.name("allocationSupported").value(isAllocationSupported())
+                .name("rules").beginArray();
+        for (RuleMetrics m : getAll()) {
+            json.beginObject()
+                    .name("rule").value(m.getRuleName())
+                    .name("runs").value(m.getRuns())
+                    .name("issues").value(m.getIssueCount())
+                    .name("totalMillis").value(m.getTotalNanos() / 1e6)
+                    .name("meanMillis").value(m.getMeanMillis())
+                    .name("p50Millis").value(m.getPercentileMillis(50))
+                    .name("p99Millis").value(m.getPercentileMillis(99))
+                    .name("allocatedBytes").value(m.getAllocatedBytes())
+                    .name("budgetExceeded").value(m.getBudgetExceeded())
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    private static long allocatedSince(long threadId, long bytesBefore) {
+        long bytesAfter = allocatedBytes(threadId);
+        return bytesBefore < 0 || bytesAfter < 0 ? -1 : bytesAfter - bytesBefore;
+    }
+
+    private static long allocatedBytes(long threadId) {
+        return ALLOCATION != null ? ALLOCATION.getThreadAllocatedBytes(threadId) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+                if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                    return sun;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // Not a HotSpot-style JVM; allocation is reported as unknown.
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.codefixerai.analyzer;
+
+/**
+ * JMX view of AnalyzerMetrics.
+ *
+ * Arrays are indexed like getRuleNames(). Allocated bytes are -1 when the
+ * JVM cannot measure per-thread allocation.
+ */
+
+public interface AnalyzerMetricsMXBean {
+
+    String[] getRuleNames();
+
+    long[] getRuns();
+
+    long[] getIssueCounts();
+
+    double[] getMeanMillis();
+
+    double[] getP99Millis();
+
+    long[] getAllocatedBytes();
+
+    long[] getBudgetExceeded();
+
+    String getJson();
+
+    void reset();
+}
@@ -0,0 +1,431 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.BatchSummary;
+import com.codefixerai.model.FileAnalysisResult;
+import com.codefixerai.model.Issue;
+import com.codefixerai.source.SourceFiles;
+import com.codefixerai.source.SourceView;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analyzes many files at once, for example a whole repository checkout.
+ *
+ * This class:
+ * - Walks a directory tree and picks up every .java file.
+ * - Loads files through SourceFiles (memory-mapped when large).
+ * - Runs CodeAnalyzer on the files in parallel on a work-stealing ForkJoinPool.
+ * - Streams each file's result to an AnalysisSink as soon as it is done.
+ *
+ * A semaphore limits how many files are loaded or being analysed at the same
+ * time. The directory walker blocks when the limit is reached, so memory use
+ * stays flat regardless of how many files the tree contains.
+ *
+ * By default each run gets its own pool. A server running many batches
+ * passes one shared pool instead, so the total number of analysis threads
+ * stays fixed however many batches run at once. Such a server also starts
+ * its runs with startQueued, so that writing results to a slow client
+ * never holds a pool thread.
+ */
+
+public class BatchAnalyzer {
+
+    /**
+     * Loads the source of one batch entry. Called on a worker thread.
+     */
+
+    public interface SourceLoader {
+        SourceView load() throws IOException;
+    }
+
+    // How long a queued run waits for a result before checking its permits again.
+    private static final long POLL_MILLIS = 50;
+
+    private final CodeAnalyzer analyzer;
+    private final int parallelism;
+    private final int maxInFlight;
+    private final ExecutorService sharedPool;
+    private volatile AnalysisCache cache;
+
+    /**
+     * Creates a batch analyzer that uses all available cores.
+     */
+
+    public BatchAnalyzer(CodeAnalyzer analyzer) {
+        this(analyzer, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchAnalyzer(CodeAnalyzer analyzer, int parallelism) {
+        this(analyzer, parallelism, parallelism * 4);
+    }
+
+    /**
+     * @param analyzer    Analyzer shared by all worker threads.
+     * @param parallelism Number of worker threads.
+     * @param maxInFlight Maximum number of files loaded or queued at once (backpressure limit).
+     */
+
+    public BatchAnalyzer(CodeAnalyzer analyzer, int parallelism, int maxInFlight) {
+        if (parallelism < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("parallelism and maxInFlight must be positive");
+        }
+        this.analyzer = analyzer;
+        this.parallelism = parallelism;
+        this.maxInFlight = maxInFlight;
+        this.sharedPool = null;
+    }
+
+    /**
+     * Creates a batch analyzer whose runs all use the given pool. The pool
+     * is not shut down by the runs; its owner does that.
+     *
+     * @param analyzer    Analyzer shared by all worker threads.
+     * @param pool        Pool that analyzes the entries of every run.
+     * @param maxInFlight Maximum number of files loaded or queued at once per run.
+     */
+
+    public BatchAnalyzer(CodeAnalyzer analyzer, ExecutorService pool, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.analyzer = analyzer;
+        this.parallelism = 0;
+        this.maxInFlight = maxInFlight;
+        this.sharedPool = pool;
+    }
+
+    /**
+     * Puts a result cache in front of the analyzer, so unchanged files are
+     * served from the cache instead of being analysed again.
+     *
+     * @param cache Cache to use, or null to always analyze.
+     */
+
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    public AnalysisCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Analyzes every .java file below the given directory.
+     *
+     * @param root Directory to walk (a single file is analysed on its own).
+     * @param sink Receives one result per file, in completion order.
+     * @return Totals for the whole run.
+     * @throws IOException If the walk fails or the sink cannot accept a result.
+     */
+
+    public BatchSummary analyzeDirectory(Path root, AnalysisSink sink) throws IOException {
+        Run run = start(sink);
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")) {
+                        run.submit(file);
+                    }
+                    return run.isAborted() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    // Unreadable entries are reported instead of stopping the walk.
+                    run.report(FileAnalysisResult.failed(file.toString(), String.valueOf(exc.getMessage())));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            run.cancel();
+            throw e;
+        }
+        return run.finish();
+    }
+
+    /**
+     * Analyzes the given files.
+     */
+
+    public BatchSummary analyzeFiles(Iterable<Path> files, AnalysisSink sink) throws IOException {
+        Run run = start(sink);
+        try {
+            for (Path file : files) {
+                if (run.isAborted()) break;
+                run.submit(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            run.cancel();
+            throw e;
+        }
+        return run.finish();
+    }
+
+    /**
+     * Starts a run that callers feed entry by entry, e.g. from an archive stream.
+     * The caller must call {@link Run#finish()} (or cancel()) when done.
+     */
+
+    public Run start(AnalysisSink sink) {
+        return new Run(sink, false);
+    }
+
+    /**
+     * Like start, but the sink is called on the thread feeding the run, in
+     * submit and finish, instead of on the workers. Workers put results on
+     * a queue bounded by the in-flight limit, and an entry keeps its slot
+     * until its result is delivered. A feeder waiting for a slot delivers
+     * results meanwhile, so the sink alone slows the run down and never
+     * blocks a pool thread.
+     */
+
+    public Run startQueued(AnalysisSink sink) {
+        return new Run(sink, true);
+    }
+
+    /**
+     * One batch run: a worker pool, the in-flight limit and the running totals.
+     * A queued run also holds the results waiting to be delivered.
+     */
+
+    public final class Run {
+
+        private final AnalysisSink sink;
+        private final ExecutorService pool;
+        private final boolean ownsPool;
+        private final Semaphore inFlight;
+        private final Object sinkLock = new Object();
+        private final BlockingQueue<FileAnalysisResult> results;
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong issues = new AtomicLong();
+        private volatile IOException sinkFailure;
+        private volatile boolean cancelled;
+
+        private Run(AnalysisSink sink, boolean queued) {
+            this.sink = sink;
+            this.results = queued ? new ArrayBlockingQueue<>(maxInFlight) : null;
+            this.ownsPool = sharedPool == null;
+            this.pool = ownsPool
+                    ? new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true)
+                    : sharedPool;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        /**
+         * Queues a file for analysis.
+         */
+
+        public void submit(Path file) throws IOException {
+            submit(file.toString(), () -> SourceFiles.read(file));
+        }
+
+        /**
+         * Queues an entry for analysis, blocking while the in-flight limit is reached.
+         *
+         * @param name   Name reported in the result.
+         * @param loader Loads the source on a worker thread.
+         */
+
+        public void submit(String name, SourceLoader loader) throws IOException {
+            if (isAborted()) return;
+            try {
+                acquire(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free analysis slot");
+            }
+            try {
+                pool.execute(() -> analyzeEntry(name, loader));
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns true once the sink has failed or the run was cancelled;
+         * further entries are ignored.
+         */
+
+        public boolean isAborted() {
+            return sinkFailure != null || cancelled;
+        }
+
+        /**
+         * Waits for all queued entries, shuts the pool down and returns the totals.
+         *
+         * @throws IOException If the sink failed while the run was in progress.
+         */
+
+        public BatchSummary finish() throws IOException {
+            try {
+                acquire(maxInFlight);
+                inFlight.release(maxInFlight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new InterruptedIOException("Interrupted while waiting for batch to finish");
+            }
+            if (ownsPool) {
+                pool.shutdown();
+            }
+
+            if (sinkFailure != null) {
+                throw sinkFailure;
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            return new BatchSummary(files.get(), failed.get(), issues.get(), elapsed);
+        }
+
+        /**
+         * Abandons queued entries: they are skipped when their turn comes,
+         * which still releases their in-flight permits, so a later finish()
+         * only waits for the entries already running. Nothing more reaches
+         * the sink after this returns, except a result already being written.
+         * May be called from any thread, also for a queued run.
+         *
+         * (The pool is not stopped with shutdownNow(): ForkJoinPool drops
+         * queued tasks without returning them, and their permits would be
+         * lost.)
+         */
+
+        public void cancel() {
+            cancelled = true;
+            if (ownsPool) {
+                pool.shutdown();
+            }
+        }
+
+        /**
+         * Takes in-flight permits. A queued run delivers results while it
+         * waits, since their permits are only released once delivered.
+         */
+
+        private void acquire(int permits) throws InterruptedException {
+            if (results == null) {
+                inFlight.acquire(permits);
+                return;
+            }
+            deliverQueued();
+            while (!inFlight.tryAcquire(permits)) {
+                FileAnalysisResult result = results.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    deliver(result);
+                }
+            }
+            deliverQueued();
+        }
+
+        private void deliverQueued() {
+            FileAnalysisResult result;
+            while ((result = results.poll()) != null) {
+                deliver(result);
+            }
+        }
+
+        // Feeding thread of a queued run: hands one result to the sink and frees its slot.
+        private void deliver(FileAnalysisResult result) {
+            try {
+                if (!isAborted()) {
+                    sink.accept(result);
+                }
+            } catch (IOException e) {
+                sinkFailure = e;
+            } catch (RuntimeException e) {
+                sinkFailure = new IOException("Result sink failed", e);
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        // Worker: analyzes one entry and passes its permit on to complete().
+        private void analyzeEntry(String name, SourceLoader loader) {
+            if (isAborted()) {
+                inFlight.release();
+                return;
+            }
+
+            FileAnalysisResult result;
+            try {
+                SourceView source = loader.load();
+                AnalysisCache resultCache = cache;
+                List<Issue> found = resultCache != null
+                        ? resultCache.analyze(analyzer, source)
+                        : analyzer.analyze(source);
+                result = new FileAnalysisResult(name, found);
+            } catch (IOException | RuntimeException e) {
+                result = FileAnalysisResult.failed(name, e.getClass().getSimpleName() + ": " + e.getMessage());
+            } catch (Error e) {
+                // Count the file before the error goes on to the pool.
+                complete(FileAnalysisResult.failed(name, e.getClass().getSimpleName() + ": " + e.getMessage()));
+                throw e;
+            }
+            complete(result);
+        }
+
+        /**
+         * Reports a finished entry and releases its permit, except in a
+         * queued run, where the result goes on the queue and keeps the
+         * permit until it is delivered. Every queued result holds a permit,
+         * so the queue always has room.
+         */
+
+        private void complete(FileAnalysisResult result) {
+            if (results == null) {
+                try {
+                    report(result);
+                } finally {
+                    inFlight.release();
+                }
+                return;
+            }
+            count(result);
+            if (isAborted() || !results.offer(result)) {
+                inFlight.release();
+            }
+        }
+
+        private void count(FileAnalysisResult result) {
+            files.incrementAndGet();
+            if (result.isFailed()) {
+                failed.incrementAndGet();
+            }
+            issues.addAndGet(result.getIssues().size());
+        }
+
+        // Hands a result to the sink on the calling thread; not for queued runs.
+        private void report(FileAnalysisResult result) {
+            count(result);
+
+            synchronized (sinkLock) {
+                if (sinkFailure != null || cancelled) return;
+                try {
+                    sink.accept(result);
+                } catch (IOException e) {
+                    sinkFailure = e;
+                } catch (RuntimeException e) {
+                    sinkFailure = new IOException("Result sink failed", e);
+                }
+            }
+        }
+    }
+}
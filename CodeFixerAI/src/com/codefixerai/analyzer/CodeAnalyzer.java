@@ -1,56 +1,168 @@
 package com.codefixerai.analyzer;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
 import com.codefixerai.rules.Rule;
-import com.codefixerai.rules.StringEqualityRule;
-import com.codefixerai.rules.OffByOneLoopRule;
-import com.codefixerai.rules.ResourceLeakRule;
-import com.codefixerai.rules.EmptyCatchBlockRule;
-import com.codefixerai.rules.StringConcatInLoopRule;
-import com.codefixerai.rules.MagicNumberRule;
-import com.codefixerai.rules.UnusedVariableRule;
-import com.codefixerai.rules.AlwaysTrueConditionRule;
-import com.codefixerai.rules.DeepNestingRule;
-import com.codefixerai.rules.MissingDefaultInSwitchRule;
-import com.codefixerai.rules.ExcessiveParameterRule;
-import com.codefixerai.rules.TodoCommentRule;
+import com.codefixerai.rules.RuleVisitor;
+import com.codefixerai.rules.SourceRule;
+import com.codefixerai.rules.VisitorDriver;
+import com.codefixerai.source.BudgetExceededException;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.SourceFiles;
+import com.codefixerai.source.SourceView;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Central coordinator for static analysis rules.
  *
  * This class:
- * - Keeps a list of all Rule implementations.
+ * - Keeps a list of Rule implementations (all discovered rules by default).
  * - Runs each rule against the provided source code string.
  * - Collects all detected issues into a single list.
+ *
+ * The source is parsed into a single SourceView per analysis which is shared
+ * by every SourceRule; rules that only implement apply(String) still receive
+ * the raw text.
+ *
+ * Sequential analysis is fused by default: every rule is turned into a
+ * RuleVisitor (directly, line by line, or through its apply method) and all
+ * of them are driven from one pass over the source. The result is the same
+ * as running the rules one after another.
+ *
+ * Parallel mode (see setExecutor) fans the rules out over an Executor and
+ * merges the results sorted by line, then by rule registration order.
+ *
+ * Results are returned as an IssueBuffer: findings are stored in primitive
+ * columns and Issue objects are only built when an element is read.
+ *
+ * With an AnalyzerMetrics set (see setMetrics) every rule run is timed.
+ * In a fused pass that means timing each rule's share of every window of
+ * lines, which costs a few clock reads per rule per window.
+ *
+ * Optional budgets bound the work spent on a single input:
+ * - a time budget per rule run and one for the whole analysis, enforced
+ *   cooperatively through a Deadline on the thread running the rule;
+ * - a maximum input size, above which no rule runs at all.
+ * A rule that is out of time is cancelled and reported as a RuleSkipped
+ * finding on line 0, "skipped (budget exceeded)", in place of its results.
+ * In a fused pass a rule's time is the sum of its shares of the pass; the
+ * other rules carry on without it.
  */
 
 public class CodeAnalyzer {
 
+    /**
+     * Default minimum number of lines before rules are fanned out in parallel mode.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+
+    /**
+     * Version of the built-in rule logic. Bump it whenever a rule changes what it
+     * reports, so cached results from older versions are no longer used.
+     */
+    public static final int RULES_VERSION = 4;
+
+    private static final IssueTemplate RULE_SKIPPED = new IssueTemplate(
+            IssueType.RULE_SKIPPED,
+            "Rule '{}' skipped (budget exceeded).",
+            "Results of this rule are missing; raise the time budget or split the file.");
+
+    private static final IssueTemplate INPUT_TOO_LARGE = new IssueTemplate(
+            IssueType.RULE_SKIPPED,
+            "Analysis skipped (budget exceeded): input is larger than {} characters.",
+            "Raise the input size limit or split the file.");
+
+    // Far enough ahead to never pass, close enough that nanoTime arithmetic cannot overflow.
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
     private final List<Rule> rules = new ArrayList<>();
 
+    /**
+     * Executor used in parallel mode, or null for the sequential default.
+     */
+    private volatile Executor executor;
+
+    /**
+     * Inputs with fewer lines than this run inline even in parallel mode.
+     */
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Whether sequential analysis drives all rules from a single pass.
+     */
+    private volatile boolean fused = true;
+
+    /**
+     * Per-rule metrics to record into, or null when runs are not measured.
+     */
+    private volatile AnalyzerMetrics metrics;
+
+    /**
+     * Time budgets in nanoseconds and the input size cap in chars; 0 means unlimited.
+     */
+    private volatile long ruleBudgetNanos;
+    private volatile long analysisBudgetNanos;
+    private volatile int maxInputChars;
+
     /**
      * Creates a new CodeAnalyzer and registers all available rules.
      *
      * Each rule encapsulates a specific type of bug or code smell
      * (for example: string equality with '==', magic numbers, deep nesting, etc.).
+     * The rules come from RuleRegistry.getDefault(), i.e. every Rule listed
+     * in a META-INF/services file on the class path.
      */
 
     public CodeAnalyzer() {
-        rules.add(new StringEqualityRule());
-        rules.add(new OffByOneLoopRule());
-        rules.add(new ResourceLeakRule());
-        rules.add(new EmptyCatchBlockRule());
-        rules.add(new StringConcatInLoopRule());
-        rules.add(new MagicNumberRule());
-        rules.add(new UnusedVariableRule());
-        rules.add(new AlwaysTrueConditionRule());
-        rules.add(new DeepNestingRule());
-        rules.add(new MissingDefaultInSwitchRule());
-        rules.add(new ExcessiveParameterRule());
-        rules.add(new TodoCommentRule());
+        this(RuleRegistry.getDefault().getRules());
+    }
+
+    /**
+     * Creates a CodeAnalyzer that runs only the given rules, in list order.
+     * See RuleRegistry.select for picking rules by id.
+     */
 
+    public CodeAnalyzer(List<? extends Rule> rules) {
+        this.rules.addAll(rules);
+    }
+
+    /**
+     * Returns the registered rules in the order they run.
+     */
+
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns a short fingerprint of the active rule set.
+     *
+     * It changes when rules are added, removed or reordered, when RULES_VERSION
+     * is bumped, and between sequential and parallel mode (which order the
+     * results differently). Used as part of result cache keys.
+     */
+
+    public String getRuleFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        StringBuilder key = new StringBuilder("v").append(RULES_VERSION);
+        key.append(isParallel() ? "/sorted" : "/grouped");
+        for (Rule rule : rules) {
+            key.append('/').append(rule.getClass().getName());
+        }
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
     }
 
     /**
@@ -61,10 +173,464 @@ public class CodeAnalyzer {
      */
 
     public List<Issue> analyze(String sourceCode) {
-        List<Issue> allIssues = new ArrayList<>();
+        return analyze(SourceView.of(sourceCode));
+    }
+
+    /**
+     * Runs all registered rules on a UTF-8 source file, loaded through
+     * SourceFiles without copying it into a String first.
+     *
+     * @param file Path of the source file.
+     * @return A list of Issue objects reported by each Rule.
+     * @throws IOException If the file cannot be read.
+     */
+
+    public List<Issue> analyze(Path file) throws IOException {
+        return analyze(SourceFiles.read(file));
+    }
+
+    /**
+     * Runs all registered rules on an already parsed source view.
+     *
+     * The result is a mutable List, backed by an IssueBuffer that renders
+     * each Issue when it is read. Rendered Issues are not cached, so two
+     * reads of the same index return distinct objects with the same content.
+     *
+     * @param source Shared view of the source; built once and reused by every rule.
+     * @return A list of Issue objects reported by each Rule.
+     */
+
+    public List<Issue> analyze(SourceView source) {
+        int maxChars = maxInputChars;
+        if (maxChars > 0 && source.length() > maxChars) {
+            IssueBuffer skipped = new IssueBuffer(source, 1);
+            INPUT_TOO_LARGE.report(skipped, 0, maxChars);
+            return skipped;
+        }
+
+        long deadline = analysisDeadline();
+        Executor exec = executor;
+        if (exec != null) {
+            return analyzeParallel(source, exec, deadline);
+        }
+
+        if (fused) {
+            return analyzeFused(source, deadline);
+        }
+
+        IssueBuffer allIssues = new IssueBuffer(source);
+        for (Rule rule : rules) {
+            allIssues.addAll(runRule(rule, source, deadline));
+        }
+        return allIssues;
+    }
+
+    /**
+     * Chooses between fused single-pass execution (the default) and running
+     * each rule on its own. Both return the same issues in the same order;
+     * this only matters for benchmarking. Ignored in parallel mode.
+     */
+
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
+    public boolean isFused() {
+        return fused;
+    }
+
+    /**
+     * Sets where per-rule timing, issue counts and allocation are recorded.
+     *
+     * @param metrics Metrics to record into, or null to stop measuring.
+     */
+
+    public void setMetrics(AnalyzerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public AnalyzerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Limits the wall time of each rule run. A rule still running when the
+     * budget is used up is cancelled and reported as skipped.
+     *
+     * @param millis Budget per rule in milliseconds; 0 for no limit.
+     */
+
+    public void setRuleTimeBudget(long millis) {
+        ruleBudgetNanos = toNanos(millis);
+    }
+
+    public long getRuleTimeBudget() {
+        return ruleBudgetNanos / 1_000_000;
+    }
+
+    /**
+     * Limits the wall time of one analyze call. Rules that have not finished
+     * (or not started) when it is used up are reported as skipped.
+     *
+     * @param millis Budget per analysis in milliseconds; 0 for no limit.
+     */
+
+    public void setAnalysisTimeBudget(long millis) {
+        analysisBudgetNanos = toNanos(millis);
+    }
+
+    public long getAnalysisTimeBudget() {
+        return analysisBudgetNanos / 1_000_000;
+    }
+
+    /**
+     * Sets the largest input, in characters, that is analyzed. Larger inputs
+     * yield a single RuleSkipped finding instead of running any rule.
+     *
+     * @param chars Maximum length; 0 for no limit.
+     */
+
+    public void setMaxInputChars(int chars) {
+        if (chars < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + chars);
+        }
+        this.maxInputChars = chars;
+    }
+
+    public int getMaxInputChars() {
+        return maxInputChars;
+    }
+
+    /**
+     * Returns true if any time budget is set.
+     */
+
+    public boolean isBudgeted() {
+        return ruleBudgetNanos > 0 || analysisBudgetNanos > 0;
+    }
+
+    /**
+     * Returns true if the issues contain a rule skipped for exceeding its
+     * budget, i.e. they are not the complete result for the source.
+     */
+
+    public static boolean isIncomplete(List<Issue> issues) {
+        if (issues instanceof IssueBuffer) {
+            IssueBuffer buffer = (IssueBuffer) issues;
+            for (int i = 0; i < buffer.size(); i++) {
+                if (buffer.type(i) == IssueType.RULE_SKIPPED) return true;
+            }
+            return false;
+        }
+        for (Issue issue : issues) {
+            if (issue.getIssueType() == IssueType.RULE_SKIPPED) return true;
+        }
+        return false;
+    }
+
+    private static long toNanos(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + millis);
+        }
+        return Math.min(millis, NO_DEADLINE / 1_000_000) * 1_000_000;
+    }
+
+    /**
+     * Enables parallel mode on the common ForkJoinPool.
+     */
+
+    public void enableParallel() {
+        setExecutor(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sets the executor used to run rules in parallel.
+     *
+     * Rules hold no shared mutable state, so each one can run as its own task.
+     * In parallel mode the merged issues are always sorted by line and then by
+     * rule registration order, regardless of which task finishes first.
+     *
+     * @param executor Executor to fan rules out on, or null to go back to sequential mode.
+     */
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Sets the minimum number of source lines before rules are scheduled on the
+     * executor. Smaller inputs run inline so they don't pay scheduling overhead.
+     *
+     * @param lines Threshold in lines; 0 always fans out.
+     */
+
+    public void setParallelThreshold(int lines) {
+        if (lines < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + lines);
+        }
+        this.parallelThreshold = lines;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Runs the rules on the executor (or inline below the threshold) and
+     * merges their results in a deterministic order.
+     */
+
+    private List<Issue> analyzeParallel(SourceView source, Executor exec, long deadline) {
+        List<List<Issue>> perRule = new ArrayList<>(rules.size());
+
+        if (source.lineCount() < parallelThreshold || rules.size() < 2) {
+            for (Rule rule : rules) {
+                perRule.add(runRule(rule, source, deadline));
+            }
+        } else {
+            List<CompletableFuture<List<Issue>>> futures = new ArrayList<>(rules.size() - 1);
+            for (int i = 1; i < rules.size(); i++) {
+                Rule rule = rules.get(i);
+                futures.add(CompletableFuture.supplyAsync(() -> runRule(rule, source, deadline), exec));
+            }
+
+            // The calling thread takes the first rule instead of sitting idle.
+            perRule.add(runRule(rules.get(0), source, deadline));
+            for (CompletableFuture<List<Issue>> future : futures) {
+                perRule.add(join(future));
+            }
+        }
+
+        IssueBuffer merged = new IssueBuffer(source, total(perRule));
+        for (List<Issue> issues : perRule) {
+            merged.addAll(issues);
+        }
+
+        // The sort is stable, so issues on the same line keep rule registration order.
+        merged.sortByLine();
+        return merged;
+    }
+
+    /**
+     * Drives every rule from one VisitorDriver pass and concatenates their
+     * issues in registration order. With metrics or budgets set the pass is
+     * supervised, so each rule is timed and cancelled on its own.
+     */
+
+    private List<Issue> analyzeFused(SourceView source, long deadline) {
+        List<List<Issue>> perRule = new ArrayList<>(rules.size());
+        List<RuleVisitor> visitors = new ArrayList<>(rules.size());
         for (Rule rule : rules) {
-            allIssues.addAll(rule.apply(sourceCode));
+            List<Issue> issues = new IssueBuffer(source);
+            perRule.add(issues);
+            visitors.add(RuleAdapters.visitorFor(rule, source, issues));
+        }
+
+        AnalyzerMetrics m = metrics;
+        if (m == null && !isBudgeted()) {
+            VisitorDriver.run(source, visitors);
+        } else {
+            FusedRun run = new FusedRun(rules.size(), m, isBudgeted(), ruleBudgetNanos, deadline);
+            VisitorDriver.run(source, visitors, run);
+            for (int i = 0; i < rules.size(); i++) {
+                perRule.set(i, run.result(i, rules.get(i), source, perRule.get(i)));
+            }
+        }
+
+        IssueBuffer allIssues = new IssueBuffer(source, total(perRule));
+        for (List<Issue> issues : perRule) {
+            allIssues.addAll(issues);
         }
         return allIssues;
     }
+
+    /**
+     * Times each rule's share of a supervised fused pass and holds it to
+     * its budget: a rule's clock only runs while it handles a window.
+     */
+
+    private static final class FusedRun implements VisitorDriver.Supervisor {
+        private final AnalyzerMetrics metrics;
+        private final long ruleBudget;
+        private final long analysisDeadline;
+        private final boolean budgeted;
+        private final long[] spent;
+        private final long[] allocated;
+        private final boolean[] ran;
+        private final boolean[] skipped;
+
+        private long start;
+        private long bytesBefore;
+        private Deadline previous;
+
+        FusedRun(int rules, AnalyzerMetrics metrics, boolean budgeted, long ruleBudget, long analysisDeadline) {
+            this.metrics = metrics;
+            this.budgeted = budgeted;
+            this.ruleBudget = ruleBudget;
+            this.analysisDeadline = analysisDeadline;
+            this.spent = new long[rules];
+            this.allocated = new long[rules];
+            this.ran = new boolean[rules];
+            this.skipped = new boolean[rules];
+        }
+
+        @Override
+        public boolean enter(int rule) {
+            long now = System.nanoTime();
+            if (budgeted) {
+                long deadline = analysisDeadline;
+                if (ruleBudget > 0 && now + ruleBudget - spent[rule] - deadline < 0) {
+                    deadline = now + ruleBudget - spent[rule];
+                }
+                if (deadline - now <= 0) {
+                    skipped[rule] = true;
+                    return false;
+                }
+                previous = Deadline.enter(deadline);
+            }
+            ran[rule] = true;
+            bytesBefore = metrics != null ? AnalyzerMetrics.allocatedBytes() : -1;
+            start = now;
+            return true;
+        }
+
+        @Override
+        public void exit(int rule, boolean cancelled) {
+            spent[rule] += System.nanoTime() - start;
+            if (metrics != null) {
+                long bytes = AnalyzerMetrics.allocatedSince(bytesBefore);
+                allocated[rule] = bytes < 0 || allocated[rule] < 0 ? -1 : allocated[rule] + bytes;
+            }
+            if (budgeted) {
+                Deadline.exit(previous);
+            }
+            skipped[rule] |= cancelled;
+        }
+
+        /**
+         * Returns what the rule reports for the pass, recording it in the metrics.
+         */
+
+        List<Issue> result(int i, Rule rule, SourceView source, List<Issue> issues) {
+            if (skipped[i]) {
+                if (metrics != null && ran[i]) {
+                    metrics.recordBudgetExceeded(rule, spent[i], allocated[i]);
+                }
+                return skipped(rule, source);
+            }
+            if (metrics != null) {
+                metrics.record(rule, spent[i], issues.size(), allocated[i]);
+            }
+            return issues;
+        }
+    }
+
+    private static int total(List<List<Issue>> perRule) {
+        int total = 0;
+        for (List<Issue> issues : perRule) {
+            total += issues.size();
+        }
+        return total;
+    }
+
+    /**
+     * Applies one rule, recording its cost when metrics are set and
+     * cancelling it once its time budget or the analysis deadline is used up.
+     *
+     * @param analysisDeadline System.nanoTime() value at which the whole analysis runs out.
+     */
+
+    List<Issue> runRule(Rule rule, SourceView source, long analysisDeadline) {
+        return runRule(rule, source, analysisDeadline, CodeAnalyzer::applyRule);
+    }
+
+    /**
+     * Runs part of a rule's work, e.g. IncrementalAnalyzer re-checking the
+     * edited lines, under the same budgets and metrics as a full run.
+     *
+     * @param body Does the work and returns the issues it found.
+     */
+
+    List<Issue> runRule(Rule rule, SourceView source, long analysisDeadline, RuleBody body) {
+        long ruleBudget = ruleBudgetNanos;
+        if (ruleBudget == 0 && analysisBudgetNanos == 0) {
+            return measure(rule, source, body);
+        }
+
+        long now = System.nanoTime();
+        long deadline = analysisDeadline;
+        if (ruleBudget > 0 && now + ruleBudget - deadline < 0) {
+            deadline = now + ruleBudget;
+        }
+        if (deadline - now <= 0) {
+            return skipped(rule, source);
+        }
+
+        Deadline previous = Deadline.enter(deadline);
+        try {
+            return measure(rule, source, body);
+        } catch (BudgetExceededException e) {
+            return skipped(rule, source);
+        } finally {
+            Deadline.exit(previous);
+        }
+    }
+
+    private List<Issue> measure(Rule rule, SourceView source, RuleBody body) {
+        AnalyzerMetrics m = metrics;
+        return m != null ? m.measure(rule, source, body) : body.apply(rule, source);
+    }
+
+    /**
+     * The work runRule does for one rule: applyRule for a full run.
+     */
+
+    interface RuleBody {
+        List<Issue> apply(Rule rule, SourceView source);
+    }
+
+    /**
+     * Returns the System.nanoTime() value at which an analysis starting now runs out of time.
+     */
+
+    long analysisDeadline() {
+        long budget = analysisBudgetNanos;
+        return System.nanoTime() + (budget > 0 ? budget : NO_DEADLINE);
+    }
+
+    private static List<Issue> skipped(Rule rule, SourceView source) {
+        IssueBuffer issues = new IssueBuffer(source, 1);
+        RULE_SKIPPED.report(issues, 0, rule.getName());
+        return issues;
+    }
+
+    /**
+     * Applies one rule, passing the shared view to SourceRules and the raw text otherwise.
+     */
+
+    static List<Issue> applyRule(Rule rule, SourceView source) {
+        if (rule instanceof SourceRule) {
+            return ((SourceRule) rule).apply(source);
+        }
+        return rule.apply(source.text());
+    }
+
+    /**
+     * Waits for a rule task and rethrows its failure unwrapped.
+     */
+
+    private static List<Issue> join(CompletableFuture<List<Issue>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,286 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.source.SourceView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Re-analyzes an edited document without re-running every rule on every line.
+ *
+ * The editor reports which lines changed (recordChange). On the next analysis:
+ * - LineLocalRules (e.g. MagicNumberRule, TodoCommentRule) only run on the
+ *   changed lines; their earlier issues on untouched lines are kept and
+ *   shifted by the number of inserted or removed lines.
+ * - All other rules (e.g. UnusedVariableRule, ResourceLeakRule) need the
+ *   whole file and are re-run completely.
+ *
+ * If an edit changes the comment/literal state of the lines after it (for
+ * example by opening a block comment), or the edits cannot be mapped safely,
+ * a full analysis is done instead. The result is always the same list a full
+ * CodeAnalyzer.analyze call would return.
+ *
+ * Edits are recorded on the Swing event thread while analysis runs on a
+ * background thread, so the two use separate locks: pending edits have
+ * their own, and analyze() only locks to read and replace the state of the
+ * last analysis, never while rules run. Typing therefore never waits for
+ * an analysis.
+ */
+
+public class IncrementalAnalyzer {
+
+    /**
+     * Changed line range captured together with the document text.
+     */
+
+    public static final class Edit {
+        private final long base;
+        private final long capture;
+        private final int fromLine;
+        private final int toLine;
+        private final int lineDelta;
+
+        private Edit(long base, long capture, int fromLine, int toLine, int lineDelta) {
+            this.base = base;
+            this.capture = capture;
+            this.fromLine = fromLine;
+            this.toLine = toLine;
+            this.lineDelta = lineDelta;
+        }
+    }
+
+    /**
+     * Source and per-rule results of the analysis incremental runs build on.
+     */
+
+    private static final class State {
+        private final SourceView source;
+        private final long capture;
+        private final List<List<Issue>> perRule;
+
+        private State(SourceView source, long capture, List<List<Issue>> perRule) {
+            this.source = source;
+            this.capture = capture;
+            this.perRule = perRule;
+        }
+    }
+
+    private final CodeAnalyzer analyzer;
+
+    // Guards the pending edit fields below.
+    private final Object pendingLock = new Object();
+
+    // Edits recorded since the last takeEdit(); fromLine == -1 means none.
+    private int pendingFrom = -1;
+    private int pendingTo;
+    private int pendingDelta;
+    private boolean pendingUnknown;
+    private long captures;
+
+    // Last analysis; source is null when it cannot be built on. Guarded by this.
+    private State last = new State(null, -1, null);
+    private volatile boolean lastIncremental;
+
+    public IncrementalAnalyzer(CodeAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Records an edit of the document.
+     *
+     * @param firstLine First changed line (0-based, in the new text).
+     * @param lastLine  Last changed line (0-based, inclusive, in the new text).
+     * @param lineDelta Number of lines added (positive) or removed (negative).
+     */
+
+    public void recordChange(int firstLine, int lastLine, int lineDelta) {
+        synchronized (pendingLock) {
+            if (firstLine < 0 || lastLine < firstLine) {
+                pendingUnknown = true;
+                return;
+            }
+            if (pendingFrom < 0) {
+                pendingFrom = firstLine;
+                pendingTo = lastLine;
+            } else {
+                // Lines of the earlier range after the edit point move with the edit.
+                int shiftedTo = firstLine <= pendingTo ? pendingTo + lineDelta : pendingTo;
+                pendingFrom = Math.min(pendingFrom, firstLine);
+                pendingTo = Math.max(Math.max(shiftedTo, lastLine), pendingFrom);
+            }
+            pendingDelta += lineDelta;
+        }
+    }
+
+    /**
+     * Takes the edits recorded since the previous call. Call this on the same
+     * thread that records changes, right when the document text is read.
+     */
+
+    public Edit takeEdit() {
+        synchronized (pendingLock) {
+            long base = captures++;
+            Edit edit = pendingUnknown
+                    ? new Edit(-1, base + 1, -1, -1, 0)
+                    : new Edit(base, base + 1, pendingFrom, pendingTo, pendingDelta);
+            pendingFrom = -1;
+            pendingDelta = 0;
+            pendingUnknown = false;
+            return edit;
+        }
+    }
+
+    /**
+     * Analyzes the text captured together with the given edit.
+     *
+     * @param text Document text at the time takeEdit() was called.
+     * @param edit Edits since the previously captured text.
+     * @return The same issues a full analysis of the text would return.
+     */
+
+    public List<Issue> analyze(String text, Edit edit) {
+        SourceView source = SourceView.of(text);
+        List<Rule> rules = analyzer.getRules();
+
+        int maxChars = analyzer.getMaxInputChars();
+        if (maxChars > 0 && source.length() > maxChars) {
+            lastIncremental = false;
+            replaceState(new State(null, edit.capture, null));
+            return analyzer.analyze(source);
+        }
+
+        State previous;
+        synchronized (this) {
+            previous = last;
+        }
+        long deadline = analyzer.analysisDeadline();
+        List<List<Issue>> perRule = canReuse(previous, source, edit)
+                ? incremental(previous, source, edit, rules, deadline)
+                : null;
+        lastIncremental = perRule != null;
+        if (perRule == null) {
+            perRule = new ArrayList<>(rules.size());
+            for (Rule rule : rules) {
+                perRule.add(analyzer.runRule(rule, source, deadline));
+            }
+        }
+
+        // Results with a rule skipped for its budget cannot be patched, so the next run is full.
+        replaceState(new State(hasSkippedRule(perRule) ? null : source, edit.capture, perRule));
+        return merge(perRule);
+    }
+
+    // An out-of-date capture must not replace newer state.
+    private synchronized void replaceState(State state) {
+        if (state.capture > last.capture) {
+            last = state;
+        }
+    }
+
+    private static boolean hasSkippedRule(List<List<Issue>> perRule) {
+        for (List<Issue> issues : perRule) {
+            if (CodeAnalyzer.isIncomplete(issues)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the most recent analyze call reused earlier results.
+     */
+
+    public boolean wasLastRunIncremental() {
+        return lastIncremental;
+    }
+
+    private static boolean canReuse(State previous, SourceView source, Edit edit) {
+        SourceView last = previous.source;
+        if (last == null || edit.base < 0 || edit.base != previous.capture) {
+            return false;
+        }
+        if (edit.fromLine < 0) {
+            return last.lineCount() == source.lineCount();
+        }
+        if (source.lineCount() - last.lineCount() != edit.lineDelta) {
+            return false;
+        }
+        int after = edit.toLine + 1;
+        if (after < source.lineCount()) {
+            int oldAfter = after - edit.lineDelta;
+            if (oldAfter < 0 || oldAfter >= last.lineCount()
+                    || source.stateAtLineStart(after) != last.stateAtLineStart(oldAfter)) {
+                return false;
+            }
+        }
+        return edit.toLine - edit.lineDelta >= edit.fromLine - 1;
+    }
+
+    private List<List<Issue>> incremental(State previousState, SourceView source, Edit edit,
+                                          List<Rule> rules, long deadline) {
+        List<List<Issue>> perRule = new ArrayList<>(rules.size());
+        int from = edit.fromLine < 0 ? 0 : edit.fromLine;
+        int to = edit.fromLine < 0 ? -1 : Math.min(edit.toLine, source.lineCount() - 1);
+        int oldTo = edit.fromLine < 0 ? -1 : edit.toLine - edit.lineDelta;
+
+        for (int r = 0; r < rules.size(); r++) {
+            Rule rule = rules.get(r);
+            if (!(rule instanceof LineLocalRule)) {
+                perRule.add(analyzer.runRule(rule, source, deadline));
+                continue;
+            }
+
+            // The changed lines run through runRule, under the same budgets and metrics as a full run.
+            List<Issue> changed = Collections.emptyList();
+            if (to >= from) {
+                changed = analyzer.runRule(rule, source, deadline, (lineRule, view) -> {
+                    List<Issue> found = new ArrayList<>();
+                    ((LineLocalRule) lineRule).applyToLinesChecked(view, from, to + 1, found);
+                    return found;
+                });
+                if (CodeAnalyzer.isIncomplete(changed)) {
+                    perRule.add(changed);
+                    continue;
+                }
+            }
+
+            List<Issue> previous = previousState.perRule.get(r);
+            List<Issue> updated = new ArrayList<>(previous.size() + changed.size());
+            int k = 0;
+            // Untouched lines before the edit keep their issues as they are.
+            while (k < previous.size() && previous.get(k).getLine() - 1 < from) {
+                updated.add(previous.get(k++));
+            }
+            updated.addAll(changed);
+            // Skip issues of the replaced lines, shift the ones after them.
+            while (k < previous.size() && previous.get(k).getLine() - 1 <= oldTo) {
+                k++;
+            }
+            for (; k < previous.size(); k++) {
+                Issue issue = previous.get(k);
+                updated.add(edit.lineDelta == 0 ? issue : new Issue(issue.getLine() + edit.lineDelta,
+                        issue.getIssueType(), issue.getMessage(), issue.getSuggestedFix()));
+            }
+            perRule.add(updated);
+        }
+        return perRule;
+    }
+
+    /**
+     * Concatenates per-rule results the same way CodeAnalyzer.analyze does.
+     */
+
+    private List<Issue> merge(List<List<Issue>> perRule) {
+        List<Issue> merged = new ArrayList<>();
+        for (List<Issue> issues : perRule) {
+            merged.addAll(issues);
+        }
+        if (analyzer.isParallel()) {
+            merged.sort(Comparator.comparingInt(Issue::getLine));
+        }
+        return merged;
+    }
+}
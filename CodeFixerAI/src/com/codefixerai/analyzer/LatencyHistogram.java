@@ -0,0 +1,86 @@
+package com.codefixerai.analyzer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with one bucket per power of two
+ * nanoseconds.
+ *
+ * Recording is a couple of atomic increments and never allocates.
+ * Percentiles are upper bounds accurate to within a factor of two, which is
+ * enough to tell a 50 µs step from a 5 ms one. Safe to update and read from
+ * several threads; a reader may see one value partly recorded.
+ */
+
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucket(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = getCount();
+        return n == 0 ? 0 : getTotalNanos() / 1e6 / n;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile in milliseconds.
+     *
+     * @param percentile Value between 0 and 100.
+     */
+
+    public double getPercentileMillis(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i) / 1e6;
+            }
+        }
+        return upperBound(BUCKETS - 1) / 1e6;
+    }
+
+    // Bucket i holds durations in [2^(i-1), 2^i) ns; bucket 0 holds 0 ns.
+    private static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+
+    private static double upperBound(int bucket) {
+        return bucket == 0 ? 0 : Math.pow(2, bucket);
+    }
+}
@@ -0,0 +1,94 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.rules.RuleVisitor;
+import com.codefixerai.rules.VisitorRule;
+import com.codefixerai.source.SourceView;
+
+import java.util.List;
+
+/**
+ * Turns any registered Rule into a RuleVisitor for fused execution.
+ *
+ * - VisitorRules provide their own visitor.
+ * - LineLocalRules are driven from the shared line events in windows of
+ *   WINDOW_LINES lines: every rule checks a window while it is still in
+ *   cache, without paying a call (and matcher setup) per line.
+ * - All other rules run through their existing apply method once the pass
+ *   is over, so they keep working unchanged until they are migrated.
+ */
+
+final class RuleAdapters {
+
+    static final int WINDOW_LINES = 128;
+
+    private RuleAdapters() {
+    }
+
+    static RuleVisitor visitorFor(Rule rule, SourceView source, List<Issue> out) {
+        if (rule instanceof VisitorRule) {
+            return ((VisitorRule) rule).visitor(source, out);
+        }
+        if (rule instanceof LineLocalRule) {
+            return new LineLocalVisitor((LineLocalRule) rule, source, out);
+        }
+        return new ApplyVisitor(rule, source, out);
+    }
+
+    private static final class LineLocalVisitor extends RuleVisitor {
+        private final LineLocalRule rule;
+        private final SourceView source;
+        private final List<Issue> out;
+        private int windowStart;
+
+        LineLocalVisitor(LineLocalRule rule, SourceView source, List<Issue> out) {
+            this.rule = rule;
+            this.source = source;
+            this.out = out;
+        }
+
+        @Override
+        public int events() {
+            return LINES;
+        }
+
+        @Override
+        public void lineEnd(int line) {
+            if (line + 1 - windowStart >= WINDOW_LINES) {
+                rule.applyToLines(source, windowStart, line + 1, out);
+                windowStart = line + 1;
+            }
+        }
+
+        @Override
+        public void end() {
+            if (windowStart < source.lineCount()) {
+                rule.applyToLines(source, windowStart, source.lineCount(), out);
+            }
+        }
+    }
+
+    private static final class ApplyVisitor extends RuleVisitor {
+        private final Rule rule;
+        private final SourceView source;
+        private final List<Issue> out;
+
+        ApplyVisitor(Rule rule, SourceView source, List<Issue> out) {
+            this.rule = rule;
+            this.source = source;
+            this.out = out;
+        }
+
+        @Override
+        public int events() {
+            return 0;
+        }
+
+        @Override
+        public void end() {
+            out.addAll(CodeAnalyzer.applyRule(rule, source));
+        }
+    }
+}
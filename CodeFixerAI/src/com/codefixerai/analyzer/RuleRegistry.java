@@ -0,0 +1,269 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.rules.AlwaysTrueConditionRule;
+import com.codefixerai.rules.DeepNestingRule;
+import com.codefixerai.rules.EmptyCatchBlockRule;
+import com.codefixerai.rules.ExcessiveParameterRule;
+import com.codefixerai.rules.MagicNumberRule;
+import com.codefixerai.rules.MissingDefaultInSwitchRule;
+import com.codefixerai.rules.OffByOneLoopRule;
+import com.codefixerai.rules.ResourceLeakRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.rules.StringConcatInLoopRule;
+import com.codefixerai.rules.StringEqualityRule;
+import com.codefixerai.rules.TodoCommentRule;
+import com.codefixerai.rules.UnusedVariableRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Set of available rules, discovered through ServiceLoader, and a cache of
+ * analyzers built from subsets of them.
+ *
+ * Rules are listed in META-INF/services/com.codefixerai.rules.Rule; the
+ * built-in file lists the twelve standard rules in their usual order, and
+ * further rules are picked up from any other such file on the class path.
+ * If no file is found at all (for example when the classes were compiled
+ * without copying src/META-INF), the built-in rules are registered directly.
+ *
+ * Each rule has an id: its simple class name, matched case-insensitively
+ * and with or without the "Rule" suffix, so "ResourceLeakRule",
+ * "resourceleak" and "ResourceLeak" all select the same rule.
+ *
+ * analyzer(ids) returns one shared CodeAnalyzer per distinct selection, so
+ * callers that repeat the same selection (one per request, say) do not
+ * rebuild it. The analyzer holds only the selected rules; the others cost
+ * nothing. Shared analyzers are configured once, by the setup callback
+ * given to the constructor, and should not be reconfigured by callers.
+ *
+ * All methods are thread-safe.
+ */
+
+public final class RuleRegistry {
+
+    private static volatile RuleRegistry defaultRegistry;
+
+    private final List<Rule> rules;
+    private final Map<String, Rule> byId;
+    private final Consumer<? super CodeAnalyzer> setup;
+    private final ConcurrentMap<String, CodeAnalyzer> analyzers = new ConcurrentHashMap<>();
+
+    /**
+     * Discovers the rules visible to the context class loader.
+     */
+
+    public RuleRegistry() {
+        this(Thread.currentThread().getContextClassLoader(), null);
+    }
+
+    /**
+     * Discovers the rules visible to the given class loader.
+     *
+     * @param loader Loader to search for rule service files, or null for the system loader.
+     * @param setup  Called once on every analyzer the registry builds, or null.
+     */
+
+    public RuleRegistry(ClassLoader loader, Consumer<? super CodeAnalyzer> setup) {
+        this.rules = Collections.unmodifiableList(discover(loader));
+        this.setup = setup;
+        this.byId = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            byId.putIfAbsent(normalize(idOf(rule)), rule);
+        }
+    }
+
+    /**
+     * Returns the process-wide registry used by new CodeAnalyzer().
+     */
+
+    public static RuleRegistry getDefault() {
+        RuleRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (RuleRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = new RuleRegistry(RuleRegistry.class.getClassLoader(), null);
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Returns every registered rule in the order they run.
+     */
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the ids of all registered rules in the order they run.
+     */
+
+    public List<String> getRuleIds() {
+        List<String> ids = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            ids.add(idOf(rule));
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the id of a rule: its simple class name.
+     */
+
+    public static String idOf(Rule rule) {
+        return rule.getClass().getSimpleName();
+    }
+
+    /**
+     * Resolves rule ids to rules. The result keeps registration order, no
+     * matter how the ids are ordered, and each rule appears once.
+     *
+     * @param ids Rule ids; null selects every rule.
+     * @throws IllegalArgumentException If an id matches no rule, or ids is
+     *                                  empty: selecting nothing is taken as a typo.
+     */
+
+    public List<Rule> select(Collection<String> ids) {
+        if (ids == null) {
+            return rules;
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("no rules selected (known: " + String.join(", ", getRuleIds()) + ")");
+        }
+        Set<Rule> chosen = new HashSet<>();
+        for (String id : ids) {
+            Rule rule = byId.get(normalize(id));
+            if (rule == null) {
+                throw new IllegalArgumentException("unknown rule: " + id + " (known: " + String.join(", ", getRuleIds()) + ")");
+            }
+            chosen.add(rule);
+        }
+        List<Rule> selected = new ArrayList<>(chosen.size());
+        for (Rule rule : rules) {
+            if (chosen.contains(rule)) {
+                selected.add(rule);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Resolves a comma-separated list of rule ids, as given on a command line.
+     */
+
+    public List<Rule> select(String commaSeparatedIds) {
+        List<String> ids = new ArrayList<>();
+        for (String id : commaSeparatedIds.split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return select(ids);
+    }
+
+    /**
+     * Returns the shared analyzer for a selection of rules, building it on first use.
+     *
+     * @param ids Rule ids; null selects every rule.
+     * @throws IllegalArgumentException If an id matches no rule.
+     */
+
+    public CodeAnalyzer analyzer(Collection<String> ids) {
+        return analyzerFor(select(ids));
+    }
+
+    /**
+     * Returns the shared analyzer for a comma-separated list of rule ids.
+     */
+
+    public CodeAnalyzer analyzer(String commaSeparatedIds) {
+        return analyzerFor(select(commaSeparatedIds));
+    }
+
+    /**
+     * Builds a new, unshared analyzer for a selection of rules, which the
+     * caller is free to configure.
+     */
+
+    public CodeAnalyzer newAnalyzer(Collection<String> ids) {
+        return build(select(ids));
+    }
+
+    /**
+     * Drops all cached analyzers.
+     */
+
+    public void clearAnalyzers() {
+        analyzers.clear();
+    }
+
+    private CodeAnalyzer analyzerFor(List<Rule> selected) {
+        StringBuilder key = new StringBuilder();
+        for (Rule rule : selected) {
+            key.append(idOf(rule)).append(',');
+        }
+        return analyzers.computeIfAbsent(key.toString(), k -> build(selected));
+    }
+
+    private CodeAnalyzer build(List<Rule> selected) {
+        CodeAnalyzer analyzer = new CodeAnalyzer(selected);
+        if (setup != null) {
+            setup.accept(analyzer);
+        }
+        return analyzer;
+    }
+
+    private static String normalize(String id) {
+        String key = id.trim().toLowerCase(Locale.ROOT);
+        return key.endsWith("rule") && key.length() > 4 ? key.substring(0, key.length() - 4) : key;
+    }
+
+    private static List<Rule> discover(ClassLoader loader) {
+        Map<Class<?>, Rule> found = new LinkedHashMap<>();
+        try {
+            for (Rule rule : ServiceLoader.load(Rule.class, loader)) {
+                found.putIfAbsent(rule.getClass(), rule);
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalStateException("Could not load rules: " + e.getMessage(), e);
+        }
+        if (found.isEmpty()) {
+            return new ArrayList<>(builtIns());
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    private static List<Rule> builtIns() {
+        return Arrays.asList(
+                new StringEqualityRule(),
+                new OffByOneLoopRule(),
+                new ResourceLeakRule(),
+                new EmptyCatchBlockRule(),
+                new StringConcatInLoopRule(),
+                new MagicNumberRule(),
+                new UnusedVariableRule(),
+                new AlwaysTrueConditionRule(),
+                new DeepNestingRule(),
+                new MissingDefaultInSwitchRule(),
+                new ExcessiveParameterRule(),
+                new TodoCommentRule());
+    }
+}
@@ -0,0 +1,279 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.rules.RuleVisitor;
+import com.codefixerai.rules.StreamableRule;
+import com.codefixerai.rules.VisitorDriver;
+import com.codefixerai.source.SourceView;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes a source from a Reader or channel in fixed-size chunks, so
+ * multi-megabyte inputs never have to be held as one String.
+ *
+ * This class:
+ * - Reads up to chunkChars characters, cuts the chunk after the last
+ *   complete line and keeps the rest for the next chunk.
+ * - Builds a SourceView per chunk in the lexical state the previous chunk
+ *   ended in, so comments and text blocks spanning chunks stay masked.
+ * - Runs the rules of the analyzer that can work chunk by chunk:
+ *   LineLocalRules on each chunk, and StreamableRules through one visitor
+ *   that is fed every chunk in order.
+ *
+ * Memory use is bounded by the chunk size plus the longest line, counting
+ * the empty lines before it; the lookahead never exceeds that. Rules that need the whole file (for
+ * example unused variables or resource leaks) cannot run this way and are
+ * listed by getSkippedRules(); use CodeAnalyzer.analyze for those.
+ *
+ * Issues are delivered per chunk, within a chunk grouped by rule in
+ * registration order, with absolute 1-based line numbers. For the rules it
+ * runs the issues are the same as CodeAnalyzer.analyze reports.
+ */
+
+public class StreamingAnalyzer {
+
+    /**
+     * Default number of characters read per chunk.
+     */
+    public static final int DEFAULT_CHUNK_CHARS = 1 << 16;
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<Rule> skipped = new ArrayList<>();
+    private int chunkChars = DEFAULT_CHUNK_CHARS;
+
+    /**
+     * Creates a streaming analyzer for the chunkable rules of the given analyzer.
+     */
+
+    public StreamingAnalyzer(CodeAnalyzer analyzer) {
+        for (Rule rule : analyzer.getRules()) {
+            if (rule instanceof StreamableRule || rule instanceof LineLocalRule) {
+                rules.add(rule);
+            } else {
+                skipped.add(rule);
+            }
+        }
+    }
+
+    /**
+     * Returns the rules that run in streaming mode, in registration order.
+     */
+
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns the rules that need the whole source and are not run.
+     */
+
+    public List<Rule> getSkippedRules() {
+        return Collections.unmodifiableList(skipped);
+    }
+
+    /**
+     * Sets how many characters are read per chunk. Lines longer than this
+     * still fit; the buffer grows to hold them.
+     */
+
+    public void setChunkChars(int chunkChars) {
+        if (chunkChars < 1) {
+            throw new IllegalArgumentException("chunkChars must be positive: " + chunkChars);
+        }
+        this.chunkChars = chunkChars;
+    }
+
+    public int getChunkChars() {
+        return chunkChars;
+    }
+
+    /**
+     * Analyzes the source read from the Reader and collects the issues.
+     * The Reader is read to the end but not closed.
+     */
+
+    public List<Issue> analyze(Reader in) throws IOException {
+        List<Issue> issues = new ArrayList<>();
+        analyze(in, issues::add);
+        return issues;
+    }
+
+    /**
+     * Analyzes the bytes read from the channel, decoded with the given charset.
+     * Malformed input is replaced like new String(bytes, charset) does.
+     * The channel is read to the end but not closed.
+     */
+
+    public List<Issue> analyze(ReadableByteChannel in, Charset charset) throws IOException {
+        return analyze(reader(in, charset));
+    }
+
+    /**
+     * Streaming variant of analyze(ReadableByteChannel, Charset) that hands
+     * every issue to the sink as soon as its chunk is done.
+     */
+
+    public void analyze(ReadableByteChannel in, Charset charset, Consumer<Issue> sink) throws IOException {
+        analyze(reader(in, charset), sink);
+    }
+
+    /**
+     * Analyzes the source read from the Reader and hands every issue to the
+     * sink as soon as its chunk is done, so not even the results accumulate.
+     */
+
+    public void analyze(Reader in, Consumer<Issue> sink) throws IOException {
+        List<List<Issue>> perRule = new ArrayList<>(rules.size());
+        List<RuleVisitor> visitors = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<Issue> issues = new ArrayList<>();
+            perRule.add(issues);
+            if (rule instanceof StreamableRule) {
+                visitors.add(((StreamableRule) rule).streamingVisitor(issues));
+            }
+        }
+
+        char[] buffer = new char[chunkChars];
+        int filled = 0;
+        int firstLine = 0;
+        int state = SourceView.STATE_CODE;
+        boolean eof = false;
+
+        while (true) {
+            while (!eof && filled < buffer.length) {
+                int n = in.read(buffer, filled, buffer.length - filled);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    filled += n;
+                }
+            }
+
+            int cut = eof ? filled : chunkEnd(buffer, filled);
+            if (cut == 0 && !eof) {
+                // No complete non-empty line in the buffer: make room for a longer one.
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+
+            if (cut > 0 || firstLine == 0) {
+                // The view is dropped before the buffer is refilled below.
+                SourceView chunk = SourceView.of(buffer, cut, state);
+                analyzeChunk(chunk, firstLine, perRule, visitors);
+                flush(perRule, sink);
+                firstLine += countLines(buffer, cut);
+                state = chunk.stateAtEnd();
+            }
+
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+            if (eof && filled == 0) {
+                break;
+            }
+        }
+
+        VisitorDriver.finish(visitors);
+        flush(perRule, sink);
+    }
+
+    private void analyzeChunk(SourceView chunk, int firstLine, List<List<Issue>> perRule, List<RuleVisitor> visitors) {
+        if (!visitors.isEmpty()) {
+            VisitorDriver.runChunk(chunk, firstLine, visitors);
+        }
+
+        for (int r = 0; r < rules.size(); r++) {
+            Rule rule = rules.get(r);
+            if (rule instanceof StreamableRule) {
+                continue;
+            }
+            List<Issue> issues = perRule.get(r);
+            int from = issues.size();
+            ((LineLocalRule) rule).applyToLines(chunk, 0, chunk.lineCount(), issues);
+            if (firstLine > 0) {
+                for (int i = from; i < issues.size(); i++) {
+                    Issue issue = issues.get(i);
+                    issues.set(i, new Issue(issue.getLine() + firstLine, issue.getIssueType(),
+                            issue.getMessage(), issue.getSuggestedFix()));
+                }
+            }
+        }
+    }
+
+    private static void flush(List<List<Issue>> perRule, Consumer<Issue> sink) {
+        for (List<Issue> issues : perRule) {
+            for (Issue issue : issues) {
+                sink.accept(issue);
+            }
+            issues.clear();
+        }
+    }
+
+    /**
+     * Returns the offset just past the last line terminator of the buffer
+     * that ends a non-empty line, or 0 if there is none, in which case the
+     * caller grows the buffer.
+     *
+     * A chunk never ends in an empty line: its view would drop the trailing
+     * empty lines like String.split does, and with them any issue reported
+     * on them. Only the final chunk, at the end of input, may do so. A '\r'
+     * in the last position is not a cut point, since the '\n' of a "\r\n"
+     * pair may still be unread.
+     */
+
+    static int chunkEnd(char[] buffer, int filled) {
+        for (int i = filled - 1; i >= 0; i--) {
+            char c = buffer[i];
+            if (!isLineTerminator(c) || (c == '\r' && i == filled - 1)) {
+                continue;
+            }
+            int lineEnd = c == '\n' && i > 0 && buffer[i - 1] == '\r' ? i - 1 : i;
+            if (lineEnd > 0 && !isLineTerminator(buffer[lineEnd - 1])) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Counts the line terminators in the first {@code length} characters,
+     * treating "\r\n" as one.
+     */
+
+    static int countLines(char[] buffer, int length) {
+        int lines = 0;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (isLineTerminator(c)) {
+                lines++;
+                if (c == '\r' && i + 1 < length && buffer[i + 1] == '\n') {
+                    i++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static Reader reader(ReadableByteChannel in, Charset charset) {
+        return Channels.newReader(in, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
+    }
+}
@@ -0,0 +1,236 @@
+package com.codefixerai.bench;
+
+import com.codefixerai.analyzer.CodeAnalyzer;
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.rules.SourceRule;
+import com.codefixerai.source.SourceView;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmark harness for CodeAnalyzer and every registered Rule.
+ *
+ * Each benchmark runs over a set of synthetic corpora (see Corpus):
+ * - small:   a single ordinary class of about 60 lines.
+ * - 10k:     10,000 lines of mixed code.
+ * - 100k:    100,000 lines of mixed code.
+ * - nested:  10,000 lines of blocks nested 12 levels deep.
+ * - literal: 10,000 lines dominated by string literals and comments.
+ *
+ * Benchmarks:
+ * - view:     SourceView.of alone, the parsing cost every rule shares.
+ * - analyze:  CodeAnalyzer.analyze end-to-end.
+ * - one entry per rule: the rule applied to a freshly built SourceView, so
+ *   indexes the rule builds lazily are part of its cost. Subtract "view"
+ *   for the rule's own share.
+ *
+ * For every benchmark it reports throughput (operations and source lines
+ * per second) and allocation (bytes per operation and MB per second, read
+ * from the thread's allocation counter). Allocation is shown as "n/a" on
+ * JVMs without com.sun.management.ThreadMXBean.
+ *
+ * Usage:
+ *   java com.codefixerai.bench.AnalyzerBenchmark [--corpus name,...] [--bench text]
+ *                                                [--warmup millis] [--time millis]
+ *
+ * --bench keeps only benchmarks whose name contains the text. Run with a
+ * fixed heap (e.g. -Xms1g -Xmx1g) to keep numbers comparable between runs.
+ */
+
+public class AnalyzerBenchmark {
+
+    private static final long DEFAULT_WARMUP_MILLIS = 1000;
+    private static final long DEFAULT_TIME_MILLIS = 2000;
+
+    /**
+     * One measured operation over a source text.
+     */
+
+    private interface Operation {
+        int run(String text);
+    }
+
+    private final Map<String, String> corpora = new LinkedHashMap<>();
+    private final Map<String, Operation> benchmarks = new LinkedHashMap<>();
+    private long warmupMillis = DEFAULT_WARMUP_MILLIS;
+    private long timeMillis = DEFAULT_TIME_MILLIS;
+    private final com.sun.management.ThreadMXBean allocation;
+
+    // Keeps results reachable so the JIT cannot drop the measured work.
+    private long sink;
+
+    private AnalyzerBenchmark() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean sunThreads = null;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported()) {
+                sunThreads.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                sunThreads = null;
+            }
+        }
+        allocation = sunThreads;
+    }
+
+    public static void main(String[] args) {
+        AnalyzerBenchmark benchmark = new AnalyzerBenchmark();
+        try {
+            benchmark.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("benchmark: " + e.getMessage());
+            System.err.println("usage: AnalyzerBenchmark [--corpus small,10k,100k,nested,literal] [--bench text] [--warmup millis] [--time millis]");
+            System.exit(2);
+        }
+        benchmark.runAll();
+    }
+
+    private void parseArgs(String[] args) {
+        String corpusList = "small,10k,100k,nested,literal";
+        String filter = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--corpus":
+                    corpusList = value(args, ++i, arg);
+                    break;
+                case "--bench":
+                    filter = value(args, ++i, arg);
+                    break;
+                case "--warmup":
+                    warmupMillis = millis(value(args, ++i, arg), arg);
+                    break;
+                case "--time":
+                    timeMillis = millis(value(args, ++i, arg), arg);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+
+        for (String name : corpusList.split(",")) {
+            corpora.put(name.trim(), corpus(name.trim()));
+        }
+
+        CodeAnalyzer analyzer = new CodeAnalyzer();
+        addBenchmark("view", text -> SourceView.of(text).lineCount(), filter);
+        addBenchmark("analyze", text -> analyzer.analyze(text).size(), filter);
+        for (Rule rule : analyzer.getRules()) {
+            addBenchmark(rule.getClass().getSimpleName(), text -> applyRule(rule, text), filter);
+        }
+        if (benchmarks.isEmpty()) {
+            throw new IllegalArgumentException("no benchmark matches " + filter);
+        }
+    }
+
+    private void addBenchmark(String name, Operation operation, String filter) {
+        if (filter == null || name.contains(filter)) {
+            benchmarks.put(name, operation);
+        }
+    }
+
+    private static String corpus(String name) {
+        switch (name) {
+            case "small":
+                return Corpus.mixed(60);
+            case "10k":
+                return Corpus.mixed(10_000);
+            case "100k":
+                return Corpus.mixed(100_000);
+            case "nested":
+                return Corpus.nested(10_000, 12);
+            case "literal":
+                return Corpus.literalHeavy(10_000);
+            default:
+                throw new IllegalArgumentException("unknown corpus: " + name);
+        }
+    }
+
+    private static int applyRule(Rule rule, String text) {
+        List<Issue> issues = rule instanceof SourceRule
+                ? ((SourceRule) rule).apply(SourceView.of(text))
+                : rule.apply(text);
+        return issues.size();
+    }
+
+    private void runAll() {
+        System.out.printf(Locale.ROOT, "%-8s %-30s %12s %14s %14s %12s%n",
+                "corpus", "benchmark", "ops/s", "lines/s", "bytes/op", "alloc MB/s");
+
+        for (Map.Entry<String, String> corpus : corpora.entrySet()) {
+            String text = corpus.getValue();
+            int lines = SourceView.of(text).lineCount();
+            for (Map.Entry<String, Operation> benchmark : benchmarks.entrySet()) {
+                Result result = measure(benchmark.getValue(), text);
+                double seconds = result.nanos / 1e9;
+                double opsPerSecond = result.ops / seconds;
+                System.out.printf(Locale.ROOT, "%-8s %-30s %12.1f %14.0f %14s %12s%n",
+                        corpus.getKey(), benchmark.getKey(), opsPerSecond, opsPerSecond * lines,
+                        result.bytes < 0 ? "n/a" : String.valueOf(result.bytes / result.ops),
+                        result.bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", result.bytes / seconds / (1 << 20)));
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static final class Result {
+        long ops;
+        long nanos;
+        long bytes;
+    }
+
+    /**
+     * Runs the operation repeatedly for the warm-up period, then for the
+     * measurement period, and returns the counts of the measurement period.
+     */
+
+    private Result measure(Operation operation, String text) {
+        long end = System.nanoTime() + warmupMillis * 1_000_000;
+        while (System.nanoTime() < end) {
+            sink += operation.run(text);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        Result result = new Result();
+        long bytesBefore = allocation != null ? allocation.getThreadAllocatedBytes(threadId) : -1;
+        long start = System.nanoTime();
+        end = start + timeMillis * 1_000_000;
+        long now;
+        do {
+            sink += operation.run(text);
+            result.ops++;
+            now = System.nanoTime();
+        } while (now < end);
+        result.nanos = now - start;
+        result.bytes = allocation != null ? allocation.getThreadAllocatedBytes(threadId) - bytesBefore : -1;
+        return result;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " expects a value");
+        }
+        return args[index];
+    }
+
+    private static long millis(String value, String option) {
+        try {
+            long millis = Long.parseLong(value);
+            if (millis < 0) {
+                throw new IllegalArgumentException(option + " must not be negative");
+            }
+            return millis;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects a number of milliseconds");
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.codefixerai.bench;
+
+import java.util.Random;
+
+/**
+ * Generates synthetic Java sources for the benchmark harnesses.
+ *
+ * The output is deterministic for a given size and seed, so numbers from
+ * different runs (and different commits) are comparable.
+ *
+ * Shapes:
+ * - mixed:        ordinary statements plus the constructs the rules look for
+ *                 (empty catch blocks, constant conditions, long parameter
+ *                 lists, String comparisons, loops, switches and comments).
+ * - nested:       blocks nested many levels deep.
+ * - literalHeavy: long string literals, text that looks like code inside
+ *                 literals and comments, and escape sequences.
+ */
+
+public final class Corpus {
+
+    private static final long DEFAULT_SEED = 42;
+
+    private Corpus() {
+    }
+
+    /**
+     * Returns roughly {@code lines} lines of mixed Java code.
+     */
+
+    public static String mixed(int lines) {
+        return mixed(lines, DEFAULT_SEED);
+    }
+
+    /**
+     * Returns roughly {@code lines} lines of mixed Java code for the given seed.
+     */
+
+    public static String mixed(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 32);
+        int line = 0;
+        int method = 0;
+
+        sb.append("package bench;\n\nimport java.util.*;\n\npublic class Generated {\n");
+        line += 5;
+        while (line < lines - 1) {
+            line += appendMethod(sb, random, method++);
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Returns roughly {@code lines} lines of methods whose bodies nest
+     * if/for/while blocks up to {@code depth} levels.
+     */
+
+    public static String nested(int lines, int depth) {
+        StringBuilder sb = new StringBuilder(lines * 40);
+        int line = 0;
+        int method = 0;
+
+        sb.append("public class Nested {\n");
+        line++;
+        while (line < lines - 1) {
+            sb.append("    void level").append(method++).append("(int n) {\n");
+            line++;
+            for (int d = 0; d < depth; d++) {
+                indent(sb, d + 2);
+                switch (d % 3) {
+                    case 0:
+                        sb.append("if (n > ").append(d).append(") {\n");
+                        break;
+                    case 1:
+                        sb.append("for (int i").append(d).append(" = 0; i").append(d).append(" < n; i").append(d).append("++) {\n");
+                        break;
+                    default:
+                        sb.append("while (n-- > ").append(d).append(") {\n");
+                }
+            }
+            indent(sb, depth + 2);
+            sb.append("n += ").append(depth).append(";\n");
+            for (int d = depth - 1; d >= 0; d--) {
+                indent(sb, d + 2);
+                sb.append("}\n");
+            }
+            sb.append("    }\n\n");
+            line += 2 * depth + 3;
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Returns roughly {@code lines} lines dominated by string literals and
+     * comments, many of which contain rule keywords that must be ignored.
+     */
+
+    public static String literalHeavy(int lines) {
+        return literalHeavy(lines, DEFAULT_SEED);
+    }
+
+    /**
+     * Returns roughly {@code lines} literal-heavy lines for the given seed.
+     */
+
+    public static String literalHeavy(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(lines * 80);
+        int line = 0;
+
+        sb.append("public class Literals {\n    static final String[] TEXT = {\n");
+        line += 2;
+        while (line < lines - 3) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    sb.append("        \"if (true) { catch (Exception e) {} } while (false) == \\\"quoted\\\" \\\\ path\",\n");
+                    break;
+                case 1:
+                    sb.append("        \"SELECT * FROM table WHERE id = ").append(random.nextInt(100000))
+                            .append(" AND name = 'x' -- TODO not a comment\",\n");
+                    break;
+                case 2:
+                    sb.append("        /* for (int i = 0; i <= n; i++) { s += \"x\"; } */ \"after comment\",\n");
+                    break;
+                case 3:
+                    sb.append("        \"").append(filler(random, 60 + random.nextInt(60))).append("\" + \"\\t\\n\\u0041\",\n");
+                    break;
+                default:
+                    sb.append("        'c' + \"\" + '\\'' + \"// not a comment either\",\n");
+            }
+            line++;
+        }
+        sb.append("        \"end\"\n    };\n}\n");
+        return sb.toString();
+    }
+
+    private static String filler(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(7) == 0) sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static void indent(StringBuilder sb, int levels) {
+        for (int i = 0; i < levels; i++) {
+            sb.append("    ");
+        }
+    }
+
+    private static int appendMethod(StringBuilder sb, Random random, int index) {
+        int lines = 0;
+        if (random.nextInt(8) == 0) {
+            sb.append("    public int compute").append(index)
+                    .append("(int a, int b, int c, int d, int e, int f) {\n");
+        } else {
+            sb.append("    public int compute").append(index).append("(int a, String name) {\n");
+        }
+        lines++;
+
+        int statements = 4 + random.nextInt(12);
+        for (int s = 0; s < statements; s++) {
+            switch (random.nextInt(12)) {
+                case 0:
+                    sb.append("        try {\n            a += load(name);\n        } catch (Exception e) {}\n");
+                    lines += 3;
+                    break;
+                case 1:
+                    sb.append("        if (true) {\n            a++;\n        }\n");
+                    sb.append("        while (false)\n            a--;\n");
+                    lines += 5;
+                    break;
+                case 2:
+                    sb.append("        String s").append(s).append(" = name + \"-").append(index).append("\";\n");
+                    sb.append("        if (s").append(s).append(" == name) {\n            a--;\n        }\n");
+                    lines += 4;
+                    break;
+                case 3:
+                    sb.append("        for (int i = 0; i <= a; i++) {\n            a += i * 3;\n        }\n");
+                    lines += 3;
+                    break;
+                case 4:
+                    sb.append("        switch (a) {\n            case 1:\n                a = 2;\n                break;\n        }\n");
+                    lines += 5;
+                    break;
+                case 5:
+                    sb.append("        // TODO: revisit this branch\n");
+                    lines++;
+                    break;
+                case 6:
+                    sb.append("        /* block comment with catch (x) {} and if (true) inside */\n");
+                    lines++;
+                    break;
+                case 7:
+                    sb.append("        int value").append(s).append(" = a * ").append(100 + random.nextInt(900)).append(";\n");
+                    lines++;
+                    break;
+                default:
+                    sb.append("        a = Math.max(a, name.length() + ").append(random.nextInt(10)).append(");\n");
+                    lines++;
+            }
+        }
+        sb.append("        return a;\n    }\n\n");
+        return lines + 3;
+    }
+}
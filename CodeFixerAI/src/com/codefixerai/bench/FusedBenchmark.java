@@ -0,0 +1,89 @@
+package com.codefixerai.bench;
+
+import com.codefixerai.analyzer.CodeAnalyzer;
+import com.codefixerai.model.Issue;
+import com.codefixerai.source.SourceView;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares fused single-pass execution with running each rule on its own.
+ *
+ * Both variants analyze the same corpora with the same rules through
+ * CodeAnalyzer, once with setFused(true) and once with setFused(false).
+ * The issue lists are compared first, so a difference in results is
+ * reported before any timing. The two variants are timed in alternating
+ * rounds and the best round of each is reported, which keeps GC pauses
+ * and JIT phases of one variant from being charged to the other.
+ *
+ * Usage:
+ *   java com.codefixerai.bench.FusedBenchmark [iterations]
+ */
+
+public class FusedBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+
+        String[] names = {"small", "10k", "100k", "nested", "literal"};
+        String[] corpora = {
+                Corpus.mixed(60), Corpus.mixed(10_000), Corpus.mixed(100_000),
+                Corpus.nested(10_000, 12), Corpus.literalHeavy(10_000)
+        };
+
+        CodeAnalyzer fused = new CodeAnalyzer();
+        CodeAnalyzer perRule = new CodeAnalyzer();
+        perRule.setFused(false);
+
+        System.out.printf(Locale.ROOT, "%-8s %16s %16s %9s%n", "corpus", "per-rule ms/op", "fused ms/op", "speed-up");
+        for (int c = 0; c < corpora.length; c++) {
+            String text = corpora[c];
+            List<Issue> expected = perRule.analyze(text);
+            List<Issue> actual = fused.analyze(text);
+            if (!expected.toString().equals(actual.toString())) {
+                System.out.println(names[c] + ": fused and per-rule results differ");
+                System.exit(1);
+            }
+
+            int repeat = Math.max(1, iterations * 10_000 / Math.max(1, SourceView.of(text).lineCount()));
+            repeat = Math.min(repeat, iterations * 100);
+            warmUp(perRule, text);
+            warmUp(fused, text);
+            double perRuleMillis = Double.MAX_VALUE;
+            double fusedMillis = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                perRuleMillis = Math.min(perRuleMillis, time(perRule, text, repeat));
+                fusedMillis = Math.min(fusedMillis, time(fused, text, repeat));
+            }
+            System.out.printf(Locale.ROOT, "%-8s %16.3f %16.3f %8.2fx%n",
+                    names[c], perRuleMillis, fusedMillis, perRuleMillis / fusedMillis);
+        }
+    }
+
+    private static void warmUp(CodeAnalyzer analyzer, String text) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            analyzer.analyze(text);
+        }
+    }
+
+    /**
+     * Returns the mean milliseconds per analysis, each on a freshly built view.
+     */
+
+    private static double time(CodeAnalyzer analyzer, String text, int repeat) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < repeat; i++) {
+            sink += analyzer.analyze(text).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println();
+        }
+        return elapsed / 1e6 / repeat;
+    }
+}
@@ -0,0 +1,144 @@
+package com.codefixerai.bench;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.AlwaysTrueConditionRule;
+import com.codefixerai.rules.EmptyCatchBlockRule;
+import com.codefixerai.rules.ExcessiveParameterRule;
+import com.codefixerai.rules.SourceRule;
+import com.codefixerai.rules.StringEqualityRule;
+import com.codefixerai.source.SourceView;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Regression benchmark for the rules that used to call String.matches on
+ * every line.
+ *
+ * For each rule it measures, on the same corpus:
+ * - before: the original per-line regex (recompiled by String.matches or
+ *   Pattern.compile on every call), run over every line.
+ * - after:  the current rule implementation.
+ *
+ * Usage:
+ *   java com.codefixerai.bench.PatternBenchmark [lines] [iterations]
+ *
+ * Defaults to a 100k-line corpus. Splitting the corpus into lines and
+ * building the SourceView happen before timing starts, so only the
+ * matching itself is compared. Results are printed as nanoseconds per
+ * source line; the match counts of both variants are printed too, so a
+ * behavioural regression shows up next to the timing.
+ */
+
+public class PatternBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+
+    /**
+     * One "before" implementation: returns the number of matching lines.
+     */
+
+    private interface LegacyCheck {
+        int run(String[] lines);
+    }
+
+    public static void main(String[] args) {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String text = Corpus.mixed(lineCount);
+        String[] lines = text.split("\\R");
+        // Both sides start from prepared input: split lines before, a view with built indexes after.
+        SourceView view = SourceView.of(text);
+        view.keywords();
+        System.out.printf("Corpus: %d lines, %d chars, %d iterations%n%n", lines.length, text.length(), iterations);
+        System.out.printf("%-28s %14s %14s %9s %8s %8s%n", "Rule", "before ns/line", "after ns/line", "speed-up", "before#", "after#");
+
+        measure("AlwaysTrueCondition", new AlwaysTrueConditionRule(), lines, view, iterations, l -> {
+            int n = 0;
+            for (String line : l) {
+                String trimmed = line.trim();
+                if (trimmed.matches("if\\s*\\(true\\)|while\\s*\\(true\\)")) n++;
+                if (trimmed.matches("if\\s*\\(false\\)|while\\s*\\(false\\)")) n++;
+            }
+            return n;
+        });
+
+        measure("EmptyCatch", new EmptyCatchBlockRule(), lines, view, iterations, l -> {
+            int n = 0;
+            for (String line : l) {
+                if (line.matches(".*catch\\s*\\([^)]*\\)\\s*\\{\\s*\\}.*")) n++;
+            }
+            return n;
+        });
+
+        measure("ExcessiveParameters", new ExcessiveParameterRule(), lines, view, iterations, l -> {
+            int n = 0;
+            for (String line : l) {
+                String trimmed = line.trim();
+                int commas = 0;
+                for (int i = 0; i < trimmed.length(); i++) {
+                    if (trimmed.charAt(i) == ',') commas++;
+                }
+                if (commas >= 4 && trimmed.matches(".*\\(.*\\).*")) n++;
+            }
+            return n;
+        });
+
+        measure("StringEquality", new StringEqualityRule(), lines, view, iterations, l -> {
+            Set<String> vars = new HashSet<>();
+            for (String line : l) {
+                Matcher m = Pattern.compile("\\bString\\s+([a-zA-Z_][a-zA-Z0-9_]*)").matcher(line);
+                while (m.find()) vars.add(m.group(1));
+            }
+            int n = 0;
+            for (String line : l) {
+                if (!line.contains("==")) continue;
+                for (String var : vars) {
+                    if (line.contains(var + " ==") || line.contains("== " + var) ||
+                            line.contains(var + "==") || line.contains("==" + var)) {
+                        n++;
+                        break;
+                    }
+                }
+            }
+            return n;
+        });
+    }
+
+    private static void measure(String name, SourceRule rule, String[] lines, SourceView view,
+                                int iterations, LegacyCheck legacy) {
+        int before = 0;
+        int after = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            before = legacy.run(lines);
+            after = runRule(rule, view);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            before = legacy.run(lines);
+        }
+        long beforeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            after = runRule(rule, view);
+        }
+        long afterNanos = System.nanoTime() - start;
+
+        double perLine = (double) iterations * lines.length;
+        double beforePerLine = beforeNanos / perLine;
+        double afterPerLine = afterNanos / perLine;
+        System.out.printf("%-28s %14.1f %14.1f %8.1fx %8d %8d%n", name, beforePerLine, afterPerLine,
+                beforePerLine / Math.max(afterPerLine, 0.001), before, after);
+    }
+
+    private static int runRule(SourceRule rule, SourceView view) {
+        List<Issue> issues = rule.apply(view);
+        return issues.size();
+    }
+}
@@ -0,0 +1,322 @@
+package com.codefixerai.main;
+
+import com.codefixerai.analyzer.AnalysisCache;
+import com.codefixerai.analyzer.AnalysisSink;
+import com.codefixerai.analyzer.AnalyzerMetrics;
+import com.codefixerai.analyzer.BatchAnalyzer;
+import com.codefixerai.analyzer.CodeAnalyzer;
+import com.codefixerai.analyzer.RuleRegistry;
+import com.codefixerai.model.BatchSummary;
+import com.codefixerai.model.FileAnalysisResult;
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueCounts;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.model.Severity;
+import com.codefixerai.report.JsonWriter;
+import com.codefixerai.source.SourceFiles;
+import com.codefixerai.source.SourceView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless command-line entry point for CI pipelines.
+ *
+ * Unlike App, this class never touches AWT or Swing, so it runs on agents
+ * without an X server and skips the look-and-feel start-up cost.
+ *
+ * Usage:
+ *   java com.codefixerai.main.Cli [--format json|text] [--fail-on high|medium|low|none]
+ *                                 [--threads N] [--cache-dir DIR] [--rules ID,...] [--metrics]
+ *                                 (file | directory | -)...
+ *
+ * "-" (or no path at all) reads a single source from stdin. JSON output is
+ * one object per line per file, followed by a summary line.
+ *
+ * With --cache-dir, results are cached on disk by content hash so unchanged
+ * files are not analysed again on the next run.
+ *
+ * --rules runs only the listed rules, by class name with or without the
+ * "Rule" suffix (for example --rules ResourceLeak,StringEquality).
+ *
+ * With --metrics, per-rule timing, issue counts and allocation are written
+ * to stderr as one JSON object after the summary.
+ *
+ * Exit codes: 0 = no issue at or above the threshold, 1 = threshold hit,
+ * 2 = usage or I/O error.
+ */
+
+public class Cli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_THRESHOLD = 1;
+    static final int EXIT_ERROR = 2;
+
+    private boolean json = true;
+    private Severity failOn = Severity.HIGH;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path cacheDir;
+    private boolean metrics;
+    private List<String> ruleIds;
+    private AnalysisCache cache;
+    private final List<String> inputs = new ArrayList<>();
+
+    private Writer out;
+    private JsonWriter jsonOut;
+    private boolean thresholdHit;
+    private int fileCount, failedCount;
+    private final IssueCounts counts = new IssueCounts();
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(new Cli().run(args));
+    }
+
+    /**
+     * Parses the arguments, analyzes all inputs and returns the exit code.
+     */
+
+    int run(String[] args) {
+        try {
+            parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("codefixer: " + e.getMessage());
+            System.err.println("usage: Cli [--format json|text] [--fail-on high|medium|low|none] [--threads N] [--cache-dir DIR] [--rules ID,...] [--metrics] (file|dir|-)...");
+            return EXIT_ERROR;
+        }
+
+        if (json) {
+            jsonOut = new JsonWriter(System.out);
+        } else {
+            out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        }
+        try {
+            long start = System.nanoTime();
+            CodeAnalyzer analyzer = RuleRegistry.getDefault().newAnalyzer(ruleIds);
+            if (metrics) {
+                analyzer.setMetrics(new AnalyzerMetrics());
+            }
+            if (cacheDir != null) {
+                cache = new AnalysisCache(AnalysisCache.DEFAULT_MAX_WEIGHT, cacheDir);
+            }
+            BatchAnalyzer batch = null;
+            AnalysisSink sink = this::report;
+
+            if (inputs.isEmpty()) {
+                inputs.add("-");
+            }
+            List<Path> files = new ArrayList<>();
+            for (String input : inputs) {
+                if (input.equals("-")) {
+                    // Source on stdin: analyze inline, no thread pool needed.
+                    report(new FileAnalysisResult("-", analyze(analyzer, readStdin())));
+                    continue;
+                }
+                Path path = Paths.get(input);
+                if (Files.isDirectory(path)) {
+                    if (batch == null) batch = newBatch(analyzer);
+                    batch.analyzeDirectory(path, sink);
+                } else {
+                    files.add(path);
+                }
+            }
+            if (files.size() == 1) {
+                Path file = files.get(0);
+                try {
+                    report(new FileAnalysisResult(file.toString(), analyze(analyzer, SourceFiles.read(file))));
+                } catch (IOException e) {
+                    report(FileAnalysisResult.failed(file.toString(), e.getClass().getSimpleName() + ": " + e.getMessage()));
+                }
+            } else if (!files.isEmpty()) {
+                if (batch == null) batch = newBatch(analyzer);
+                batch.analyzeFiles(files, sink);
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            writeSummary(new BatchSummary(fileCount, failedCount, counts.total(), elapsed));
+            if (json) {
+                jsonOut.finish();
+            } else {
+                out.flush();
+            }
+            if (metrics) {
+                System.err.println(analyzer.getMetrics().toJson());
+            }
+
+            if (failedCount > 0) {
+                return EXIT_ERROR;
+            }
+            return thresholdHit ? EXIT_THRESHOLD : EXIT_OK;
+        } catch (IOException e) {
+            System.err.println("codefixer: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--format":
+                    String format = value(args, ++i, arg);
+                    if (!format.equals("json") && !format.equals("text")) {
+                        throw new IllegalArgumentException("unknown format: " + format);
+                    }
+                    json = format.equals("json");
+                    break;
+                case "--fail-on":
+                    String level = value(args, ++i, arg);
+                    failOn = level.equalsIgnoreCase("none") ? null : parseSeverity(level);
+                    break;
+                case "--cache-dir":
+                    cacheDir = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--rules":
+                    ruleIds = new ArrayList<>();
+                    for (String id : value(args, ++i, arg).split(",")) {
+                        if (!id.trim().isEmpty()) ruleIds.add(id.trim());
+                    }
+                    RuleRegistry.getDefault().select(ruleIds);
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--threads expects a number");
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads must be at least 1");
+                    }
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("unknown option: " + arg);
+                    }
+                    inputs.add(arg);
+            }
+        }
+    }
+
+    private List<Issue> analyze(CodeAnalyzer analyzer, SourceView source) {
+        return cache != null ? cache.analyze(analyzer, source) : analyzer.analyze(source);
+    }
+
+    private BatchAnalyzer newBatch(CodeAnalyzer analyzer) {
+        BatchAnalyzer batch = new BatchAnalyzer(analyzer, threads);
+        batch.setCache(cache);
+        return batch;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " expects a value");
+        }
+        return args[index];
+    }
+
+    private static Severity parseSeverity(String level) {
+        for (Severity severity : Severity.values()) {
+            if (severity.name().equalsIgnoreCase(level)) {
+                return severity;
+            }
+        }
+        throw new IllegalArgumentException("unknown severity: " + level);
+    }
+
+    /**
+     * Reads stdin as UTF-8 straight into a char buffer for the SourceView.
+     */
+
+    private static SourceView readStdin() throws IOException {
+        Reader in = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        char[] buf = new char[8192];
+        int len = 0;
+        int n;
+        while ((n = in.read(buf, len, buf.length - len)) > 0) {
+            len += n;
+            if (len == buf.length) {
+                char[] bigger = new char[buf.length * 2];
+                System.arraycopy(buf, 0, bigger, 0, len);
+                buf = bigger;
+            }
+        }
+        return SourceView.of(buf, len);
+    }
+
+    /**
+     * Writes one file's result. Called by BatchAnalyzer one result at a time.
+     */
+
+    private void report(FileAnalysisResult result) throws IOException {
+        fileCount++;
+        if (result.isFailed()) {
+            failedCount++;
+        }
+        IssueCounts fileCounts = new IssueCounts();
+        fileCounts.addAll(result.getIssues());
+        counts.addAll(fileCounts);
+        if (failOn != null && fileCounts.countAtLeast(failOn) > 0) {
+            thresholdHit = true;
+        }
+
+        if (json) {
+            jsonOut.beginObject().name("file").value(result.getName());
+            if (result.isFailed()) {
+                jsonOut.name("error").value(result.getError());
+            }
+            jsonOut.name("issues").beginArray();
+            for (Issue issue : result.getIssues()) {
+                jsonOut.issue(issue);
+            }
+            jsonOut.endArray().endObject().newline();
+        } else {
+            if (result.isFailed()) {
+                out.write(result.getName() + ": error: " + result.getError() + "\n");
+            }
+            for (Issue issue : result.getIssues()) {
+                out.write(result.getName() + ":" + issue.getLine() + ": [" +
+                        issue.getIssueType().getSeverity() + "] " + issue.getType() + ": " +
+                        issue.getMessage() + "\n");
+            }
+        }
+    }
+
+    private void writeSummary(BatchSummary summary) throws IOException {
+        if (json) {
+            jsonOut.beginObject().name("summary").beginObject()
+                    .name("files").value(summary.getFileCount())
+                    .name("failed").value(summary.getFailedCount())
+                    .name("issues").value(summary.getIssueCount())
+                    .name("high").value(counts.count(Severity.HIGH))
+                    .name("medium").value(counts.count(Severity.MEDIUM))
+                    .name("low").value(counts.count(Severity.LOW))
+                    .name("rulesSkipped").value(counts.count(IssueType.RULE_SKIPPED));
+            if (cache != null) {
+                jsonOut.name("cacheHits").value(cache.getHitCount())
+                        .name("cacheMisses").value(cache.getMissCount());
+            }
+            jsonOut.name("elapsedMillis").value(summary.getElapsedMillis())
+                    .endObject().endObject().newline();
+        } else {
+            int skipped = counts.count(IssueType.RULE_SKIPPED);
+            out.write("Summary: Total Issues = " + summary.getIssueCount() +
+                    "  (High: " + counts.count(Severity.HIGH) + ", Medium: " + counts.count(Severity.MEDIUM) +
+                    ", Low: " + counts.count(Severity.LOW) + ") in " +
+                    summary.getFileCount() + " file(s)" +
+                    (skipped > 0 ? ", " + skipped + " rule run(s) skipped over budget" : "") + "\n");
+        }
+    }
+}
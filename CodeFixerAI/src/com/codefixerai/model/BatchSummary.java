@@ -0,0 +1,45 @@
+package com.codefixerai.model;
+
+/**
+ * Totals for a completed batch analysis run.
+ *
+ * Holds only counters, so it stays small no matter how many files
+ * were analysed; per-file details are streamed to the sink instead.
+ */
+
+public class BatchSummary {
+
+    private final int fileCount;
+    private final int failedCount;
+    private final long issueCount;
+    private final long elapsedMillis;
+
+    public BatchSummary(int fileCount, int failedCount, long issueCount, long elapsedMillis) {
+        this.fileCount = fileCount;
+        this.failedCount = failedCount;
+        this.issueCount = issueCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public long getIssueCount() {
+        return issueCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Files: " + fileCount + ", failed: " + failedCount +
+                ", issues: " + issueCount + " (" + elapsedMillis + " ms)";
+    }
+}
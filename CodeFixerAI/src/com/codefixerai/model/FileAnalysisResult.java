@@ -0,0 +1,54 @@
+package com.codefixerai.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of analysing one file during a batch run.
+ *
+ * Typical fields:
+ * - The name (usually a path) of the analysed source.
+ * - The issues reported for it.
+ * - An error message if the file could not be read or analysed.
+ */
+
+public class FileAnalysisResult {
+
+    private final String name;
+    private final List<Issue> issues;
+    private final String error;
+
+    public FileAnalysisResult(String name, List<Issue> issues) {
+        this(name, issues, null);
+    }
+
+    public FileAnalysisResult(String name, List<Issue> issues, String error) {
+        this.name = name;
+        this.issues = issues == null ? Collections.<Issue>emptyList() : issues;
+        this.error = error;
+    }
+
+    /**
+     * Creates a result for a file that could not be analysed.
+     */
+
+    public static FileAnalysisResult failed(String name, String error) {
+        return new FileAnalysisResult(name, null, error);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -11,21 +11,30 @@ package com.codefixerai.model;
 
 public class Issue {
     private final int line;
-    private final String type;
+    private final IssueType type;
     private final String message;
     private final String suggestedFix;
 
-    public Issue(int line, String type, String message, String suggestedFix) {
+    public Issue(int line, IssueType type, String message, String suggestedFix) {
         this.line = line;
         this.type = type;
         this.message = message;
         this.suggestedFix = suggestedFix;
     }
 
+    /**
+     * Creates an issue of the named type, registering the type if it is new.
+     */
+
+    public Issue(int line, String type, String message, String suggestedFix) {
+        this(line, IssueType.of(type), message, suggestedFix);
+    }
+
     // Basic data holder (POJO) for a detected issue.
 
     public int getLine() { return line; }
-    public String getType() { return type; }
+    public String getType() { return type.getName(); }
+    public IssueType getIssueType() { return type; }
     public String getMessage() { return message; }
     public String getSuggestedFix() { return suggestedFix; }
 
@@ -0,0 +1,361 @@
+package com.codefixerai.model;
+
+import com.codefixerai.source.SourceView;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Columnar List of issues that stores findings as primitives and builds
+ * Issue objects only when an element is read.
+ *
+ * Each finding is one slot in parallel arrays:
+ * - line:     1-based line number.
+ * - template: IssueTemplate id (type, message and fix wording).
+ * - argument: how the template's "{}" is filled, as a kind plus two ints:
+ *             an offset range into the source, an offset range into this
+ *             buffer's own character store, or a plain int value.
+ *
+ * A report therefore costs a few array writes instead of an Issue plus two
+ * concatenated Strings. get(i) and toString() render on demand, and the
+ * accessors line(i), type(i) and template(i) read the columns without
+ * rendering anything.
+ *
+ * The buffer is a fully mutable List. Issues added, inserted or set
+ * through the ordinary List methods are kept as objects.
+ * While it holds source offsets the buffer keeps its SourceView reachable;
+ * detach() returns a copy that does not. Not thread-safe.
+ */
+
+public final class IssueBuffer extends AbstractList<Issue> implements RandomAccess {
+
+    private static final byte NONE = 0;
+    private static final byte SOURCE_SPAN = 1;
+    private static final byte TEXT_SPAN = 2;
+    private static final byte INT = 3;
+    private static final byte OBJECT = 4;
+
+    private final SourceView source;
+
+    private int size;
+    private int[] lines;
+    private short[] templates;
+    private byte[] argKinds;
+    private int[] argA;
+    private int[] argB;
+
+    // Argument text that is not a span of the source, and Issues added as objects.
+    private StringBuilder text;
+    private Issue[] objects;
+    private int objectCount;
+
+    /**
+     * Creates an empty buffer whose source spans refer to the given view.
+     *
+     * @param source View the rules report offsets into, or null.
+     */
+
+    public IssueBuffer(SourceView source) {
+        this(source, 8);
+    }
+
+    /**
+     * Creates an empty buffer with room for the given number of findings.
+     */
+
+    public IssueBuffer(SourceView source, int capacity) {
+        this.source = source;
+        capacity = Math.max(1, capacity);
+        this.lines = new int[capacity];
+        this.templates = new short[capacity];
+        this.argKinds = new byte[capacity];
+        this.argA = new int[capacity];
+        this.argB = new int[capacity];
+    }
+
+    public SourceView getSource() {
+        return source;
+    }
+
+    // ----- Columnar appends -----
+
+    public void append(int line, IssueTemplate template) {
+        slot(line, template.getId(), NONE, 0, 0);
+    }
+
+    public void append(int line, IssueTemplate template, int value) {
+        slot(line, template.getId(), INT, value, 0);
+    }
+
+    public void append(int line, IssueTemplate template, String argument) {
+        StringBuilder store = text();
+        int start = store.length();
+        store.append(argument);
+        slot(line, template.getId(), TEXT_SPAN, start, store.length());
+    }
+
+    /**
+     * Appends a finding whose argument is the source text in [start, end).
+     */
+
+    public void append(int line, IssueTemplate template, int start, int end) {
+        if (source == null) {
+            throw new IllegalStateException("Buffer has no source for offsets");
+        }
+        slot(line, template.getId(), SOURCE_SPAN, start, end);
+    }
+
+    // ----- Column reads (no rendering) -----
+
+    public int line(int index) {
+        checkIndex(index);
+        return lines[index];
+    }
+
+    /**
+     * Returns the template of the finding, or null for an Issue added as an object.
+     */
+
+    public IssueTemplate template(int index) {
+        checkIndex(index);
+        return argKinds[index] == OBJECT ? null : IssueTemplate.byId(templates[index]);
+    }
+
+    public IssueType type(int index) {
+        checkIndex(index);
+        return argKinds[index] == OBJECT ? objects[argA[index]].getIssueType() : IssueTemplate.byId(templates[index]).getType();
+    }
+
+    // ----- List -----
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Renders the finding at the index into a new Issue.
+     */
+
+    @Override
+    public Issue get(int index) {
+        checkIndex(index);
+        if (argKinds[index] == OBJECT) {
+            return objects[argA[index]];
+        }
+        return IssueTemplate.byId(templates[index]).issue(lines[index], argument(index));
+    }
+
+    @Override
+    public boolean add(Issue issue) {
+        slot(issue.getLine(), (short) 0, OBJECT, storeObject(issue), 0);
+        return true;
+    }
+
+    @Override
+    public Issue set(int index, Issue issue) {
+        Issue previous = get(index);
+        argKinds[index] = OBJECT;
+        argA[index] = storeObject(issue);
+        lines[index] = issue.getLine();
+        return previous;
+    }
+
+    /**
+     * Inserts an Issue object at the index, shifting later findings up.
+     */
+
+    @Override
+    public void add(int index, Issue issue) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        slot(issue.getLine(), (short) 0, OBJECT, storeObject(issue), 0);
+        int last = size - 1;
+        if (index < last) {
+            int line = lines[last];
+            int a = argA[last];
+            shift(index, index + 1, last - index);
+            lines[index] = line;
+            templates[index] = 0;
+            argKinds[index] = OBJECT;
+            argA[index] = a;
+            argB[index] = 0;
+        }
+    }
+
+    /**
+     * Removes the finding at the index, shifting later findings down. Its
+     * argument text or object stays stored until clear().
+     */
+
+    @Override
+    public Issue remove(int index) {
+        Issue previous = get(index);
+        shift(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Copies the columns of another IssueBuffer instead of rendering its issues.
+     */
+
+    @Override
+    public boolean addAll(Collection<? extends Issue> issues) {
+        if (!(issues instanceof IssueBuffer)) {
+            return super.addAll(issues);
+        }
+        IssueBuffer other = (IssueBuffer) issues;
+        int count = other.size;
+        CharSequence otherSource = other.source != null && other.source != source ? other.source.chars() : null;
+        for (int i = 0; i < count; i++) {
+            switch (other.argKinds[i]) {
+                case SOURCE_SPAN:
+                    if (otherSource == null) {
+                        slot(other.lines[i], other.templates[i], SOURCE_SPAN, other.argA[i], other.argB[i]);
+                    } else {
+                        copyText(other, i, otherSource);
+                    }
+                    break;
+                case TEXT_SPAN:
+                    copyText(other, i, other.text);
+                    break;
+                case OBJECT:
+                    add(other.objects[other.argA[i]]);
+                    break;
+                default:
+                    slot(other.lines[i], other.templates[i], other.argKinds[i], other.argA[i], other.argB[i]);
+            }
+        }
+        return count > 0;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        objectCount = 0;
+        if (text != null) text.setLength(0);
+        if (objects != null) Arrays.fill(objects, null);
+        modCount++;
+    }
+
+    /**
+     * Returns a copy whose source-span arguments are copied into its own
+     * character store, so it no longer keeps the SourceView reachable.
+     * Suitable for caching results beyond the analysis.
+     */
+
+    public IssueBuffer detach() {
+        IssueBuffer copy = new IssueBuffer(null);
+        copy.addAll(this);
+        return copy;
+    }
+
+    /**
+     * Sorts the findings by line. The sort is stable, so findings on the
+     * same line keep their relative order.
+     */
+
+    public void sortByLine() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) lines[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] newLines = new int[lines.length];
+        short[] newTemplates = new short[templates.length];
+        byte[] newKinds = new byte[argKinds.length];
+        int[] newA = new int[argA.length];
+        int[] newB = new int[argB.length];
+        for (int i = 0; i < size; i++) {
+            int from = (int) keys[i];
+            newLines[i] = lines[from];
+            newTemplates[i] = templates[from];
+            newKinds[i] = argKinds[from];
+            newA[i] = argA[from];
+            newB[i] = argB[from];
+        }
+        lines = newLines;
+        templates = newTemplates;
+        argKinds = newKinds;
+        argA = newA;
+        argB = newB;
+        modCount++;
+    }
+
+    // ----- Internals -----
+
+    private String argument(int index) {
+        switch (argKinds[index]) {
+            case SOURCE_SPAN:
+                return source.substring(argA[index], argB[index]);
+            case TEXT_SPAN:
+                return text.substring(argA[index], argB[index]);
+            case INT:
+                return String.valueOf(argA[index]);
+            default:
+                return "";
+        }
+    }
+
+    private void copyText(IssueBuffer other, int index, CharSequence from) {
+        StringBuilder store = text();
+        int start = store.length();
+        store.append(from, other.argA[index], other.argB[index]);
+        slot(other.lines[index], other.templates[index], TEXT_SPAN, start, store.length());
+    }
+
+    private void slot(int line, short template, byte kind, int a, int b) {
+        if (size == lines.length) {
+            int capacity = size * 2;
+            lines = Arrays.copyOf(lines, capacity);
+            templates = Arrays.copyOf(templates, capacity);
+            argKinds = Arrays.copyOf(argKinds, capacity);
+            argA = Arrays.copyOf(argA, capacity);
+            argB = Arrays.copyOf(argB, capacity);
+        }
+        lines[size] = line;
+        templates[size] = template;
+        argKinds[size] = kind;
+        argA[size] = a;
+        argB[size] = b;
+        size++;
+        modCount++;
+    }
+
+    private void shift(int from, int to, int count) {
+        System.arraycopy(lines, from, lines, to, count);
+        System.arraycopy(templates, from, templates, to, count);
+        System.arraycopy(argKinds, from, argKinds, to, count);
+        System.arraycopy(argA, from, argA, to, count);
+        System.arraycopy(argB, from, argB, to, count);
+    }
+
+    private int storeObject(Issue issue) {
+        if (objects == null) {
+            objects = new Issue[4];
+        } else if (objectCount == objects.length) {
+            objects = Arrays.copyOf(objects, objectCount * 2);
+        }
+        objects[objectCount] = issue;
+        return objectCount++;
+    }
+
+    private StringBuilder text() {
+        if (text == null) {
+            text = new StringBuilder();
+        }
+        return text;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
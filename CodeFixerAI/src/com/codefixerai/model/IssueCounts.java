@@ -0,0 +1,104 @@
+package com.codefixerai.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Histogram of issues per IssueType id.
+ *
+ * Adding an issue is one array increment; per-severity totals come from a
+ * single pass over the histogram (one slot per type) instead of classifying
+ * every issue. IssueBuffers are counted from their columns, without
+ * rendering Issue objects. Not thread-safe; merge per-thread counts with
+ * addAll(IssueCounts).
+ *
+ * Types that are not findings (see IssueType.isFinding) are kept per type
+ * but left out of total() and the severity counts.
+ */
+
+public final class IssueCounts {
+
+    private int[] counts = new int[IssueType.count()];
+    private long total;
+
+    public void add(IssueType type) {
+        int id = type.getId();
+        if (id >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(IssueType.count(), id + 1));
+        }
+        counts[id]++;
+        if (type.isFinding()) {
+            total++;
+        }
+    }
+
+    /**
+     * Counts every issue of the list.
+     */
+
+    public void addAll(List<Issue> issues) {
+        if (issues instanceof IssueBuffer) {
+            IssueBuffer buffer = (IssueBuffer) issues;
+            for (int i = 0; i < buffer.size(); i++) {
+                add(buffer.type(i));
+            }
+        } else {
+            for (Issue issue : issues) {
+                add(issue.getIssueType());
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of another histogram to this one.
+     */
+
+    public void addAll(IssueCounts other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int id = 0; id < other.counts.length; id++) {
+            counts[id] += other.counts[id];
+        }
+        total += other.total;
+    }
+
+    public int count(IssueType type) {
+        int id = type.getId();
+        return id < counts.length ? counts[id] : 0;
+    }
+
+    /**
+     * Returns the number of issues whose type has the given severity.
+     */
+
+    public long count(Severity severity) {
+        long n = 0;
+        for (int id = 0; id < counts.length; id++) {
+            IssueType type = IssueType.byId(id);
+            if (counts[id] != 0 && type.isFinding() && type.getSeverity() == severity) {
+                n += counts[id];
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of issues at or above the given severity.
+     */
+
+    public long countAtLeast(Severity threshold) {
+        long n = 0;
+        for (int id = 0; id < counts.length; id++) {
+            IssueType type = IssueType.byId(id);
+            if (counts[id] != 0 && type.isFinding() && type.getSeverity().isAtLeast(threshold)) {
+                n += counts[id];
+            }
+        }
+        return n;
+    }
+
+    public long total() {
+        return total;
+    }
+}
@@ -0,0 +1,158 @@
+package com.codefixerai.model;
+
+import com.codefixerai.source.SourceView;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interned wording of one kind of finding: its IssueType plus a message and a
+ * suggested fix in which "{}" stands for an optional argument (a variable
+ * name, a number, a nesting depth).
+ *
+ * Rules declare their templates once as constants and report through them.
+ * When the output list is an IssueBuffer, a report only stores the line,
+ * the template id and the argument's position; the message text is built
+ * when the issue is rendered. Any other list receives a ready Issue.
+ */
+
+public final class IssueTemplate {
+
+    private static final String PLACEHOLDER = "{}";
+
+    private static final Object REGISTRY_LOCK = new Object();
+
+    // Copy-on-write, so rendering looks templates up without locking.
+    private static volatile IssueTemplate[] registry = new IssueTemplate[0];
+
+    private final short id;
+    private final IssueType type;
+    private final String message;
+    private final String suggestedFix;
+    private final int messageSlot;
+    private final int fixSlot;
+
+    /**
+     * Creates and registers a template.
+     *
+     * @param type         Type of the issues reported through this template.
+     * @param message      Message text, optionally containing one "{}".
+     * @param suggestedFix Fix text, optionally containing one "{}".
+     */
+
+    public IssueTemplate(IssueType type, String message, String suggestedFix) {
+        this.type = type;
+        this.message = message;
+        this.suggestedFix = suggestedFix;
+        this.messageSlot = message.indexOf(PLACEHOLDER);
+        this.fixSlot = suggestedFix.indexOf(PLACEHOLDER);
+        synchronized (REGISTRY_LOCK) {
+            IssueTemplate[] current = registry;
+            if (current.length > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many issue templates");
+            }
+            this.id = (short) current.length;
+            IssueTemplate[] next = Arrays.copyOf(current, current.length + 1);
+            next[id] = this;
+            registry = next;
+        }
+    }
+
+    /**
+     * Returns the template registered under the given id.
+     */
+
+    public static IssueTemplate byId(int id) {
+        return registry[id];
+    }
+
+    public short getId() {
+        return id;
+    }
+
+    public IssueType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the message with the argument filled in.
+     */
+
+    public String message(String argument) {
+        return fill(message, messageSlot, argument);
+    }
+
+    /**
+     * Returns the suggested fix with the argument filled in.
+     */
+
+    public String suggestedFix(String argument) {
+        return fill(suggestedFix, fixSlot, argument);
+    }
+
+    /**
+     * Builds a standalone Issue from this template.
+     */
+
+    public Issue issue(int line, String argument) {
+        return new Issue(line, type, message(argument), suggestedFix(argument));
+    }
+
+    // ----- Reporting -----
+
+    /**
+     * Reports a finding without argument.
+     */
+
+    public void report(List<Issue> out, int line) {
+        if (out instanceof IssueBuffer) {
+            ((IssueBuffer) out).append(line, this);
+        } else {
+            out.add(issue(line, ""));
+        }
+    }
+
+    /**
+     * Reports a finding whose argument is a number.
+     */
+
+    public void report(List<Issue> out, int line, int value) {
+        if (out instanceof IssueBuffer) {
+            ((IssueBuffer) out).append(line, this, value);
+        } else {
+            out.add(issue(line, String.valueOf(value)));
+        }
+    }
+
+    /**
+     * Reports a finding whose argument is a String already at hand.
+     */
+
+    public void report(List<Issue> out, int line, String argument) {
+        if (out instanceof IssueBuffer) {
+            ((IssueBuffer) out).append(line, this, argument);
+        } else {
+            out.add(issue(line, argument));
+        }
+    }
+
+    /**
+     * Reports a finding whose argument is the source text in [start, end).
+     * An IssueBuffer over the same source stores only the offsets.
+     */
+
+    public void report(List<Issue> out, int line, SourceView source, int start, int end) {
+        if (out instanceof IssueBuffer && ((IssueBuffer) out).getSource() == source) {
+            ((IssueBuffer) out).append(line, this, start, end);
+        } else {
+            out.add(issue(line, source.substring(start, end)));
+        }
+    }
+
+    private static String fill(String text, int slot, String argument) {
+        if (slot < 0) {
+            return text;
+        }
+        return text.substring(0, slot) + argument + text.substring(slot + PLACEHOLDER.length());
+    }
+}
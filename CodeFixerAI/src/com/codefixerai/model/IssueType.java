@@ -0,0 +1,139 @@
+package com.codefixerai.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interned issue type with a small numeric id and a precomputed severity.
+ *
+ * The built-in rules report one of the constants below. Any other type name
+ * (for example from a rule added later, or read back from a cache file) is
+ * registered on first use with LOW severity. Ids are dense, starting at 0,
+ * so per-type counts fit an int[] indexed by id (see IssueCounts).
+ */
+
+public final class IssueType {
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, IssueType> BY_NAME = new HashMap<>();
+
+    // Copy-on-write, so lookups by id never lock.
+    private static volatile IssueType[] byId = new IssueType[0];
+
+    public static final IssueType RESOURCE_LEAK = define("ResourceLeak", Severity.HIGH);
+    public static final IssueType OFF_BY_ONE_LOOP = define("OffByOneLoop", Severity.HIGH);
+    public static final IssueType STRING_EQUALITY = define("StringEquality", Severity.HIGH);
+    public static final IssueType EMPTY_CATCH = define("EmptyCatch", Severity.HIGH);
+
+    public static final IssueType DEEP_NESTING = define("DeepNesting", Severity.MEDIUM);
+    public static final IssueType EXCESSIVE_PARAMETERS = define("ExcessiveParameters", Severity.MEDIUM);
+    public static final IssueType STRING_CONCAT_IN_LOOP = define("StringConcatInLoop", Severity.MEDIUM);
+    public static final IssueType MAGIC_NUMBER = define("MagicNumber", Severity.MEDIUM);
+
+    public static final IssueType UNUSED_VARIABLE = define("UnusedVariable", Severity.LOW);
+    public static final IssueType TODO_COMMENT = define("TodoComment", Severity.LOW);
+    public static final IssueType MISSING_DEFAULT_IN_SWITCH = define("MissingDefaultInSwitch", Severity.LOW);
+    public static final IssueType ALWAYS_TRUE_CONDITION = define("AlwaysTrueCondition", Severity.LOW);
+    public static final IssueType ALWAYS_FALSE_CONDITION = define("AlwaysFalseCondition", Severity.LOW);
+
+    // Reported on line 0 when a rule could not run within its budget. It is a
+    // note about the analysis, not a finding, so IssueCounts leaves it out of
+    // the severity totals and a skipped rule never trips --fail-on.
+    public static final IssueType RULE_SKIPPED = define("RuleSkipped", Severity.LOW, false);
+
+    private final int id;
+    private final String name;
+    private final Severity severity;
+    private final boolean finding;
+
+    private IssueType(int id, String name, Severity severity, boolean finding) {
+        this.id = id;
+        this.name = name;
+        this.severity = severity;
+        this.finding = finding;
+    }
+
+    /**
+     * Returns the type registered under the name, registering it with LOW
+     * severity if it is not known yet.
+     */
+
+    public static IssueType of(String name) {
+        synchronized (LOCK) {
+            IssueType type = BY_NAME.get(name);
+            return type != null ? type : define(name, Severity.LOW);
+        }
+    }
+
+    /**
+     * Returns the type registered under the name, or null.
+     */
+
+    public static IssueType find(String name) {
+        synchronized (LOCK) {
+            return BY_NAME.get(name);
+        }
+    }
+
+    /**
+     * Returns the type with the given id.
+     */
+
+    public static IssueType byId(int id) {
+        return byId[id];
+    }
+
+    /**
+     * Returns the number of registered types; ids are 0 to count() - 1.
+     */
+
+    public static int count() {
+        return byId.length;
+    }
+
+    private static IssueType define(String name, Severity severity) {
+        return define(name, severity, true);
+    }
+
+    private static IssueType define(String name, Severity severity, boolean finding) {
+        synchronized (LOCK) {
+            if (BY_NAME.containsKey(name)) {
+                throw new IllegalArgumentException("Issue type already defined: " + name);
+            }
+            IssueType[] current = byId;
+            IssueType type = new IssueType(current.length, name, severity, finding);
+            IssueType[] next = Arrays.copyOf(current, current.length + 1);
+            next[type.id] = type;
+            BY_NAME.put(name, type);
+            byId = next;
+            return type;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Returns false for types that describe the analysis rather than the code
+     * (RULE_SKIPPED), which are not counted as issues.
+     */
+
+    public boolean isFinding() {
+        return finding;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
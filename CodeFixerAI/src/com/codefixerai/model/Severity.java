@@ -0,0 +1,37 @@
+package com.codefixerai.model;
+
+/**
+ * Severity levels used to summarise and gate analysis results.
+ *
+ * Ordered from most to least severe:
+ * - HIGH issues are likely to cause bugs or runtime errors.
+ * - MEDIUM issues are performance or maintainability concerns.
+ * - LOW issues are style problems or potential improvements.
+ */
+
+public enum Severity {
+    HIGH,
+    MEDIUM,
+    LOW;
+
+    /**
+     * Maps an issue type name to its severity, as registered in IssueType.
+     * Unknown types are LOW.
+     *
+     * @param type the type of the issue (e.g., "StringEquality", "MagicNumber").
+     * @return HIGH, MEDIUM, or LOW severity.
+     */
+
+    public static Severity classify(String type) {
+        IssueType issueType = IssueType.find(type);
+        return issueType != null ? issueType.getSeverity() : LOW;
+    }
+
+    /**
+     * Returns true if this severity is the same as or worse than the threshold.
+     */
+
+    public boolean isAtLeast(Severity threshold) {
+        return ordinal() <= threshold.ordinal();
+    }
+}
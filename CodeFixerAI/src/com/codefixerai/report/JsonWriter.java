@@ -0,0 +1,346 @@
+package com.codefixerai.report;
+
+import com.codefixerai.model.Issue;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming JSON encoder that writes UTF-8 straight to an OutputStream.
+ *
+ * Output goes through one fixed-size byte buffer that is flushed to the
+ * stream whenever it fills, so memory use does not grow with the size of
+ * the document and the first bytes leave as soon as the buffer is full.
+ * Buffers are taken from a small shared pool and returned by finish() or
+ * close(), so a busy server does not allocate one per response.
+ *
+ * Strings are escaped as JSON requires: quote, backslash and control
+ * characters, plus U+2028/U+2029 (so the output can be embedded in a
+ * script) and unpaired surrogates, which have no UTF-8 encoding.
+ *
+ * Commas and colons are inserted automatically:
+ *
+ *   json.beginObject().name("issueCount").value(n).name("issues").beginArray();
+ *   for (Issue issue : issues) json.issue(issue);
+ *   json.endArray().endObject().finish();
+ *
+ * Not thread-safe. A writer that has been finished must not be used again.
+ */
+
+public final class JsonWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final GZIPOutputStream gzip;
+    private byte[] buffer;
+    private int position;
+
+    // One entry per open object or array: whether it already holds a value.
+    private boolean[] nonEmpty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Creates a writer that writes uncompressed JSON to the stream.
+     */
+
+    public JsonWriter(OutputStream out) {
+        this(out, null);
+    }
+
+    private JsonWriter(OutputStream out, GZIPOutputStream gzip) {
+        this.out = gzip != null ? gzip : out;
+        this.gzip = gzip;
+        byte[] pooled = POOL.poll();
+        this.buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a writer that gzip-compresses its output into the stream.
+     * flush() pushes out everything compressed so far; finish() writes the
+     * gzip trailer.
+     */
+
+    public static JsonWriter gzip(OutputStream out) throws IOException {
+        return new JsonWriter(out, new GZIPOutputStream(out, BUFFER_SIZE, true));
+    }
+
+    // ----- Structure -----
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     */
+
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        put(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Ends a top-level value with a newline, for one-document-per-line
+     * (NDJSON) output.
+     */
+
+    public JsonWriter newline() throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException("Newline inside a JSON value");
+        }
+        put('\n');
+        nonEmpty[0] = false;
+        return this;
+    }
+
+    // ----- Values -----
+
+    /**
+     * Writes an escaped string, or null.
+     */
+
+    public JsonWriter value(CharSequence value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        ascii(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a number, or null for NaN and infinities, which JSON cannot represent.
+     */
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        separate();
+        ascii(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        ascii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        ascii("null");
+        return this;
+    }
+
+    /**
+     * Writes an issue as {"line", "type", "severity", "message", "fix"}.
+     */
+
+    public JsonWriter issue(Issue issue) throws IOException {
+        return beginObject()
+                .name("line").value(issue.getLine())
+                .name("type").value(issue.getType())
+                .name("severity").value(issue.getIssueType().getSeverity().name())
+                .name("message").value(issue.getMessage())
+                .name("fix").value(issue.getSuggestedFix())
+                .endObject();
+    }
+
+    // ----- Stream -----
+
+    /**
+     * Writes the buffered bytes to the stream and flushes it.
+     */
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Writes out everything buffered, completes the gzip stream if any and
+     * returns the buffer to the pool. The underlying stream stays open.
+     */
+
+    public void finish() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            drain();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            out.flush();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Finishes the output and closes the underlying stream.
+     */
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    // ----- Internals -----
+
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        put(bracket);
+        if (++depth == nonEmpty.length) {
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        nonEmpty[depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Unbalanced '" + bracket + "'");
+        }
+        depth--;
+        put(bracket);
+        return this;
+    }
+
+    // Writes the comma before a value or name, unless it follows a name.
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (nonEmpty[depth]) {
+            put(',');
+        }
+        nonEmpty[depth] = true;
+    }
+
+    private void string(CharSequence s) throws IOException {
+        put('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    put('\\');
+                }
+                put(c);
+            } else if (c < 0x20) {
+                if (c == '\n') {
+                    escape('n');
+                } else if (c == '\r') {
+                    escape('r');
+                } else if (c == '\t') {
+                    escape('t');
+                } else {
+                    unicodeEscape(c);
+                }
+            } else if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+            } else if (c == '\u2028' || c == '\u2029') {
+                unicodeEscape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                put(0xF0 | (cp >> 18));
+                put(0x80 | ((cp >> 12) & 0x3F));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                unicodeEscape(c);
+            } else {
+                put(0xE0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+        }
+        put('"');
+    }
+
+    private void escape(char c) throws IOException {
+        put('\\');
+        put(c);
+    }
+
+    private void unicodeEscape(char c) throws IOException {
+        put('\\');
+        put('u');
+        put(HEX[(c >> 12) & 0xF]);
+        put(HEX[(c >> 8) & 0xF]);
+        put(HEX[(c >> 4) & 0xF]);
+        put(HEX[c & 0xF]);
+    }
+
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(int b) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void drain() throws IOException {
+        if (buffer == null) {
+            throw new IllegalStateException("Writer already finished");
+        }
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void release() {
+        byte[] b = buffer;
+        buffer = null;
+        POOL.offer(b);
+    }
+}
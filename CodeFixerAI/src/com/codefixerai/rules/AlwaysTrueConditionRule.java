@@ -1,44 +1,80 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
-import java.util.*;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
+import java.util.List;
 
 /**
  * Rule that detects conditional expressions that are always true or always false.
  *
  * These conditions make code misleading and can hide logic errors,
  * because the branch outcome never changes at runtime.
+ *
+ * The check is a hand-written scan of the trimmed line rather than a regex,
+ * so no String or Matcher is created per candidate line.
  */
 
-public class AlwaysTrueConditionRule implements Rule {
+public class AlwaysTrueConditionRule implements LineLocalRule {
+
+    private static final IssueTemplate ALWAYS_TRUE = new IssueTemplate(
+            IssueType.ALWAYS_TRUE_CONDITION,
+            "Condition is always true.",
+            "Replace with meaningful condition.");
+
+    private static final IssueTemplate ALWAYS_FALSE = new IssueTemplate(
+            IssueType.ALWAYS_FALSE_CONDITION,
+            "Condition is always false. Code will never execute.",
+            "Remove or fix condition.");
+
+    private static final long CONDITIONS = Keyword.maskOf(Keyword.IF, Keyword.WHILE);
+    private static final long LITERALS = Keyword.maskOf(Keyword.TRUE, Keyword.FALSE);
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-
-            if (line.matches("if\\s*\\(true\\)|while\\s*\\(true\\)")) {
-                issues.add(new Issue(
-                        i + 1,
-                        "AlwaysTrueCondition",
-                        "Condition is always true.",
-                        "Replace with meaningful condition."
-                ));
+    public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> issues) {
+        KeywordIndex keywords = source.keywords();
+
+        for (int i = keywords.nextLine(fromLine, toLine, CONDITIONS); i >= 0;
+             i = keywords.nextLine(i + 1, toLine, CONDITIONS)) {
+            // Only lines starting with if/while and mentioning true/false can match.
+            if ((keywords.mask(i) & LITERALS) == 0) continue;
+            if (!source.startsWith(i, "if") && !source.startsWith(i, "while")) continue;
+
+            if (isConstantCondition(source, i, "true")) {
+                ALWAYS_TRUE.report(issues, i + 1);
             }
 
-            if (line.matches("if\\s*\\(false\\)|while\\s*\\(false\\)")) {
-                issues.add(new Issue(
-                        i + 1,
-                        "AlwaysFalseCondition",
-                        "Condition is always false. Code will never execute.",
-                        "Remove or fix condition."
-                ));
+            if (isConstantCondition(source, i, "false")) {
+                ALWAYS_FALSE.report(issues, i + 1);
             }
         }
-        return issues;
+    }
+
+    /**
+     * Checks whether the trimmed line is exactly "if (literal)" or
+     * "while (literal)", with optional whitespace before the parenthesis.
+     */
+
+    private static boolean isConstantCondition(SourceView source, int line, String literal) {
+        int pos = source.trimStart(line);
+        int end = source.trimEnd(line);
+
+        if (source.regionMatches(pos, "if")) {
+            pos += 2;
+        } else if (source.regionMatches(pos, "while")) {
+            pos += 5;
+        } else {
+            return false;
+        }
+        pos = source.skipWhitespace(pos, end);
+
+        return end - pos == literal.length() + 2
+                && source.charAt(pos) == '('
+                && source.regionMatches(pos + 1, literal)
+                && source.charAt(end - 1) == ')';
     }
 
     @Override
@@ -1,41 +1,68 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
-import java.util.*;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.SourceView;
+
+import java.util.List;
 
 /**
  * Rule that identifies methods or blocks with excessive nesting depth.
  *
  * Deeply nested if/else or loop structures reduce readability and
  * suggest that the code should be refactored into smaller methods.
+ *
+ * Depth is counted on brace tokens, so braces inside string literals,
+ * character literals and comments are ignored. The depth is the only state
+ * carried between lines, which makes the rule streamable.
  */
 
-public class DeepNestingRule implements Rule {
+public class DeepNestingRule implements StreamableRule {
+
+    private static final IssueTemplate DEEP_NESTING = new IssueTemplate(
+            IssueType.DEEP_NESTING,
+            "Code nesting is too deep ({} levels).",
+            "Refactor using methods, early returns, or guard clauses.");
+
+    @Override
+    public RuleVisitor visitor(SourceView source, List<Issue> out) {
+        return streamingVisitor(out);
+    }
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        int depth = 0;
-        String[] lines = sourceCode.split("\\R");
+    public RuleVisitor streamingVisitor(List<Issue> out) {
+        return new RuleVisitor() {
+            private int depth;
+            private int firstLine;
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
+            @Override
+            public int events() {
+                return LINES | BLOCKS;
+            }
+
+            @Override
+            public void startChunk(SourceView chunk, int firstLine) {
+                this.firstLine = firstLine;
+            }
+
+            @Override
+            public void blockOpen(int token) {
+                depth++;
+            }
 
-            for (char c : line.toCharArray()) {
-                if (c == '{') depth++;
-                if (c == '}') depth--;
+            @Override
+            public void blockClose(int token) {
+                depth--;
             }
 
-            if (depth > 3) {
-                issues.add(new Issue(
-                        i + 1,
-                        "DeepNesting",
-                        "Code nesting is too deep (" + depth + " levels).",
-                        "Refactor using methods, early returns, or guard clauses."
-                ));
+            @Override
+            public void lineEnd(int line) {
+                if (depth > 3) {
+                    DEEP_NESTING.report(out, firstLine + line + 1, depth);
+                }
             }
-        }
-        return issues;
+        };
     }
 
     @Override
@@ -1,8 +1,13 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,28 +15,31 @@ import java.util.List;
  *
  * Empty catch blocks silently swallow exceptions, making debugging difficult
  * and potentially hiding runtime failures that should be logged or handled.
+ *
+ * Both the single-line form "catch (...) {}" and a catch whose braces span
+ * several lines are detected, with plain character scans instead of regexes.
  */
 
 
-public class EmptyCatchBlockRule implements Rule {
+public class EmptyCatchBlockRule implements SourceRule {
+
+    private static final IssueTemplate EMPTY_CATCH = new IssueTemplate(
+            IssueType.EMPTY_CATCH,
+            "Empty catch block detected.",
+            "Handle the exception or at least log it instead of leaving the block empty.");
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-
-            if (!line.contains("catch")) continue;
-
-            if (line.matches(".*catch\\s*\\([^)]*\\)\\s*\\{\\s*\\}.*")) {
-                issues.add(new Issue(
-                        i + 1,
-                        "EmptyCatch",
-                        "Empty catch block detected.",
-                        "Handle the exception or at least log it instead of leaving the block empty."
-                ));
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
+        int lineCount = source.lineCount();
+        KeywordIndex keywords = source.keywords();
+        long catchBit = Keyword.CATCH.bit();
+
+        // Only lines containing "catch" can start an empty catch block.
+        for (int i = keywords.nextLine(0, catchBit); i >= 0; i = keywords.nextLine(i + 1, catchBit)) {
+
+            if (hasInlineEmptyCatch(source, i)) {
+                EMPTY_CATCH.report(issues, i + 1);
                 continue;
             }
 
@@ -39,25 +47,19 @@ public class EmptyCatchBlockRule implements Rule {
             boolean hasCode = false;
             boolean inBlock = false;
 
-            while (j < lines.length) {
-                String l = lines[j].trim();
-                if (l.isEmpty() || l.startsWith("//")) {
+            while (j < lineCount) {
+                if (source.isBlank(j) || source.startsWith(j, "//")) {
                     j++;
                     continue;
                 }
-                if (!inBlock && l.equals("{")) {
+                if (!inBlock && source.trimmedEquals(j, "{")) {
                     inBlock = true;
                     j++;
                     continue;
                 }
-                if (l.equals("}")) {
+                if (source.trimmedEquals(j, "}")) {
                     if (!hasCode) {
-                        issues.add(new Issue(
-                                i + 1,
-                                "EmptyCatch",
-                                "Empty catch block detected.",
-                                "Handle the exception or at least log it instead of leaving the block empty."
-                        ));
+                        EMPTY_CATCH.report(issues, i + 1);
                     }
                     break;
                 }
@@ -69,6 +71,37 @@ public class EmptyCatchBlockRule implements Rule {
         return issues;
     }
 
+    /**
+     * Checks for "catch (...) {}" written on a single line, i.e. "catch",
+     * a parenthesised clause without nested ')' and an empty brace pair,
+     * separated only by whitespace. Every occurrence of "catch" on the line
+     * is tried, without backtracking.
+     */
+
+    private static boolean hasInlineEmptyCatch(SourceView source, int line) {
+        int end = source.lineEnd(line);
+        int pos = source.indexOf("catch", source.lineStart(line), end);
+
+        while (pos >= 0) {
+            int p = source.skipWhitespace(pos + 5, end);
+            if (p < end && source.charAt(p) == '(') {
+                int close = source.indexOf(")", p + 1, end);
+                if (close < 0) {
+                    return false; // no later "catch" can have a ')' either
+                }
+                p = source.skipWhitespace(close + 1, end);
+                if (p < end && source.charAt(p) == '{') {
+                    p = source.skipWhitespace(p + 1, end);
+                    if (p < end && source.charAt(p) == '}') {
+                        return true;
+                    }
+                }
+            }
+            pos = source.indexOf("catch", pos + 1, end);
+        }
+        return false;
+    }
+
     @Override
     public String getName() {
         return "Empty Catch Block Rule";
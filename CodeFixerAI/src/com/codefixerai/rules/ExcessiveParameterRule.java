@@ -1,41 +1,93 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
-import java.util.*;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.SourceView;
+import com.codefixerai.source.Structure;
+import com.codefixerai.source.TokenStream;
+
+import java.util.List;
 
 /**
  * Rule that flags methods with too many parameters.
  *
  * A large parameter list can indicate poor abstraction,
  * and suggests that a data class or encapsulation might improve structure.
+ *
+ * Only method and constructor declarations from the source's Structure are
+ * checked, so calls with many arguments are not reported, and commas inside
+ * generic types such as Map<String, Integer> do not count as parameters.
  */
 
 
-public class ExcessiveParameterRule implements Rule {
+public class ExcessiveParameterRule implements SourceRule {
+
+    private static final IssueTemplate EXCESSIVE_PARAMETERS = new IssueTemplate(
+            IssueType.EXCESSIVE_PARAMETERS,
+            "Method has too many parameters ({}).",
+            "Refactor using objects or builder patterns.");
+
+    private static final int MAX_PARAMETERS = 4;
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-
-            if (line.matches(".*\\(.*\\).*") && line.contains(",")) {
-                int commas = line.length() - line.replace(",", "").length();
-                if (commas >= 4) {
-                    issues.add(new Issue(
-                            i + 1,
-                            "ExcessiveParameters",
-                            "Method has too many parameters (" + (commas + 1) + ").",
-                            "Refactor using objects or builder patterns."
-                    ));
-                }
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
+
+        // Fewer than four commas anywhere means no declaration can have five parameters.
+        if (!hasEnoughCommas(source)) {
+            return issues;
+        }
+
+        TokenStream tokens = source.tokens();
+        for (Structure.Node method : source.structure().nodes(Structure.Kind.METHOD)) {
+            int parameters = countParameters(tokens, method.parametersOpen(), method.parametersClose());
+            if (parameters > MAX_PARAMETERS) {
+                EXCESSIVE_PARAMETERS.report(issues, method.line() + 1, parameters);
             }
         }
         return issues;
     }
 
+    /**
+     * Counts the top-level commas of a parameter list, ignoring those inside
+     * annotation arguments and generic type arguments.
+     */
+
+    private static int countParameters(TokenStream tokens, int open, int close) {
+        if (tokens.nextCode(open + 1) >= close) {
+            return 0;
+        }
+        int parameters = 1;
+        int parens = 0;
+        int angles = 0;
+        for (int k = open + 1; k < close; k++) {
+            int kind = tokens.kind(k);
+            if (kind == TokenStream.OPEN_PAREN) {
+                parens++;
+            } else if (kind == TokenStream.CLOSE_PAREN) {
+                parens--;
+            } else if (kind == TokenStream.OPERATOR) {
+                if (tokens.is(k, "<")) angles++;
+                else if (tokens.is(k, ">")) angles--;
+                else if (tokens.is(k, ">>")) angles -= 2;
+                else if (tokens.is(k, ">>>")) angles -= 3;
+            } else if (kind == TokenStream.COMMA && parens == 0 && angles <= 0) {
+                parameters++;
+            }
+        }
+        return parameters;
+    }
+
+    private static boolean hasEnoughCommas(SourceView source) {
+        int commas = 0;
+        for (int i = 0; i < source.lineCount() && commas < MAX_PARAMETERS; i++) {
+            commas += source.count(i, ',');
+        }
+        return commas >= MAX_PARAMETERS;
+    }
+
     @Override
     public String getName() {
         return "Excessive Parameter Rule";
@@ -0,0 +1,62 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.SourceView;
+import java.util.List;
+
+/**
+ * SourceRule whose findings on a line depend only on that line's text
+ * (and its comment/literal masks), never on other lines.
+ *
+ * Because of that, a rule like this can be re-run on just the lines that
+ * changed in an editor, and its earlier findings on untouched lines can be
+ * kept with their line numbers shifted.
+ *
+ * The default apply(SourceView) checks the current thread's Deadline
+ * between blocks of lines.
+ */
+
+public interface LineLocalRule extends SourceRule {
+
+    /**
+     * Checks the lines in [fromLine, toLine) and appends issues in line order.
+     *
+     * @param source   Shared view of the whole source.
+     * @param fromLine First 0-based line to check.
+     * @param toLine   Line index to stop before.
+     * @param out      List the issues are appended to.
+     */
+
+    void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> out);
+
+    /**
+     * Lines checked between two Deadline checks in apply(SourceView).
+     */
+    int LINES_PER_CHECK = 1024;
+
+    @Override
+    default List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
+        applyToLinesChecked(source, 0, source.lineCount(), issues);
+        return issues;
+    }
+
+    /**
+     * Like applyToLines, but checks the current thread's Deadline between
+     * blocks of LINES_PER_CHECK lines.
+     */
+
+    default void applyToLinesChecked(SourceView source, int fromLine, int toLine, List<Issue> out) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            applyToLines(source, fromLine, toLine, out);
+            return;
+        }
+        for (int from = fromLine; from < toLine; from += LINES_PER_CHECK) {
+            deadline.check();
+            applyToLines(source, from, Math.min(toLine, from + LINES_PER_CHECK), out);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.SourceView;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -14,32 +16,29 @@ import java.util.regex.Pattern;
  * with named constants to improve readability and maintainability.
  */
 
-public class MagicNumberRule implements Rule {
+public class MagicNumberRule implements LineLocalRule {
+
+    private static final IssueTemplate MAGIC_NUMBER = new IssueTemplate(
+            IssueType.MAGIC_NUMBER,
+            "Magic number '{}' found in code.",
+            "Consider extracting this value into a named constant for better readability.");
 
     private static final Pattern NUMBER_PATTERN =
             Pattern.compile("\\b(\\d{2,}|[3-9])\\b");
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
+    public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> issues) {
+        Matcher m = NUMBER_PATTERN.matcher(source.chars());
 
-        for (int i = 0; i < lines.length; i++) {
-            String trimmed = lines[i].trim();
-            if (trimmed.startsWith("//")) continue; // ignore comments
+        for (int i = fromLine; i < toLine; i++) {
+            if (source.isBlank(i)) continue;
+            if (source.startsWith(i, "//")) continue; // ignore comments
 
-            Matcher m = NUMBER_PATTERN.matcher(trimmed);
+            m.region(source.trimStart(i), source.trimEnd(i));
             if (m.find()) {
-                issues.add(new Issue(
-                        i + 1,
-                        "MagicNumber",
-                        "Magic number '" + m.group(1) + "' found in code.",
-                        "Consider extracting this value into a named constant for better readability."
-                ));
+                MAGIC_NUMBER.report(issues, i + 1, source, m.start(1), m.end(1));
             }
         }
-
-        return issues;
     }
 
     @Override
@@ -1,50 +1,47 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
-import java.util.*;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.SourceView;
+import com.codefixerai.source.Structure;
+
+import java.util.List;
 
 /**
  * Rule that identifies switch statements missing a default case.
  *
  * A default branch ensures behavior is defined for unexpected values
  * and prevents silent failures when new enum or constant values are added.
+ *
+ * Switch blocks and their default labels come from the source's
+ * Structure, so a switch ends at its own closing brace (not at the first
+ * '}' inside a case) and a default label of a nested switch does not count
+ * for the outer one.
  */
 
 
-public class MissingDefaultInSwitchRule implements Rule {
-
-    @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-
-        String[] lines = sourceCode.split("\\R");
-        boolean inSwitch = false;
-        boolean hasDefault = false;
-        int switchLine = -1;
+public class MissingDefaultInSwitchRule implements SourceRule {
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
+    private static final IssueTemplate MISSING_DEFAULT = new IssueTemplate(
+            IssueType.MISSING_DEFAULT_IN_SWITCH,
+            "Switch statement has no default case.",
+            "Add a default case to handle unexpected values.");
 
-            if (line.startsWith("switch")) {
-                inSwitch = true;
-                hasDefault = false;
-                switchLine = i + 1;
-            }
+    @Override
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
 
-            if (inSwitch && line.startsWith("default")) {
-                hasDefault = true;
-            }
+        // Sources without "switch" never need the structural model.
+        if (source.keywords().nextLine(0, Keyword.SWITCH.bit()) < 0) {
+            return issues;
+        }
 
-            if (inSwitch && line.contains("}")) {
-                if (!hasDefault) {
-                    issues.add(new Issue(
-                            switchLine,
-                            "MissingDefaultInSwitch",
-                            "Switch statement has no default case.",
-                            "Add a default case to handle unexpected values."
-                    ));
-                }
-                inSwitch = false;
+        for (Structure.Node node : source.structure().nodes(Structure.Kind.SWITCH)) {
+            if (node.defaultLabel() < 0) {
+                MISSING_DEFAULT.report(issues, node.line() + 1);
             }
         }
         return issues;
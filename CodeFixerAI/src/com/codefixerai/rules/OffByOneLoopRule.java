@@ -1,8 +1,12 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -15,36 +19,43 @@ import java.util.regex.Pattern;
  */
 
 
-public class OffByOneLoopRule implements Rule {
+public class OffByOneLoopRule implements LineLocalRule {
+
+    private static final IssueTemplate OFF_BY_ONE = new IssueTemplate(
+            IssueType.OFF_BY_ONE_LOOP,
+            "Possible off-by-one error: loop uses '<=' with length/size.",
+            "Use '<' instead of '<=' in the loop condition to avoid going out of bounds.");
 
     private static final Pattern FOR_PATTERN =
             Pattern.compile("\\bfor\\s*\\(([^)]*)\\)");
 
+    private static final long FOR_WITH_LESS_EQUAL = Keyword.maskOf(Keyword.FOR, Keyword.LESS_EQUAL);
+
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
+    public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> issues) {
+        Matcher m = FOR_PATTERN.matcher(source.chars());
+
+        KeywordIndex keywords = source.keywords();
+        long forBit = Keyword.FOR.bit();
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
+        for (int i = keywords.nextLine(fromLine, toLine, forBit); i >= 0;
+             i = keywords.nextLine(i + 1, toLine, forBit)) {
+            // The loop header must contain "<=", so the line must too.
+            if (!keywords.hasAll(i, FOR_WITH_LESS_EQUAL)) continue;
 
-            Matcher m = FOR_PATTERN.matcher(line);
+            m.region(source.lineStart(i), source.lineEnd(i));
             if (m.find()) {
-                String header = m.group(1); // stuff inside the for(...)
+                // stuff inside the for(...)
+                int from = m.start(1);
+                int to = m.end(1);
 
-                if (header.contains("<=") &&
-                        (header.contains(".length") || header.contains(".size("))) {
+                if (source.indexOf("<=", from, to) >= 0 &&
+                        (source.indexOf(".length", from, to) >= 0 || source.indexOf(".size(", from, to) >= 0)) {
 
-                    issues.add(new Issue(
-                            i + 1,
-                            "OffByOneLoop",
-                            "Possible off-by-one error: loop uses '<=' with length/size.",
-                            "Use '<' instead of '<=' in the loop condition to avoid going out of bounds."
-                    ));
+                    OFF_BY_ONE.report(issues, i + 1);
                 }
             }
         }
-        return issues;
     }
 
     @Override
@@ -1,60 +1,158 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
+import com.codefixerai.source.Structure;
+import com.codefixerai.source.TokenStream;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Rule that identifies opened resources which are not properly closed.
  *
  * Resources such as files, streams, and connections must be released,
  * otherwise they may cause memory leaks or exhaustion of system handles.
+ *
+ * Declarations are matched on tokens ("Type name = new ..."). Resources
+ * declared in a try-with-resources header are closed automatically; all
+ * others need a close() call in the declaring method (or, for fields, in
+ * the declaring class). Close calls are indexed once per source instead of
+ * searching the whole text for every variable.
  */
 
-public class ResourceLeakRule implements Rule {
+public class ResourceLeakRule implements SourceRule {
+
+    private static final IssueTemplate RESOURCE_LEAK = new IssueTemplate(
+            IssueType.RESOURCE_LEAK,
+            "Resource '{}' may not be closed.",
+            "Call {}.close() (prefer try-with-resources) to avoid resource leak.");
+
+    private static final Keyword[] TYPE_KEYWORDS = {
+            Keyword.SCANNER, Keyword.FILE_INPUT_STREAM, Keyword.FILE_READER,
+            Keyword.BUFFERED_READER, Keyword.INPUT_STREAM_READER
+    };
+
+    private static final String[] TYPES = new String[TYPE_KEYWORDS.length];
+
+    private static final long CANDIDATES = Keyword.maskOf(TYPE_KEYWORDS);
+
+    static {
+        for (int t = 0; t < TYPES.length; t++) {
+            TYPES[t] = TYPE_KEYWORDS[t].text();
+        }
+    }
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
 
-        String[] lines = sourceCode.split("\\R");
+        KeywordIndex keywords = source.keywords();
+        // Most sources open no resource at all; they never build tokens or structure.
+        if (keywords.nextLine(0, CANDIDATES) < 0) {
+            return issues;
+        }
 
-        Map<String, Integer> resourceVars = new HashMap<>();
+        TokenStream tokens = source.tokens();
+        Structure structure = source.structure();
+        Map<String, List<Integer>> closeCalls = null;
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
+        // Only lines that mention a resource type and "new" can open a resource.
+        for (int i = keywords.nextLine(0, CANDIDATES); i >= 0; i = keywords.nextLine(i + 1, CANDIDATES)) {
+            if (!keywords.has(i, Keyword.NEW)) continue;
 
-            String[] types = {
-                    "Scanner", "FileInputStream", "FileReader",
-                    "BufferedReader", "InputStreamReader"
-            };
+            for (int k = tokens.firstOnLine(i); k < tokens.firstOnLine(i + 1); k++) {
+                int name = declaredResource(tokens, k);
+                if (name < 0 || structure.resourceTry(k) != null) continue;
 
-            for (String type : types) {
-                String marker = type + " ";
-                int idx = line.indexOf(marker);
-                if (idx >= 0 && line.contains("new " + type)) {
-                    // grab variable name after type
-                    String rest = line.substring(idx + marker.length()).trim();
-                    String varName = rest.split("[\\s=;]")[0];
-                    resourceVars.put(varName, i + 1);
+                if (closeCalls == null) {
+                    closeCalls = indexCloseCalls(tokens, structure);
+                }
+                String var = tokens.text(name);
+                if (!isClosed(structure, closeCalls.get(var), name)) {
+                    RESOURCE_LEAK.report(issues, i + 1, source, tokens.start(name), tokens.end(name));
                 }
             }
         }
 
-        for (Map.Entry<String, Integer> entry : resourceVars.entrySet()) {
-            String var = entry.getKey();
-            int lineNo = entry.getValue();
-            if (!sourceCode.contains(var + ".close(")) {
-                issues.add(new Issue(
-                        lineNo,
-                        "ResourceLeak",
-                        "Resource '" + var + "' may not be closed.",
-                        "Call " + var + ".close() (prefer try-with-resources) to avoid resource leak."
-                ));
+        return issues;
+    }
+
+    /**
+     * Matches "Type name = new" at token k, where Type is one of the resource
+     * types. Returns the name token, or -1.
+     */
+
+    private static int declaredResource(TokenStream tokens, int k) {
+        if (tokens.kind(k) != TokenStream.IDENTIFIER || !isResourceType(tokens, k)) return -1;
+        int name = tokens.nextCode(k + 1);
+        int assign = tokens.nextCode(name + 1);
+        int create = tokens.nextCode(assign + 1);
+        if (create >= tokens.count() || tokens.kind(name) != TokenStream.IDENTIFIER
+                || !tokens.is(assign, "=") || !tokens.is(create, "new")) {
+            return -1;
+        }
+        return name;
+    }
+
+    private static boolean isResourceType(TokenStream tokens, int k) {
+        for (String type : TYPES) {
+            if (tokens.is(k, type)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects every place a variable is closed, in one pass over the tokens:
+     * "name.close(" calls and names listed in a try-with-resources header
+     * ("try (name) { ... }").
+     */
+
+    private static Map<String, List<Integer>> indexCloseCalls(TokenStream tokens, Structure structure) {
+        Map<String, List<Integer>> closeCalls = new HashMap<>();
+        int count = tokens.count();
+        for (int k = 0; k + 3 < count; k++) {
+            if (tokens.kind(k) == TokenStream.IDENTIFIER && tokens.kind(k + 1) == TokenStream.DOT
+                    && tokens.is(k + 2, "close") && tokens.kind(k + 3) == TokenStream.OPEN_PAREN) {
+                closeCalls.computeIfAbsent(tokens.text(k), n -> new ArrayList<>()).add(k);
+            }
+        }
+        for (Structure.Node node : structure.nodes(Structure.Kind.TRY)) {
+            for (int k = node.resourcesOpen() + 1; k > 0 && k < node.resourcesClose(); k++) {
+                int next = tokens.nextCode(k + 1);
+                int before = tokens.previousCode(k);
+                if (tokens.kind(k) == TokenStream.IDENTIFIER
+                        && (tokens.kind(next) == TokenStream.CLOSE_PAREN || tokens.kind(next) == TokenStream.SEMICOLON)
+                        && (tokens.kind(before) == TokenStream.OPEN_PAREN || tokens.kind(before) == TokenStream.SEMICOLON)) {
+                    closeCalls.computeIfAbsent(tokens.text(k), n -> new ArrayList<>()).add(k);
+                }
             }
         }
+        return closeCalls;
+    }
 
-        return issues;
+    /**
+     * A local resource must be closed inside the method that declares it; a
+     * field may be closed anywhere in its class.
+     */
+
+    private static boolean isClosed(Structure structure, List<Integer> closes, int name) {
+        if (closes == null) return false;
+        Structure.Node scope = structure.enclosing(name, Structure.Kind.METHOD);
+        if (scope == null) {
+            scope = structure.enclosing(name, Structure.Kind.CLASS);
+        }
+        for (int close : closes) {
+            if (scope == null || scope.contains(close)) return true;
+        }
+        return false;
     }
 
     @Override
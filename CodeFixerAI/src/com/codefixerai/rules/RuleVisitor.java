@@ -0,0 +1,74 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.source.SourceView;
+
+/**
+ * Per-analysis state of a VisitorRule, fed with events by a single pass
+ * over the source (see VisitorDriver).
+ *
+ * A visitor only receives the events it subscribes to in events(), so
+ * line-driven visitors never cause the token stream to be built. Within a
+ * line the order is: lineStart, then the line's tokens in source order
+ * (braces as blockOpen/blockClose, comments as comment, everything else as
+ * token), then lineEnd. end() is called once after the last line.
+ *
+ * Token arguments are indexes into the source's TokenStream.
+ *
+ * Visitors of a StreamableRule may be fed several consecutive chunks of one
+ * source instead; startChunk announces each chunk before its first line.
+ */
+
+public abstract class RuleVisitor {
+
+    /** Subscribes to lineStart and lineEnd. */
+    public static final int LINES = 1;
+    /** Subscribes to token for code tokens other than braces. */
+    public static final int TOKENS = 2;
+    /** Subscribes to blockOpen and blockClose. */
+    public static final int BLOCKS = 4;
+    /** Subscribes to comment. */
+    public static final int COMMENTS = 8;
+
+    /**
+     * Returns the events this visitor wants, as a combination of the constants above.
+     */
+
+    public abstract int events();
+
+    /**
+     * Called before the lines of each chunk when a streaming analysis feeds
+     * this visitor a source in consecutive chunks. Line and token arguments
+     * of the following events are relative to that chunk.
+     *
+     * @param chunk     View of the chunk about to be visited.
+     * @param firstLine 0-based line of the whole source the chunk starts at.
+     */
+
+    public void startChunk(SourceView chunk, int firstLine) {
+    }
+
+    public void lineStart(int line) {
+    }
+
+    public void lineEnd(int line) {
+    }
+
+    public void token(int token) {
+    }
+
+    public void blockOpen(int token) {
+    }
+
+    public void blockClose(int token) {
+    }
+
+    public void comment(int token) {
+    }
+
+    /**
+     * Called after the last line; visitors that collect state report here.
+     */
+
+    public void end() {
+    }
+}
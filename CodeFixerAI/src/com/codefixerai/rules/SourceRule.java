@@ -0,0 +1,33 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.source.SourceView;
+import java.util.List;
+
+/**
+ * Variant of Rule that works on a shared, pre-parsed SourceView.
+ *
+ * CodeAnalyzer builds one SourceView per analysis and hands the same
+ * instance to every SourceRule, so rules read line spans and masks
+ * instead of splitting and trimming the source again.
+ *
+ * The inherited apply(String) stays available as a compatibility path
+ * and simply builds a SourceView for the single call.
+ */
+
+public interface SourceRule extends Rule {
+
+    /**
+     * Applies this rule to an already parsed source view.
+     *
+     * @param source Shared, immutable view of the source being analyzed.
+     * @return A list of Issue objects reported by this rule, or an empty list if none.
+     */
+
+    List<Issue> apply(SourceView source);
+
+    @Override
+    default List<Issue> apply(String sourceCode) {
+        return apply(SourceView.of(sourceCode));
+    }
+}
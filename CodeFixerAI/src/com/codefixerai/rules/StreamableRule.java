@@ -0,0 +1,25 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+
+import java.util.List;
+
+/**
+ * VisitorRule whose visitor can be fed a source in consecutive chunks, so
+ * StreamingAnalyzer can run it without ever holding the whole file.
+ *
+ * The visitor must not keep token indexes or other chunk-relative state
+ * from one chunk to the next, and reports absolute line numbers using the
+ * firstLine passed to startChunk.
+ */
+
+public interface StreamableRule extends VisitorRule {
+
+    /**
+     * Creates the visitor for one streaming analysis.
+     *
+     * @param out List the visitor appends its issues to.
+     */
+
+    RuleVisitor streamingVisitor(List<Issue> out);
+}
@@ -1,8 +1,11 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.SourceView;
+import com.codefixerai.source.TokenStream;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,55 +13,152 @@ import java.util.List;
  *
  * Since Strings are immutable, repeated concatenation creates unnecessary objects,
  * so StringBuilder should be used instead for better performance.
+ *
+ * Works on token events in a single pass:
+ * - A for/while header is skipped up to its closing parenthesis; the body is
+ *   either the following brace block or a single statement up to ';'.
+ * - Inside a body, a '+=' whose right-hand side contains a string literal is
+ *   reported (once per line).
+ * Braces, keywords and "+=" inside literals or comments are never mistaken for code.
  */
 
 
-public class StringConcatInLoopRule implements Rule {
+public class StringConcatInLoopRule implements VisitorRule {
+
+    private static final IssueTemplate CONCAT_IN_LOOP = new IssueTemplate(
+            IssueType.STRING_CONCAT_IN_LOOP,
+            "Possible inefficient String concatenation inside a loop.",
+            "Use StringBuilder or StringBuffer instead of '+=' inside loops.");
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-
-        String[] lines = sourceCode.split("\\R");
-        boolean inLoop = false;
-        int braceDepth = 0;
-
-        for (int i = 0; i < lines.length; i++) {
-            String rawLine = lines[i];
-            String line = rawLine.trim();
-
-            if (line.startsWith("for ") || line.startsWith("for(") ||
-                    line.startsWith("while ") || line.startsWith("while(")) {
-                inLoop = true;
-                if (line.contains("{")) {
-                    braceDepth++;
+    public RuleVisitor visitor(SourceView source, List<Issue> out) {
+        return new Visitor(source.tokens(), out);
+    }
+
+    private static final class Visitor extends RuleVisitor {
+        private final TokenStream tokens;
+        private final List<Issue> out;
+
+        private int depth;
+        // Brace depths of the loop bodies that are currently open.
+        private int[] bodies = new int[8];
+        private int openBodies;
+        // Brace depth of a pending single-statement loop body, or -1.
+        private int statementBody = -1;
+        // Last token of the loop header being skipped; the body follows it.
+        private int headerEnd = -1;
+        private boolean afterHeader;
+        private boolean stopped;
+        private int lastReported = -1;
+
+        Visitor(TokenStream tokens, List<Issue> out) {
+            this.tokens = tokens;
+            this.out = out;
+        }
+
+        @Override
+        public int events() {
+            return TOKENS | BLOCKS;
+        }
+
+        @Override
+        public void blockOpen(int token) {
+            if (skipped(token)) return;
+            if (afterHeader) {
+                afterHeader = false;
+                if (openBodies == bodies.length) {
+                    int[] bigger = new int[bodies.length * 2];
+                    System.arraycopy(bodies, 0, bigger, 0, openBodies);
+                    bodies = bigger;
                 }
-                continue;
+                bodies[openBodies++] = ++depth;
+                return;
             }
+            depth++;
+        }
 
-            if (inLoop) {
-                if (line.contains("{")) braceDepth++;
-                if (line.contains("}")) {
-                    braceDepth--;
-                    if (braceDepth <= 0) {
-                        inLoop = false;
-                        braceDepth = 0;
+        @Override
+        public void blockClose(int token) {
+            if (skipped(token)) return;
+            startStatementBody();
+            depth--;
+            while (openBodies > 0 && bodies[openBodies - 1] > depth) {
+                openBodies--;
+            }
+            if (statementBody >= depth) {
+                statementBody = -1;
+            }
+        }
+
+        @Override
+        public void token(int k) {
+            if (skipped(k)) return;
+            startStatementBody();
+
+            switch (tokens.kind(k)) {
+                case TokenStream.IDENTIFIER:
+                    if (tokens.is(k, "for") || tokens.is(k, "while")) {
+                        int open = tokens.nextCode(k + 1);
+                        if (open < tokens.count() && tokens.kind(open) == TokenStream.OPEN_PAREN) {
+                            int close = tokens.matchingClose(open);
+                            if (close < 0) {
+                                stopped = true;
+                                return;
+                            }
+                            headerEnd = close;
+                            afterHeader = true;
+                        }
                     }
-                }
+                    break;
+                case TokenStream.SEMICOLON:
+                    if (statementBody == depth) {
+                        statementBody = -1;
+                    }
+                    break;
+                case TokenStream.OPERATOR:
+                    int line = tokens.line(k);
+                    if ((openBodies > 0 || statementBody >= 0) && line != lastReported
+                            && tokens.is(k, "+=") && appendsLiteral(k + 1)) {
+                        CONCAT_IN_LOOP.report(out, line + 1);
+                        lastReported = line;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
 
-                // heuristics: "+=" and a quote -> likely string concat
-                if (line.contains("+=") && line.contains("\"")) {
-                    issues.add(new Issue(
-                            i + 1,
-                            "StringConcatInLoop",
-                            "Possible inefficient String concatenation inside a loop.",
-                            "Use StringBuilder or StringBuffer instead of '+=' inside loops."
-                    ));
+        private boolean skipped(int token) {
+            return stopped || token <= headerEnd;
+        }
+
+        /**
+         * A loop header followed by anything but '{' has a single-statement body.
+         */
+
+        private void startStatementBody() {
+            if (afterHeader) {
+                afterHeader = false;
+                if (statementBody < 0) {
+                    statementBody = depth;
                 }
             }
         }
 
-        return issues;
+        /**
+         * Returns true if the expression starting at {@code from} contains a
+         * string literal before the statement ends.
+         */
+
+        private boolean appendsLiteral(int from) {
+            for (int k = from; k < tokens.count(); k++) {
+                int kind = tokens.kind(k);
+                if (kind == TokenStream.STRING) return true;
+                if (kind == TokenStream.SEMICOLON || kind == TokenStream.OPEN_BRACE
+                        || kind == TokenStream.CLOSE_BRACE) return false;
+            }
+            return false;
+        }
     }
 
     @Override
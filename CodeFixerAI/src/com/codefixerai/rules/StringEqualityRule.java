@@ -1,8 +1,14 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -16,41 +22,44 @@ import java.util.regex.Pattern;
  * because '==' only compares object references, not the actual contents.
  */
 
-public class StringEqualityRule implements Rule {
+public class StringEqualityRule implements SourceRule {
 
-    @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
+    private static final IssueTemplate STRING_EQUALITY = new IssueTemplate(
+            IssueType.STRING_EQUALITY,
+            "Possible String comparison using '==' for variable '{}'.",
+            "Use {}.equals(...) or .equalsIgnoreCase(...) instead of '=='.");
+
+    // Compiled once; each apply only creates one Matcher and moves its region per line.
+    private static final Pattern DECL_PATTERN = Pattern.compile("\\bString\\s+([a-zA-Z_][a-zA-Z0-9_]*)");
 
-        String[] lines = sourceCode.split("\\R");
+    @Override
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
 
         // 1) Collect names of String variables
         Set<String> stringVars = new HashSet<>();
-        Pattern declPattern = Pattern.compile("\\bString\\s+([a-zA-Z_][a-zA-Z0-9_]*)");
-        for (String line : lines) {
-            Matcher m = declPattern.matcher(line);
+        Matcher m = DECL_PATTERN.matcher(source.chars());
+        KeywordIndex keywords = source.keywords();
+        long stringBit = Keyword.STRING.bit();
+        long equalsBit = Keyword.EQUALS.bit();
+        for (int i = keywords.nextLine(0, stringBit); i >= 0; i = keywords.nextLine(i + 1, stringBit)) {
+            m.region(source.lineStart(i), source.lineEnd(i));
             while (m.find()) {
-                stringVars.add(m.group(1));
+                stringVars.add(source.substring(m.start(1), m.end(1)));
             }
         }
 
         // 2) Look for == comparisons involving those String variables
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-
-            if (!line.contains("==")) continue;
+        Deadline deadline = Deadline.current();
+        for (int i = keywords.nextLine(0, equalsBit); i >= 0; i = keywords.nextLine(i + 1, equalsBit)) {
+            if (deadline != null) deadline.check();
 
             for (String var : stringVars) {
                 // very simple checks around ==
-                if (line.contains(var + " ==") || line.contains("== " + var) ||
-                        line.contains(var + "==") || line.contains("==" + var)) {
+                if (source.contains(i, var + " ==") || source.contains(i, "== " + var) ||
+                        source.contains(i, var + "==") || source.contains(i, "==" + var)) {
 
-                    issues.add(new Issue(
-                            i + 1,
-                            "StringEquality",
-                            "Possible String comparison using '==' for variable '" + var + "'.",
-                            "Use " + var + ".equals(...) or .equalsIgnoreCase(...) instead of '=='."
-                    ));
+                    STRING_EQUALITY.report(issues, i + 1, var);
                     break; // avoid duplicates for same line
                 }
             }
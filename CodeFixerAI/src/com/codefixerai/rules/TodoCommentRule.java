@@ -1,6 +1,11 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
 import java.util.*;
 
 /**
@@ -11,24 +16,22 @@ import java.util.*;
  */
 
 
-public class TodoCommentRule implements Rule {
+public class TodoCommentRule implements LineLocalRule {
+
+    private static final IssueTemplate TODO_COMMENT = new IssueTemplate(
+            IssueType.TODO_COMMENT,
+            "TODO comment detected — unfinished implementation.",
+            "Complete the pending work or remove the TODO marker.");
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
-        String[] lines = sourceCode.split("\\R");
-
-        for (int i = 0; i < lines.length; i++) {
-            if (lines[i].contains("TODO")) {
-                issues.add(new Issue(
-                        i + 1,
-                        "TodoComment",
-                        "TODO comment detected — unfinished implementation.",
-                        "Complete the pending work or remove the TODO marker."
-                ));
-            }
+    public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> issues) {
+        KeywordIndex keywords = source.keywords();
+        long todoBit = Keyword.TODO.bit();
+
+        for (int i = keywords.nextLine(fromLine, toLine, todoBit); i >= 0;
+             i = keywords.nextLine(i + 1, toLine, todoBit)) {
+            TODO_COMMENT.report(issues, i + 1);
         }
-        return issues;
     }
 
     @Override
@@ -1,8 +1,15 @@
 package com.codefixerai.rules;
 
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.model.IssueTemplate;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.IdentifierIndex;
+import com.codefixerai.source.Keyword;
+import com.codefixerai.source.KeywordIndex;
+import com.codefixerai.source.SourceView;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,58 +19,70 @@ import java.util.Map;
  *
  * Unused variables clutter code, waste memory, and often signal leftover
  * logic, incomplete refactoring, or incorrect implementation.
+ *
+ * Usages are looked up in the source's IdentifierIndex, so a name only
+ * counts as used when it appears as a whole identifier in code (not as
+ * part of a longer word, in a comment or in a string literal).
  */
 
 
-public class UnusedVariableRule implements Rule {
+public class UnusedVariableRule implements SourceRule {
+
+    private static final IssueTemplate UNUSED_VARIABLE = new IssueTemplate(
+            IssueType.UNUSED_VARIABLE,
+            "Variable '{}' is declared but never used.",
+            "Remove or use the variable in logic.");
+
+    private static final String[] TYPES = {"int", "String", "double", "float", "char", "long", "boolean"};
+
+    private static final long DECLARATION_TYPES = Keyword.maskOf(Keyword.INT, Keyword.STRING,
+            Keyword.DOUBLE, Keyword.FLOAT, Keyword.CHAR, Keyword.LONG, Keyword.BOOLEAN);
 
     @Override
-    public List<Issue> apply(String sourceCode) {
-        List<Issue> issues = new ArrayList<>();
+    public List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
 
-        String[] lines = sourceCode.split("\\R");
         Map<String, Integer> declLines = new HashMap<>();
 
-        String[] types = {"int", "String", "double", "float", "char", "long", "boolean"};
-
-        // Find declarations
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            for (String type : types) {
-                if (line.startsWith(type + " ")) {
-                    String rest = line.substring(type.length()).trim();
-                    if (!rest.isEmpty()) {
-                        String varName = rest.split("[\\s=;]")[0];
-                        if (!varName.isEmpty()) {
-                            declLines.put(varName, i + 1);
-                        }
-                    }
+        KeywordIndex keywords = source.keywords();
+        Deadline deadline = Deadline.current();
+
+        // Find declarations (only lines mentioning one of the types can declare one)
+        for (int i = keywords.nextLine(0, DECLARATION_TYPES); i >= 0;
+             i = keywords.nextLine(i + 1, DECLARATION_TYPES)) {
+            if (deadline != null) deadline.check();
+            int start = source.trimStart(i);
+            int end = source.trimEnd(i);
+            if (source.isComment(start)) continue;
+
+            for (String type : TYPES) {
+                if (source.startsWith(i, type) && start + type.length() < end
+                        && source.charAt(start + type.length()) == ' ') {
+                    int nameStart = source.skipWhitespace(start + type.length(), end);
+                    if (nameStart == end || !Character.isJavaIdentifierStart(source.charAt(nameStart))) continue;
+
+                    int nameEnd = nameStart + 1;
+                    while (nameEnd < end && Character.isJavaIdentifierPart(source.charAt(nameEnd))) nameEnd++;
+
+                    // "int size(...)" declares a method, not a variable.
+                    int next = source.skipWhitespace(nameEnd, end);
+                    if (next < end && source.charAt(next) == '(') continue;
+
+                    declLines.put(source.substring(nameStart, nameEnd), i + 1);
                 }
             }
         }
 
-        // Check if used somewhere else
+        // Check if used somewhere else: any occurrence of the identifier in code
+        // outside its declaration line. One index lookup per declaration.
+        IdentifierIndex identifiers = source.identifiers();
         for (Map.Entry<String, Integer> entry : declLines.entrySet()) {
             String var = entry.getKey();
             int declLine = entry.getValue();
-            boolean used = false;
-
-            for (int i = 0; i < lines.length; i++) {
-                if (i + 1 == declLine) continue;
-
-                if (lines[i].contains(var)) {
-                    used = true;
-                    break;
-                }
-            }
+            boolean used = identifiers.count(var) > identifiers.countOnLine(var, declLine - 1);
 
             if (!used) {
-                issues.add(new Issue(
-                        declLine,
-                        "UnusedVariable",
-                        "Variable '" + var + "' is declared but never used.",
-                        "Remove or use the variable in logic."
-                ));
+                UNUSED_VARIABLE.report(issues, declLine, var);
             }
         }
 
@@ -0,0 +1,236 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.source.BudgetExceededException;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.SourceView;
+import com.codefixerai.source.TokenStream;
+
+import java.util.List;
+
+/**
+ * Drives any number of RuleVisitors from a single pass over a source.
+ *
+ * Visitors are grouped by the events they subscribe to before the pass, so
+ * each event is only dispatched to interested visitors. The token stream is
+ * only built if some visitor subscribes to token, block or comment events.
+ * The current thread's Deadline, if any, is checked every few hundred lines.
+ *
+ * A supervised pass (see run with a Supervisor) hands the same events to
+ * one visitor at a time instead, a window of lines at a time, so that each
+ * visitor can be timed and cancelled on its own.
+ */
+
+public final class VisitorDriver {
+
+    // Lines between two Deadline checks; must be a power of two.
+    private static final int LINES_PER_CHECK = 256;
+
+    private VisitorDriver() {
+    }
+
+    /**
+     * Hooks a supervised pass calls around each visitor's share of the work.
+     * Visitors are identified by their position in the list.
+     */
+
+    public interface Supervisor {
+
+        /**
+         * Called before the visitor handles a window of lines or its end().
+         * Returning false drops the visitor for the rest of the pass.
+         */
+
+        boolean enter(int visitor);
+
+        /**
+         * Called after the visitor handled a window or its end(). cancelled
+         * is true if it threw BudgetExceededException, which drops it too.
+         */
+
+        void exit(int visitor, boolean cancelled);
+    }
+
+    /**
+     * Runs one pass over the source, then calls end() on every visitor in list order.
+     */
+
+    public static void run(SourceView source, List<? extends RuleVisitor> visitors) {
+        pass(source, visitors);
+        finish(visitors);
+    }
+
+    /**
+     * Like run, but feeds one visitor at a time with a window of
+     * LINES_PER_CHECK lines, inside the supervisor's enter and exit. Each
+     * visitor gets the same events in the same order as from run, and
+     * the window is still in cache when the next visitor reads it. Dropped
+     * visitors get no more events and no end().
+     */
+
+    public static void run(SourceView source, List<? extends RuleVisitor> visitors, Supervisor supervisor) {
+        int count = visitors.size();
+        int[] events = new int[count];
+        boolean[] dropped = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = visitors.get(i).events();
+        }
+
+        for (int from = 0; from < source.lineCount(); from += LINES_PER_CHECK) {
+            int to = Math.min(source.lineCount(), from + LINES_PER_CHECK);
+            for (int i = 0; i < count; i++) {
+                if (events[i] != 0 && !dropped[i]) {
+                    dropped[i] = !supervised(supervisor, i, visitors.get(i), events[i], source, from, to);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (!dropped[i]) {
+                supervised(supervisor, i, visitors.get(i), 0, source, -1, -1);
+            }
+        }
+    }
+
+    /**
+     * Runs one visitor over lines [from, to), or its end() when from is -1.
+     * Returns false if the visitor is to be dropped.
+     */
+
+    private static boolean supervised(Supervisor supervisor, int i, RuleVisitor visitor, int events,
+                                      SourceView source, int from, int to) {
+        if (!supervisor.enter(i)) return false;
+        boolean cancelled = false;
+        try {
+            if (from < 0) {
+                visitor.end();
+            } else {
+                window(source, visitor, events, from, to);
+            }
+        } catch (BudgetExceededException e) {
+            cancelled = true;
+        } finally {
+            supervisor.exit(i, cancelled);
+        }
+        return !cancelled;
+    }
+
+    private static void window(SourceView source, RuleVisitor visitor, int events, int from, int to) {
+        boolean lines = (events & RuleVisitor.LINES) != 0;
+        TokenStream stream = (events & ~RuleVisitor.LINES) != 0 ? source.tokens() : null;
+        int k = stream == null ? 0 : stream.firstOnLine(from);
+
+        for (int line = from; line < to; line++) {
+            if (lines) {
+                visitor.lineStart(line);
+            }
+
+            if (stream != null) {
+                int end = stream.firstOnLine(line + 1);
+                for (; k < end; k++) {
+                    switch (stream.kind(k)) {
+                        case TokenStream.OPEN_BRACE:
+                            if ((events & RuleVisitor.BLOCKS) != 0) visitor.blockOpen(k);
+                            break;
+                        case TokenStream.CLOSE_BRACE:
+                            if ((events & RuleVisitor.BLOCKS) != 0) visitor.blockClose(k);
+                            break;
+                        case TokenStream.LINE_COMMENT:
+                        case TokenStream.BLOCK_COMMENT:
+                            if ((events & RuleVisitor.COMMENTS) != 0) visitor.comment(k);
+                            break;
+                        default:
+                            if ((events & RuleVisitor.TOKENS) != 0) visitor.token(k);
+                    }
+                }
+            }
+
+            if (lines) {
+                visitor.lineEnd(line);
+            }
+        }
+    }
+
+    /**
+     * Runs one pass over a chunk of a streamed source, after announcing it
+     * to every visitor through startChunk. Call finish once after the last chunk.
+     *
+     * @param chunk     View of the chunk, built in the state the previous chunk ended in.
+     * @param firstLine 0-based line of the whole source the chunk starts at.
+     */
+
+    public static void runChunk(SourceView chunk, int firstLine, List<? extends RuleVisitor> visitors) {
+        for (RuleVisitor visitor : visitors) {
+            visitor.startChunk(chunk, firstLine);
+        }
+        pass(chunk, visitors);
+    }
+
+    /**
+     * Calls end() on every visitor in list order.
+     */
+
+    public static void finish(List<? extends RuleVisitor> visitors) {
+        for (RuleVisitor visitor : visitors) {
+            visitor.end();
+        }
+    }
+
+    private static void pass(SourceView source, List<? extends RuleVisitor> visitors) {
+        RuleVisitor[] lines = subscribed(visitors, RuleVisitor.LINES);
+        RuleVisitor[] tokens = subscribed(visitors, RuleVisitor.TOKENS);
+        RuleVisitor[] blocks = subscribed(visitors, RuleVisitor.BLOCKS);
+        RuleVisitor[] comments = subscribed(visitors, RuleVisitor.COMMENTS);
+
+        boolean lexed = tokens.length > 0 || blocks.length > 0 || comments.length > 0;
+        if (lines.length > 0 || lexed) {
+            Deadline deadline = Deadline.current();
+            TokenStream stream = lexed ? source.tokens() : null;
+            int k = 0;
+
+            for (int line = 0; line < source.lineCount(); line++) {
+                if (deadline != null && (line & (LINES_PER_CHECK - 1)) == 0) {
+                    deadline.check();
+                }
+                for (RuleVisitor visitor : lines) {
+                    visitor.lineStart(line);
+                }
+
+                if (stream != null) {
+                    int end = stream.firstOnLine(line + 1);
+                    for (; k < end; k++) {
+                        switch (stream.kind(k)) {
+                            case TokenStream.OPEN_BRACE:
+                                for (RuleVisitor visitor : blocks) visitor.blockOpen(k);
+                                break;
+                            case TokenStream.CLOSE_BRACE:
+                                for (RuleVisitor visitor : blocks) visitor.blockClose(k);
+                                break;
+                            case TokenStream.LINE_COMMENT:
+                            case TokenStream.BLOCK_COMMENT:
+                                for (RuleVisitor visitor : comments) visitor.comment(k);
+                                break;
+                            default:
+                                for (RuleVisitor visitor : tokens) visitor.token(k);
+                        }
+                    }
+                }
+
+                for (RuleVisitor visitor : lines) {
+                    visitor.lineEnd(line);
+                }
+            }
+        }
+    }
+
+    private static RuleVisitor[] subscribed(List<? extends RuleVisitor> visitors, int event) {
+        int n = 0;
+        for (RuleVisitor visitor : visitors) {
+            if ((visitor.events() & event) != 0) n++;
+        }
+        RuleVisitor[] result = new RuleVisitor[n];
+        n = 0;
+        for (RuleVisitor visitor : visitors) {
+            if ((visitor.events() & event) != 0) result[n++] = visitor;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueBuffer;
+import com.codefixerai.source.SourceView;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SourceRule that runs as a RuleVisitor, so CodeAnalyzer can drive it
+ * together with all other rules from one loop over the source instead of
+ * letting every rule loop over the input on its own.
+ *
+ * apply(SourceView) stays available and runs the visitor alone.
+ */
+
+public interface VisitorRule extends SourceRule {
+
+    /**
+     * Creates the visitor for one analysis.
+     *
+     * @param source Shared view of the source being analyzed.
+     * @param out    List the visitor appends its issues to, in the order
+     *               apply(SourceView) would return them.
+     */
+
+    RuleVisitor visitor(SourceView source, List<Issue> out);
+
+    @Override
+    default List<Issue> apply(SourceView source) {
+        List<Issue> issues = new IssueBuffer(source);
+        VisitorDriver.run(source, Collections.singletonList(visitor(source, issues)));
+        return issues;
+    }
+}
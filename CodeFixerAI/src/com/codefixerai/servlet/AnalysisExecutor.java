@@ -0,0 +1,213 @@
+package com.codefixerai.servlet;
+
+import com.codefixerai.analyzer.LatencyHistogram;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded executor that runs analyses off the servlet container's request
+ * threads.
+ *
+ * - At most "threads" analyses run at once; up to "queueCapacity" more wait.
+ * - Anything beyond that is rejected at once with RejectedExecutionException,
+ *   which the servlet turns into 503 Service Unavailable, instead of piling
+ *   up behind a burst of large submissions.
+ * - With virtual threads requested (and available, Java 21+), the workers
+ *   are virtual threads; the pool size still caps how many analyses run.
+ *   The lookup is reflective so the code still runs on older JVMs.
+ *
+ * Queue wait and run time are recorded in LatencyHistograms and exposed,
+ * with the queue depth and counters, over JMX (AnalysisExecutorMXBean).
+ */
+public class AnalysisExecutor implements AnalysisExecutorMXBean {
+
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+    private final boolean virtual;
+
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /*
+     * threads:         maximum number of analyses running at once.
+     * queueCapacity:   maximum number of analyses waiting for a thread.
+     * virtualThreads:  run workers on virtual threads when the JVM has them.
+     */
+    public AnalysisExecutor(int threads, int queueCapacity, boolean virtualThreads) {
+        this("codefixer-analysis", threads, queueCapacity, virtualThreads);
+    }
+
+    /*
+     * name:  prefix of the worker thread names, e.g. "codefixer-batch".
+     */
+    public AnalysisExecutor(String name, int threads, int queueCapacity, boolean virtualThreads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queue capacity must not be negative: " + queueCapacity);
+        }
+        ThreadFactory factory = virtualThreads ? virtualThreadFactory(name) : null;
+        this.virtual = factory != null;
+        if (factory == null) {
+            factory = platformThreadFactory(name);
+        }
+        this.queueCapacity = queueCapacity;
+        // With no queue, a task is only accepted if a thread can take it right away.
+        BlockingQueue<Runnable> queue = queueCapacity == 0
+                ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(queueCapacity);
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                queue, factory, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * Queues the task, or throws RejectedExecutionException if all threads
+     * are busy and the queue is full.
+     */
+    public void submit(Runnable task) {
+        long queued = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                long started = System.nanoTime();
+                queueTime.record(started - queued);
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    failed.increment();
+                    throw e;
+                } finally {
+                    runTime.record(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /*
+     * Stops accepting work and waits briefly for running analyses.
+     */
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ----- MXBean -----
+
+    @Override
+    public int getThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    @Override
+    public boolean isVirtualThreads() {
+        return virtual;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return runTime.getCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public double getMeanQueueMillis() {
+        return queueTime.getMeanMillis();
+    }
+
+    @Override
+    public double getP99QueueMillis() {
+        return queueTime.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getMeanRunMillis() {
+        return runTime.getMeanMillis();
+    }
+
+    @Override
+    public double getP99RunMillis() {
+        return runTime.getPercentileMillis(99);
+    }
+
+    @Override
+    public void resetStatistics() {
+        queueTime.reset();
+        runTime.reset();
+        rejected.reset();
+        failed.reset();
+    }
+
+    // ----- Thread factories -----
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*
+     * Returns Thread.ofVirtual().name(...).factory(), or null before Java 21.
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            // Methods are looked up on the public Thread.Builder interface,
+            // since the implementing classes are not accessible.
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method nameMethod = builderType.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
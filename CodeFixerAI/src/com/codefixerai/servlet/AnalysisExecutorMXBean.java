@@ -0,0 +1,36 @@
+package com.codefixerai.servlet;
+
+/*
+ * JMX view of AnalysisExecutor, for sizing the analysis service:
+ * - queue depth against capacity and rejected (503) requests show saturation;
+ * - queue and run times show whether to add threads or reduce input size.
+ * Times are in milliseconds; p99 values are upper bounds within a factor of two.
+ */
+public interface AnalysisExecutorMXBean {
+
+    int getThreads();
+
+    boolean isVirtualThreads();
+
+    int getQueueCapacity();
+
+    int getQueueDepth();
+
+    int getActiveCount();
+
+    long getCompletedCount();
+
+    long getRejectedCount();
+
+    long getFailedCount();
+
+    double getMeanQueueMillis();
+
+    double getP99QueueMillis();
+
+    double getMeanRunMillis();
+
+    double getP99RunMillis();
+
+    void resetStatistics();
+}
@@ -10,9 +10,22 @@ package com.codefixerai.servlet;
  * - JSON-based response
  */
 
+import com.codefixerai.analyzer.AnalysisCache;
+import com.codefixerai.analyzer.AnalyzerMetrics;
+import com.codefixerai.analyzer.BatchAnalyzer;
 import com.codefixerai.analyzer.CodeAnalyzer;
+import com.codefixerai.analyzer.RuleRegistry;
+import com.codefixerai.model.BatchSummary;
 import com.codefixerai.model.Issue;
+import com.codefixerai.report.JsonWriter;
+import com.codefixerai.source.SourceArchive;
+import com.codefixerai.source.SourceFiles;
+import com.codefixerai.source.SourceTooLargeException;
+import com.codefixerai.source.SourceView;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -21,84 +34,800 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /*
  * Maps this servlet to /analyze URL
  * Example:
  * http://localhost:8080/codefixer/analyze
+ * Archives of many files are posted to /analyze/batch.
  */
-@WebServlet("/analyze")
+@WebServlet(value = "/analyze/*", asyncSupported = true)
 public class CodeAnalysisServlet extends HttpServlet {
 
+    private RuleRegistry registry;
     private CodeAnalyzer analyzer;
+    private AnalyzerMetrics metrics;
+    private AnalysisExecutor executor;
+    private ObjectName metricsName;
+    private ObjectName executorName;
+    private boolean gzip;
+    private long asyncTimeoutMillis;
+    private long maxFileBytes;
+    private long batchTimeoutMillis;
+    private int batchParallelism;
+    private ForkJoinPool batchPool;
+    private AnalysisExecutor batchReaders;
+    private AnalysisCache cache;
 
     /*
      * Called once when servlet is loaded.
+     * Per-rule metrics are published over JMX under the servlet name.
+     * Optional init parameters bound the work per request, so one
+     * pathological input cannot hold a request thread:
+     * - ruleBudgetMillis: time budget per rule (0 = none)
+     * - analysisBudgetMillis: time budget per source (default: three
+     *   quarters of asyncTimeoutMillis, so a result is ready before the
+     *   request times out; 0 = none only when asyncTimeoutMillis is 0)
+     * - maxInputChars: largest source that is analyzed (0 = no limit)
+     * - gzip: "false" disables compressed responses
+     * Analyzers for the rule subsets requested with the "rules" parameter
+     * are built once by the registry and share these settings.
+     *
+     * Analyses run on an AnalysisExecutor rather than the request thread:
+     * - analysisThreads: analyses running at once (default: CPU count)
+     * - analysisQueue: analyses waiting for a thread (default: 4 per thread);
+     *   further requests get 503 at once
+     * - virtualThreads: "true" runs the workers on virtual threads (Java 21+)
+     * - asyncTimeoutMillis: how long a request may wait in total (default
+     *   30000); requests still unanswered then get 503
+     *
+     * Batch uploads to /analyze/batch:
+     * - maxFileBytes: largest file accepted from an archive or as a raw
+     *   request body (default 8 MB)
+     * - batchParallelism: threads analyzing batch files, shared by all
+     *   batches (default: CPU count)
+     * - maxBatches: batches running at once (default 2); more get 503
+     * - batchTimeoutMillis: how long one batch may run (default 600000);
+     *   a batch still running then is cancelled and its response ends
+     *   without the summary line
+     *
+     * Results are cached by the SHA-256 of the source and the rule set:
+     * - resultCacheWeight: cached entries plus issues kept in memory
+     *   (default AnalysisCache.DEFAULT_MAX_WEIGHT; 0 disables the cache)
+     * - resultCacheDir: directory for a persistent cache tier (optional)
      */
     @Override
     public void init() throws ServletException {
-        analyzer = new CodeAnalyzer();
+        long ruleBudget, budget, maxChars;
+        int threads, queue, maxBatches;
+        try {
+            ruleBudget = longParameter("ruleBudgetMillis", 0);
+            budget = longParameter("analysisBudgetMillis", 0);
+            maxChars = Math.min(Integer.MAX_VALUE, longParameter("maxInputChars", 0));
+            threads = (int) longParameter("analysisThreads", Runtime.getRuntime().availableProcessors());
+            queue = (int) longParameter("analysisQueue", 4L * threads);
+            asyncTimeoutMillis = longParameter("asyncTimeoutMillis", 30_000);
+            maxFileBytes = longParameter("maxFileBytes", 8L << 20);
+            batchParallelism = (int) longParameter("batchParallelism", Runtime.getRuntime().availableProcessors());
+            maxBatches = (int) longParameter("maxBatches", 2);
+            batchTimeoutMillis = longParameter("batchTimeoutMillis", 600_000);
+            long cacheWeight = longParameter("resultCacheWeight", AnalysisCache.DEFAULT_MAX_WEIGHT);
+            String cacheDir = getInitParameter("resultCacheDir");
+            if (cacheWeight > 0) {
+                cache = new AnalysisCache(cacheWeight,
+                        cacheDir == null || cacheDir.trim().isEmpty() ? null : Paths.get(cacheDir.trim()));
+            }
+        } catch (NumberFormatException e) {
+            throw new ServletException("Invalid init parameter: " + e.getMessage(), e);
+        }
+        if (budget == 0 && asyncTimeoutMillis > 0) {
+            // Leave the last quarter of the async timeout for queueing and writing the response.
+            budget = Math.max(1, asyncTimeoutMillis * 3 / 4);
+        }
+        long analysisBudget = budget;
+        gzip = !"false".equalsIgnoreCase(getInitParameter("gzip"));
+        boolean virtualThreads = "true".equalsIgnoreCase(getInitParameter("virtualThreads"));
+        try {
+            executor = new AnalysisExecutor(threads, queue, virtualThreads);
+            // One reader thread per running batch; the files themselves are analyzed on batchPool.
+            batchReaders = new AnalysisExecutor("codefixer-batch-reader", maxBatches, 0, virtualThreads);
+            batchPool = new ForkJoinPool(batchParallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("Invalid executor parameter: " + e.getMessage(), e);
+        }
+        metrics = new AnalyzerMetrics();
+        try {
+            registry = new RuleRegistry(getClass().getClassLoader(), a -> {
+                a.setRuleTimeBudget(ruleBudget);
+                a.setAnalysisTimeBudget(analysisBudget);
+                a.setMaxInputChars((int) maxChars);
+                a.setMetrics(metrics);
+            });
+            analyzer = registry.analyzer((Collection<String>) null);
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("Invalid budget parameter: " + e.getMessage(), e);
+        }
+        try {
+            metricsName = metrics.register(getServletName());
+            executorName = new ObjectName("com.codefixerai:type=AnalysisExecutor,name=" + ObjectName.quote(getServletName()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(executorName)) {
+                server.unregisterMBean(executorName);
+            }
+            server.registerMBean(executor, executorName);
+        } catch (JMException e) {
+            log("Could not register analyzer metrics", e);
+        }
+    }
+
+    private long longParameter(String name, long defaultValue) {
+        String value = getInitParameter(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /*
+     * Stops the executors and removes the JMX registrations when the servlet is unloaded.
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        batchReaders.shutdown();
+        batchPool.shutdownNow();
+        try {
+            if (metricsName != null) {
+                AnalyzerMetrics.unregister(metricsName);
+            }
+            if (executorName != null) {
+                AnalyzerMetrics.unregister(executorName);
+            }
+        } catch (JMException e) {
+            log("Could not unregister analyzer metrics", e);
+        }
     }
 
     /*
      * Handles POST requests with source code input.
+     * The response is streamed with JsonWriter, issue by issue, so it is
+     * never built up in memory; it is gzip-compressed when the client
+     * accepts it (unless the "gzip" init parameter is false).
+     *
+     * The source comes either from the "code" form parameter or, with a
+     * Content-Type of text/x-java, text/plain or application/octet-stream,
+     * from the raw UTF-8 request body. A raw body is decoded straight from
+     * the input stream into the SourceView, skipping the container's form
+     * decoding, and is refused with 413 once it exceeds maxFileBytes: up
+     * front when Content-Length says so, else as soon as the limit is read.
+     *
+     * The request thread only starts async processing and returns to the
+     * container: reading and hashing the body, the cache lookup and the
+     * analysis all run on the executor (see dispatch). A full executor
+     * answers 503 with Retry-After.
+     *
+     * Complete results carry an ETag derived from the SHA-256 of the source
+     * and the rule set. A request whose If-None-Match holds that tag gets
+     * 304 without being analyzed, and a cached result is answered without
+     * running the rules.
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
+        String path = request.getPathInfo();
+        boolean batch = "/batch".equals(path);
+        if (!batch && path != null && !"/".equals(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        PrintWriter out = response.getWriter();
+        if (batch) {
+            // Optional comma-separated subset of rules, e.g. rules=ResourceLeak,StringEquality
+            CodeAnalyzer selected = selectAnalyzer(request, response);
+            if (selected != null) {
+                analyzeBatch(request, response, selected);
+            }
+            return;
+        }
+        dispatch(request, response, this::analyzeSource);
+    }
 
-        String code = request.getParameter("code");
+    /*
+     * POST /analyze on the executor: reads the source, answers from the
+     * cache when it can and analyzes the source otherwise. A form post's
+     * parameters are decoded here too, as that reads the body.
+     */
+    private void analyzeSource(Exchange exchange) throws IOException {
+        HttpServletRequest request = exchange.request;
+        HttpServletResponse response = exchange.response;
 
-        if (code == null || code.trim().isEmpty()) {
-            out.write("{\"error\":\"No code provided\"}");
+        // Optional comma-separated subset of rules, e.g. rules=ResourceLeak,StringEquality
+        CodeAnalyzer selected;
+        try {
+            selected = analyzerFor(request);
+        } catch (IllegalArgumentException e) {
+            exchange.answer(() -> writeUnknownRules(request, response, e));
             return;
         }
 
-        List<Issue> issues = analyzer.analyze(code);
+        SourceView source;
+        if (isRawSource(request.getContentType())) {
+            source = readRawSource(exchange);
+            if (source == null) {
+                return;
+            }
+        } else {
+            String code = request.getParameter("code");
+            source = code == null ? null : SourceView.of(code);
+        }
+
+        if (source == null || isBlank(source)) {
+            exchange.error(HttpServletResponse.SC_OK, "No code provided");
+            return;
+        }
+
+        String key = AnalysisCache.digestKeyFor(selected, AnalysisCache.sha256(source));
+        String etag = '"' + key + '"';
+        if (answerFromCache(exchange, key, etag)) {
+            return;
+        }
+
+        List<Issue> issues = selected.analyze(source);
+        // A rule skipped for its budget may finish next time, so only complete results are tagged.
+        boolean complete = !CodeAnalyzer.isIncomplete(issues);
+        if (complete && cache != null) {
+            issues = cache.put(key, issues);
+        }
+        // If the request timed out while running, the result is still cached for the next one.
+        List<Issue> result = issues;
+        exchange.answer(() -> {
+            if (complete) {
+                response.setHeader("ETag", etag);
+            }
+            writeIssues(request, response, result);
+        });
+    }
+
+    /*
+     * Answers 304 when If-None-Match names the tag, or the cached result.
+     * Returns false if there is no cached result to answer with.
+     */
+    private boolean answerFromCache(Exchange exchange, String key, String etag) throws IOException {
+        HttpServletRequest request = exchange.request;
+        HttpServletResponse response = exchange.response;
+        List<Issue> cached = cache != null ? cache.get(key) : null;
+        if (matchesETag(request.getHeader("If-None-Match"), etag, cached != null)) {
+            exchange.answer(() -> {
+                response.setHeader("ETag", etag);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            });
+            return true;
+        }
+        if (cached != null) {
+            exchange.answer(() -> {
+                response.setHeader("ETag", etag);
+                writeIssues(request, response, cached);
+            });
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Work done for one request on the executor. It answers through the
+     * Exchange, and only the first answer of a request is written.
+     */
+    private interface Task {
+        void run(Exchange exchange) throws IOException;
+    }
+
+    /*
+     * A response written by Exchange.answer.
+     */
+    private interface Answer {
+        void write() throws IOException;
+    }
+
+    /*
+     * One request processed asynchronously. Its task, the timeout listener
+     * and a rejected submit race to answer it. claimed is set once the task
+     * has started, or the request was answered before it could. Whoever
+     * sets answered first writes the response and completes the request;
+     * the others leave it alone.
+     */
+    private final class Exchange {
+        final HttpServletRequest request;
+        final HttpServletResponse response;
+        final AsyncContext async;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final AtomicBoolean answered = new AtomicBoolean();
+
+        Exchange(HttpServletRequest request, HttpServletResponse response, AsyncContext async) {
+            this.request = request;
+            this.response = response;
+            this.async = async;
+        }
+
+        void answer(Answer answer) throws IOException {
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                answer.write();
+            } finally {
+                async.complete();
+            }
+        }
+
+        void error(int status, String message) throws IOException {
+            answer(() -> writeError(request, response, status, message));
+        }
 
-        StringBuilder json = new StringBuilder();
-        json.append("{\"issueCount\":")
-                .append(issues.size())
-                .append(",\"issues\":[");
+        // Completes a request its task left unanswered, e.g. after the body could not be read.
+        void finish() {
+            if (answered.compareAndSet(false, true)) {
+                async.complete();
+            }
+        }
+    }
 
-        for (int i = 0; i < issues.size(); i++) {
-            Issue issue = issues.get(i);
+    /*
+     * Starts async processing and runs the task on the executor, so the
+     * request thread returns to the container at once. A request still
+     * unanswered after asyncTimeoutMillis gets 503, and so does one the
+     * full executor cannot take (with Retry-After). A task failing with
+     * a RuntimeException is answered with 500.
+     */
+    private void dispatch(HttpServletRequest request, HttpServletResponse response, Task task) throws IOException {
+        AsyncContext async = request.startAsync();
+        async.setTimeout(asyncTimeoutMillis);
+        Exchange exchange = new Exchange(request, response, async);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                boolean queued = exchange.claimed.compareAndSet(false, true);
+                exchange.error(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        queued ? "Analysis timed out in queue" : "Analysis timed out");
+            }
 
-            json.append("{")
-                    .append("\"type\":\"").append(issue.getType()).append("\",")
-                    .append("\"message\":\"").append(issue.getMessage()).append("\",")
-                    .append("\"line\":").append(issue.getLine())
-                    .append("}");
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
 
-            if (i < issues.size() - 1) {
-                json.append(",");
+            @Override
+            public void onError(AsyncEvent event) {
+                exchange.claimed.set(true);
+                exchange.answered.set(true);
             }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        try {
+            executor.submit(() -> {
+                if (!exchange.claimed.compareAndSet(false, true)) {
+                    return; // answered while queued
+                }
+                try {
+                    task.run(exchange);
+                } catch (IOException e) {
+                    log("Could not read the request or write the response", e);
+                } catch (RuntimeException e) {
+                    log("Analysis failed", e);
+                    try {
+                        exchange.error(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Analysis failed");
+                    } catch (IOException ignored) {
+                        // The client is gone; nothing left to report to.
+                    }
+                } finally {
+                    exchange.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            exchange.claimed.set(true);
+            exchange.answer(() -> {
+                response.setHeader("Retry-After", "1");
+                writeError(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "Analysis service busy, retry later");
+            });
         }
+    }
 
-        json.append("]}");
+    /*
+     * Returns true if an If-None-Match header lists the tag (weak or strong).
+     * "*" matches only when a result for the tag exists, i.e. is cached; a
+     * request that would have to run the analysis is never answered 304.
+     */
+    static boolean matchesETag(String ifNoneMatch, String etag, boolean exists) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") ? exists : tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        out.write(json.toString());
+    private static boolean isRawSource(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        return type.equals("text/x-java") || type.equals("text/x-java-source")
+                || type.equals("text/plain") || type.equals("application/octet-stream");
+    }
+
+    /*
+     * Decodes the request body into a SourceView, or returns null after
+     * answering 413 (too large) or 415 (not UTF-8).
+     */
+    private SourceView readRawSource(Exchange exchange) throws IOException {
+        HttpServletRequest request = exchange.request;
+        String contentType = request.getContentType().toLowerCase(Locale.ROOT);
+        int charset = contentType.indexOf("charset=");
+        if (charset >= 0) {
+            String name = contentType.substring(charset + 8).replace("\"", "").trim();
+            if (!name.equals("utf-8") && !name.equals("utf8") && !name.equals("us-ascii")) {
+                exchange.error(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Source must be UTF-8");
+                return null;
+            }
+        }
+        long length = request.getContentLengthLong();
+        if (length > maxFileBytes) {
+            exchange.error(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Source exceeds " + maxFileBytes + " bytes");
+            return null;
+        }
+        try {
+            return SourceFiles.read(request.getInputStream(), length, maxFileBytes);
+        } catch (SourceTooLargeException e) {
+            exchange.error(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Source exceeds " + maxFileBytes + " bytes");
+            return null;
+        }
+    }
+
+    private static boolean isBlank(SourceView source) {
+        for (int line = 0; line < source.lineCount(); line++) {
+            if (!source.isBlank(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Returns the analyzer for the "rules" parameter, or null after
+     * answering 400 for an unknown rule.
+     */
+    private CodeAnalyzer selectAnalyzer(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        try {
+            return analyzerFor(request);
+        } catch (IllegalArgumentException e) {
+            writeUnknownRules(request, response, e);
+            return null;
+        }
+    }
+
+    /*
+     * Returns the analyzer for the "rules" parameter; throws
+     * IllegalArgumentException for an unknown or empty selection.
+     */
+    private CodeAnalyzer analyzerFor(HttpServletRequest request) {
+        String rules = request.getParameter("rules");
+        if (rules == null || rules.trim().isEmpty()) {
+            return analyzer;
+        }
+        return registry.analyzer(rules);
+    }
+
+    private void writeUnknownRules(HttpServletRequest request, HttpServletResponse response,
+                                   IllegalArgumentException e) throws IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        try (JsonWriter json = openJson(request, response)) {
+            json.beginObject().name("error").value(e.getMessage()).name("knownRules").beginArray();
+            for (String id : registry.getRuleIds()) {
+                json.value(id);
+            }
+            json.endArray().endObject();
+        }
+    }
+
+    /*
+     * Analyzes every .java file of a zip, tar or tar.gz archive posted as
+     * the request body, in parallel, and streams one NDJSON line per file
+     * as each one completes, followed by a summary line.
+     *
+     * The archive is read entry by entry straight from the request: each
+     * file is decoded into its own char[] and handed to a BatchAnalyzer,
+     * whose in-flight limit stops the reading while the workers are busy,
+     * so neither the upload nor the results are held in memory or spooled
+     * to disk. Files over maxFileBytes are reported as failed and skipped.
+     *
+     * Like /analyze, the request thread returns at once: one of maxBatches
+     * reader threads opens and reads the archive, and the files are analyzed on the
+     * pool shared by all batches, so batch load never runs more than
+     * batchParallelism analyses. With every reader busy the answer is 503.
+     *
+     * The pool only puts results on the batch's bounded queue; the reader
+     * thread writes them (see BatchAnalyzer.startQueued). A client reading
+     * slowly therefore stalls its own batch, never the shared pool. After
+     * batchTimeoutMillis the batch is cancelled and the request completed.
+     */
+    private void analyzeBatch(HttpServletRequest request, HttpServletResponse response, CodeAnalyzer selected)
+            throws IOException {
+        AsyncContext async = request.startAsync();
+        async.setTimeout(batchTimeoutMillis);
+        // The reader thread and the timeout listener both end the request; only the first completes it.
+        AtomicBoolean completed = new AtomicBoolean();
+        AtomicReference<BatchAnalyzer.Run> running = new AtomicReference<>();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                BatchAnalyzer.Run run = running.get();
+                if (run != null) {
+                    run.cancel();
+                }
+                if (completed.compareAndSet(false, true)) {
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                BatchAnalyzer.Run run = running.get();
+                if (run != null) {
+                    run.cancel();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        try {
+            batchReaders.submit(() -> {
+                try {
+                    SourceArchive archive;
+                    try {
+                        archive = SourceArchive.open(request.getInputStream());
+                    } catch (IOException e) {
+                        writeError(request, response, HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+                        return;
+                    }
+                    streamBatch(request, response, archive, selected, running);
+                } catch (IOException e) {
+                    log("Could not write batch response", e);
+                } catch (RuntimeException e) {
+                    log("Batch failed", e);
+                } finally {
+                    if (completed.compareAndSet(false, true)) {
+                        async.complete();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            completed.set(true);
+            response.setHeader("Retry-After", "5");
+            try {
+                writeError(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many batches running, retry later");
+            } finally {
+                async.complete();
+            }
+        }
+    }
+
+    private void streamBatch(HttpServletRequest request, HttpServletResponse response, SourceArchive archive,
+                             CodeAnalyzer selected, AtomicReference<BatchAnalyzer.Run> running) throws IOException {
+        response.setContentType("application/x-ndjson");
+        try (JsonWriter json = openJson(request, response)) {
+            BatchAnalyzer.Run run = new BatchAnalyzer(selected, batchPool, 4 * batchParallelism).startQueued(result -> {
+                json.beginObject().name("file").value(result.getName());
+                if (result.isFailed()) {
+                    json.name("error").value(result.getError());
+                }
+                json.name("issueCount").value(result.getIssues().size()).name("issues").beginArray();
+                for (Issue issue : result.getIssues()) {
+                    json.issue(issue);
+                }
+                json.endArray().endObject().newline().flush();
+            });
+            running.set(run);
+
+            String failure = null;
+            try {
+                while (!run.isAborted() && archive.next()) {
+                    String name = archive.name();
+                    if (!name.endsWith(".java")) {
+                        continue;
+                    }
+                    SourceView source;
+                    try {
+                        source = SourceFiles.read(archive.stream(), archive.size(), maxFileBytes);
+                    } catch (SourceTooLargeException e) {
+                        run.submit(name, () -> {
+                            throw e;
+                        });
+                        continue;
+                    }
+                    run.submit(name, () -> source);
+                }
+            } catch (IOException e) {
+                // A broken archive ends the batch; results so far are already sent.
+                failure = e.getMessage();
+            } catch (RuntimeException e) {
+                run.cancel();
+                run.finish();
+                throw e;
+            }
+
+            BatchSummary summary = run.finish();
+            if (failure != null) {
+                json.beginObject().name("error").value(failure).endObject().newline();
+            }
+            json.beginObject().name("summary").beginObject()
+                    .name("files").value(summary.getFileCount())
+                    .name("failed").value(summary.getFailedCount())
+                    .name("issues").value(summary.getIssueCount())
+                    .name("elapsedMillis").value(summary.getElapsedMillis())
+                    .endObject().endObject().newline();
+        }
+    }
+
+    private void writeIssues(HttpServletRequest request, HttpServletResponse response, List<Issue> issues)
+            throws IOException {
+        try (JsonWriter json = openJson(request, response)) {
+            json.beginObject()
+                    .name("issueCount").value(issues.size())
+                    .name("issues").beginArray();
+            for (int i = 0; i < issues.size(); i++) {
+                json.issue(issues.get(i));
+            }
+            json.endArray().endObject();
+        }
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, int status, String message)
+            throws IOException {
+        response.setStatus(status);
+        try (JsonWriter json = openJson(request, response)) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    /*
+     * Opens the response body as JSON, gzip-compressed if the client accepts it.
+     */
+    private JsonWriter openJson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader("Vary", "Accept-Encoding");
+        String accept = request.getHeader("Accept-Encoding");
+        if (gzip && accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            return JsonWriter.gzip(response.getOutputStream());
+        }
+        return new JsonWriter(response.getOutputStream());
     }
 
     /*
      * Handles GET requests and shows usage info.
+     * GET /analyze?metrics returns executor and per-rule metrics as JSON.
+     * GET /analyze/check?sha256=... looks up a cached result by hash only.
      */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
+        String path = request.getPathInfo();
+        if ("/check".equals(path)) {
+            check(request, response);
+            return;
+        }
+        if (path != null && !"/".equals(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (request.getParameter("metrics") != null) {
+            writeMetrics(request, response);
+            return;
+        }
+
         response.setContentType("text/html");
         PrintWriter out = response.getWriter();
 
         out.println("<html><body>");
         out.println("<h2>CodeFixer AI – Servlet API</h2>");
         out.println("<p>Send a POST request to <b>/analyze</b> with parameter <b>code</b>.</p>");
+        out.println("<p>Or POST the source itself with Content-Type <b>text/x-java</b>.</p>");
+        out.println("<p>POST a zip or tar archive to <b>/analyze/batch</b> for one JSON line per file.</p>");
+        out.println("<p>GET <b>/analyze/check?sha256=</b>&lt;hash of the source&gt; returns a cached result, if any.</p>");
+        out.println("<p>Optional parameter <b>rules</b> selects rules: "
+                + String.join(", ", registry.getRuleIds()) + "</p>");
         out.println("</body></html>");
     }
-}
\ No newline at end of file
+
+    /*
+     * Hash-only lookup: the client sends the SHA-256 of its source (and the
+     * same "rules" it would post with) and gets the cached result, 304 if
+     * its If-None-Match already names it, or 404 if the source has to be
+     * posted after all. The tags match the ETags from POST /analyze.
+     */
+    private void check(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String sha256 = request.getParameter("sha256");
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            writeError(request, response, HttpServletResponse.SC_BAD_REQUEST, "Parameter sha256 must be 64 hex digits");
+            return;
+        }
+        CodeAnalyzer selected = selectAnalyzer(request, response);
+        if (selected == null) {
+            return;
+        }
+
+        String key = AnalysisCache.digestKeyFor(selected, sha256);
+        String etag = '"' + key + '"';
+        // The lookup may read the disk tier, so it runs on the executor.
+        dispatch(request, response, exchange -> {
+            if (!answerFromCache(exchange, key, etag)) {
+                exchange.error(HttpServletResponse.SC_NOT_FOUND, "Not cached, POST the source to /analyze");
+            }
+        });
+    }
+
+    private void writeMetrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonWriter json = openJson(request, response)) {
+            json.beginObject().name("executor").beginObject()
+                    .name("threads").value(executor.getThreads())
+                    .name("virtualThreads").value(executor.isVirtualThreads())
+                    .name("active").value(executor.getActiveCount())
+                    .name("queueDepth").value(executor.getQueueDepth())
+                    .name("queueCapacity").value(executor.getQueueCapacity())
+                    .name("completed").value(executor.getCompletedCount())
+                    .name("rejected").value(executor.getRejectedCount())
+                    .name("failed").value(executor.getFailedCount())
+                    .name("meanQueueMillis").value(executor.getMeanQueueMillis())
+                    .name("p99QueueMillis").value(executor.getP99QueueMillis())
+                    .name("meanRunMillis").value(executor.getMeanRunMillis())
+                    .name("p99RunMillis").value(executor.getP99RunMillis())
+                    .endObject();
+            if (cache != null) {
+                json.name("resultCache").beginObject()
+                        .name("entries").value(cache.size())
+                        .name("hits").value(cache.getHitCount())
+                        .name("misses").value(cache.getMissCount())
+                        .name("evictions").value(cache.getEvictionCount())
+                        .endObject();
+            }
+            metrics.writeJson(json);
+            json.endObject();
+        }
+    }
+}
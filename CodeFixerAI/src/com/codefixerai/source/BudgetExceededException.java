@@ -0,0 +1,18 @@
+package com.codefixerai.source;
+
+/**
+ * Thrown by Deadline checks once the running rule is out of time.
+ *
+ * CodeAnalyzer catches it and reports the rule as skipped; rules should let
+ * it propagate. No stack trace is captured, since it is expected control
+ * flow rather than a failure.
+ */
+
+public class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExceededException() {
+        super("budget exceeded", null, false, false);
+    }
+}
@@ -0,0 +1,143 @@
+package com.codefixerai.source;
+
+/**
+ * Time limit for the rule running on the current thread, checked cooperatively.
+ *
+ * CodeAnalyzer installs a deadline around a rule with enter() and removes it
+ * with exit(). Long-running code polls it:
+ * - VisitorDriver and LineLocalRule between blocks of lines;
+ * - the lazily built token, keyword, identifier and structure indexes;
+ * - the main loops of rules that scan every candidate line themselves;
+ * - SourceView.chars(), whose CharSequence checks the clock every few
+ *   thousand charAt calls, so a regex that backtracks over a huge line is
+ *   stopped as well.
+ *
+ * Once the deadline has passed, the next check throws
+ * BudgetExceededException. Without a deadline on the thread every check is
+ * a no-op.
+ */
+
+public final class Deadline {
+
+    // charAt calls between two clock reads of a guarded CharSequence.
+    private static final int CHARS_PER_CHECK = 4096;
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long nanos;
+
+    private Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Installs a deadline on the current thread.
+     *
+     * @param deadlineNanos System.nanoTime() value after which checks fail.
+     * @return The deadline it replaces, to pass to exit().
+     */
+
+    public static Deadline enter(long deadlineNanos) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(new Deadline(deadlineNanos));
+        return previous;
+    }
+
+    /**
+     * Restores the deadline that was active before the matching enter().
+     */
+
+    public static void exit(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Returns the deadline of the current thread, or null if there is none.
+     * Hot loops fetch it once and call check() on the result.
+     */
+
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Throws BudgetExceededException if the current thread's deadline has passed.
+     */
+
+    public static void checkCurrent() {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    /**
+     * Throws BudgetExceededException if this deadline has passed.
+     */
+
+    public void check() {
+        if (System.nanoTime() - nanos > 0) {
+            throw new BudgetExceededException();
+        }
+    }
+
+    /**
+     * Returns a CharSequence over the chars that checks the current thread's
+     * deadline while it is read, or null if the thread has no deadline.
+     */
+
+    static CharSequence guard(char[] chars, int length) {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? new GuardedChars(chars, 0, length, deadline) : null;
+    }
+
+    private static final class GuardedChars implements CharSequence {
+
+        private final char[] chars;
+        private final int offset;
+        private final int length;
+        private final Deadline deadline;
+        private int countdown = CHARS_PER_CHECK;
+
+        GuardedChars(char[] chars, int offset, int length, Deadline deadline) {
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (--countdown < 0) {
+                countdown = CHARS_PER_CHECK;
+                deadline.check();
+            }
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+            }
+            return chars[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range: " + start + ".." + end + ", Length: " + length);
+            }
+            return new GuardedChars(chars, offset + start, end - start, deadline);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, offset, length);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.codefixerai.source;
+
+/**
+ * Counts how often every identifier occurs in the code of a source.
+ *
+ * Built in one pass over the characters that are neither comment nor
+ * literal. Identifiers are stored as spans of the source in an
+ * open-addressing hash table (a multiset), so building the index allocates
+ * no String per token and looking a name up takes constant time.
+ *
+ * Matching is by whole identifier: "i" does not match inside "if".
+ */
+
+public final class IdentifierIndex {
+
+    private final SourceView source;
+
+    // Open-addressing table; a slot is empty while its length is 0.
+    private int[] hashes;
+    private int[] starts;
+    private int[] lengths;
+    private int[] counts;
+    private int size;
+
+    IdentifierIndex(SourceView source) {
+        this.source = source;
+        allocate(256);
+
+        int length = source.length();
+        Deadline deadline = Deadline.current();
+        int untilCheck = 4096;
+        int i = 0;
+        while (i < length) {
+            if (deadline != null && --untilCheck < 0) {
+                untilCheck = 4096;
+                deadline.check();
+            }
+            char c = source.charAt(i);
+            if (!source.isCode(i)) {
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                int hash = 0;
+                while (i < length && source.isCode(i) && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    hash = 31 * hash + source.charAt(i);
+                    i++;
+                }
+                add(hash, start, i - start);
+            } else if (c >= '0' && c <= '9') {
+                // Numeric literal such as 0x1F or 10L: not an identifier.
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) i++;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Returns how often the identifier occurs in code.
+     */
+
+    public int count(String name) {
+        int slot = find(name);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    /**
+     * Returns how often the identifier occurs in the code of one line.
+     */
+
+    public int countOnLine(String name, int line) {
+        int n = 0;
+        int end = source.lineEnd(line);
+        int i = source.lineStart(line);
+        while (i < end) {
+            if (source.isCode(i) && Character.isJavaIdentifierPart(source.charAt(i))) {
+                int start = i;
+                while (i < end && source.isCode(i) && Character.isJavaIdentifierPart(source.charAt(i))) i++;
+                if (i - start == name.length() && source.regionMatches(start, name)
+                        && Character.isJavaIdentifierStart(source.charAt(start))) {
+                    n++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of distinct identifiers.
+     */
+
+    public int size() {
+        return size;
+    }
+
+    private int find(String name) {
+        int hash = name.hashCode();
+        int mask = hashes.length - 1;
+        for (int slot = mix(hash) & mask; lengths[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && lengths[slot] == name.length()
+                    && source.regionMatches(starts[slot], name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void add(int hash, int start, int length) {
+        int mask = hashes.length - 1;
+        int slot = mix(hash) & mask;
+        while (lengths[slot] != 0) {
+            if (hashes[slot] == hash && lengths[slot] == length && sameSpan(starts[slot], start, length)) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        starts[slot] = start;
+        lengths[slot] = length;
+        counts[slot] = 1;
+        if (++size * 2 > hashes.length) {
+            rehash();
+        }
+    }
+
+    private boolean sameSpan(int a, int b, int length) {
+        for (int k = 0; k < length; k++) {
+            if (source.charAt(a + k) != source.charAt(b + k)) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] oldHashes = hashes;
+        int[] oldStarts = starts;
+        int[] oldLengths = lengths;
+        int[] oldCounts = counts;
+        allocate(oldHashes.length * 2);
+
+        int mask = hashes.length - 1;
+        for (int k = 0; k < oldHashes.length; k++) {
+            if (oldLengths[k] == 0) continue;
+            int slot = mix(oldHashes[k]) & mask;
+            while (lengths[slot] != 0) slot = (slot + 1) & mask;
+            hashes[slot] = oldHashes[k];
+            starts[slot] = oldStarts[k];
+            lengths[slot] = oldLengths[k];
+            counts[slot] = oldCounts[k];
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Spreads String.hashCode values, whose low bits are weak for short names.
+     */
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,71 @@
+package com.codefixerai.source;
+
+/**
+ * Fixed strings the rules use to pick candidate lines.
+ *
+ * Includes Java keywords, operators, braces and a few library type names.
+ * KeywordIndex finds all of them in a single pass over the source and keeps
+ * one bit per keyword per line, so there can be at most 64 entries.
+ */
+
+public enum Keyword {
+    CATCH("catch"),
+    TODO("TODO"),
+    IF("if"),
+    FOR("for"),
+    WHILE("while"),
+    SWITCH("switch"),
+    DEFAULT("default"),
+    TRUE("true"),
+    FALSE("false"),
+    NEW("new"),
+    EQUALS("=="),
+    LESS_EQUAL("<="),
+    PLUS_ASSIGN("+="),
+    OPEN_BRACE("{"),
+    CLOSE_BRACE("}"),
+    STRING("String"),
+    INT("int"),
+    LONG("long"),
+    DOUBLE("double"),
+    FLOAT("float"),
+    CHAR("char"),
+    BOOLEAN("boolean"),
+    SCANNER("Scanner"),
+    FILE_INPUT_STREAM("FileInputStream"),
+    FILE_READER("FileReader"),
+    BUFFERED_READER("BufferedReader"),
+    INPUT_STREAM_READER("InputStreamReader");
+
+    private final String text;
+    private final long bit;
+
+    Keyword(String text) {
+        this.text = text;
+        this.bit = 1L << ordinal();
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Bit of this keyword in a KeywordIndex line mask.
+     */
+
+    public long bit() {
+        return bit;
+    }
+
+    /**
+     * Combines keywords into a single mask.
+     */
+
+    public static long maskOf(Keyword... keywords) {
+        long mask = 0;
+        for (Keyword keyword : keywords) {
+            mask |= keyword.bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,158 @@
+package com.codefixerai.source;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Records which lines of a source contain which Keywords.
+ *
+ * All keywords are matched at once with an Aho-Corasick automaton, so the
+ * source is scanned a single time no matter how many keywords or rules
+ * there are. Rules then only look at candidate lines; on large files most
+ * lines contain no keyword at all.
+ *
+ * Matches are purely textual (e.g. "int" also matches inside "print"), so
+ * rules still verify a candidate line with their own, stricter check.
+ */
+
+public final class KeywordIndex {
+
+    private static final int ALPHABET = 128;
+
+    // Automaton shared by all indexes: goto table (with failure links folded in)
+    // and the keyword mask emitted when a state is reached.
+    private static final int[][] GOTO;
+    private static final long[] OUTPUT;
+
+    static {
+        Keyword[] keywords = Keyword.values();
+        int maxStates = 1;
+        for (Keyword keyword : keywords) {
+            maxStates += keyword.text().length();
+        }
+
+        int[][] next = new int[maxStates][];
+        long[] output = new long[maxStates];
+        int[] fail = new int[maxStates];
+        next[0] = new int[ALPHABET];
+        Arrays.fill(next[0], -1);
+        int states = 1;
+
+        // 1) Build the trie.
+        for (Keyword keyword : keywords) {
+            int state = 0;
+            String text = keyword.text();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (next[state][c] < 0) {
+                    next[states] = new int[ALPHABET];
+                    Arrays.fill(next[states], -1);
+                    next[state][c] = states++;
+                }
+                state = next[state][c];
+            }
+            output[state] |= keyword.bit();
+        }
+
+        // 2) Breadth-first pass: failure links, inherited outputs, full transition table.
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (next[0][c] < 0) {
+                next[0][c] = 0;
+            } else {
+                fail[next[0][c]] = 0;
+                queue.add(next[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            output[state] |= output[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = next[state][c];
+                if (child < 0) {
+                    next[state][c] = next[fail[state]][c];
+                } else {
+                    fail[child] = next[fail[state]][c];
+                    queue.add(child);
+                }
+            }
+        }
+
+        GOTO = Arrays.copyOf(next, states);
+        OUTPUT = Arrays.copyOf(output, states);
+    }
+
+    private final long[] lineMasks;
+
+    KeywordIndex(SourceView source) {
+        int lineCount = source.lineCount();
+        lineMasks = new long[lineCount];
+        Deadline deadline = Deadline.current();
+
+        for (int line = 0; line < lineCount; line++) {
+            if (deadline != null && (line & 255) == 0) {
+                deadline.check();
+            }
+            int state = 0;
+            long mask = 0;
+            int end = source.lineEnd(line);
+            for (int i = source.lineStart(line); i < end; i++) {
+                char c = source.charAt(i);
+                // No keyword contains non-ASCII characters.
+                state = c < ALPHABET ? GOTO[state][c] : 0;
+                mask |= OUTPUT[state];
+            }
+            lineMasks[line] = mask;
+        }
+    }
+
+    /**
+     * Returns the keyword bits found on the line.
+     */
+
+    public long mask(int line) {
+        return lineMasks[line];
+    }
+
+    /**
+     * Returns true if the line contains the keyword.
+     */
+
+    public boolean has(int line, Keyword keyword) {
+        return (lineMasks[line] & keyword.bit()) != 0;
+    }
+
+    /**
+     * Returns true if the line contains every keyword in the mask.
+     */
+
+    public boolean hasAll(int line, long mask) {
+        return (lineMasks[line] & mask) == mask;
+    }
+
+    /**
+     * Finds the next line at or after {@code fromLine} containing any keyword of the mask.
+     *
+     * @return The 0-based line index, or -1 if there is none.
+     */
+
+    public int nextLine(int fromLine, long mask) {
+        return nextLine(fromLine, lineMasks.length, mask);
+    }
+
+    /**
+     * Finds the next line in [fromLine, toLine) containing any keyword of the mask.
+     *
+     * @return The 0-based line index, or -1 if there is none.
+     */
+
+    public int nextLine(int fromLine, int toLine, long mask) {
+        for (int line = fromLine; line < toLine; line++) {
+            if ((lineMasks[line] & mask) != 0) {
+                return line;
+            }
+        }
+        return -1;
+    }
+}
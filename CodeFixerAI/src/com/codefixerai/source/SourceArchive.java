@@ -0,0 +1,355 @@
+package com.codefixerai.source;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the files of a zip, tar or gzip-compressed tar archive one after
+ * another from a stream, e.g. an HTTP upload.
+ *
+ * The format is detected from the first bytes, not from a file name or
+ * content type. Entries are read strictly in order and nothing is written
+ * to disk or held beyond the current entry: next() skips whatever is left
+ * of the previous one. Directories, links and other special entries are
+ * skipped; only regular files are returned.
+ *
+ * Tar support covers ustar and GNU archives, including long names (GNU 'L'
+ * entries and pax "path" records) and base-256 sizes.
+ *
+ *   SourceArchive archive = SourceArchive.open(in);
+ *   while (archive.next()) {
+ *       SourceView source = SourceFiles.read(archive.stream(), archive.size(), limit);
+ *   }
+ *
+ * Not thread-safe.
+ */
+
+public final class SourceArchive {
+
+    private static final int BLOCK = 512;
+
+    private final ZipInputStream zip;
+    private final InputStream tar;
+
+    private String name;
+    private long size;
+
+    // Tar only: unread bytes of the current entry and its padding.
+    private long remaining;
+    private long padding;
+
+    private SourceArchive(ZipInputStream zip, InputStream tar) {
+        this.zip = zip;
+        this.tar = tar;
+    }
+
+    /**
+     * Detects the archive format and prepares to read the first entry.
+     *
+     * @throws IOException If the stream is not a zip, tar or tar.gz archive.
+     */
+
+    public static SourceArchive open(InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, 8192);
+        buffered.mark(4);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        buffered.reset();
+        if (b0 == 'P' && b1 == 'K') {
+            return new SourceArchive(new ZipInputStream(buffered, StandardCharsets.UTF_8), null);
+        }
+        InputStream tar = b0 == 0x1F && b1 == 0x8B
+                ? new BufferedInputStream(new GZIPInputStream(buffered, 8192), 8192)
+                : buffered;
+        checkTarHeader(tar);
+        return new SourceArchive(null, tar);
+    }
+
+    // Rejects anything whose first block is not a tar header, before any entry is read.
+    private static void checkTarHeader(InputStream tar) throws IOException {
+        byte[] header = new byte[BLOCK];
+        tar.mark(BLOCK);
+        int read = 0;
+        int n;
+        while (read < BLOCK && (n = tar.read(header, read, BLOCK - read)) > 0) {
+            read += n;
+        }
+        tar.reset();
+        if (read < BLOCK) {
+            throw new IOException("Not a zip or tar archive");
+        }
+        if (!isZeroBlock(header)) {
+            verifyChecksum(header);
+        }
+    }
+
+    /**
+     * Moves to the next regular file.
+     *
+     * @return false at the end of the archive.
+     */
+
+    public boolean next() throws IOException {
+        return zip != null ? nextZip() : nextTar();
+    }
+
+    /**
+     * Returns the path of the current entry inside the archive.
+     */
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the size of the current entry in bytes, or -1 if the archive does not say.
+     */
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the contents of the current entry. Closing it has no effect on
+     * the archive; the stream ends with the entry.
+     */
+
+    public InputStream stream() {
+        return zip != null ? new EntryStream(zip) : new TarEntryStream(tar);
+    }
+
+    // ----- Zip -----
+
+    private boolean nextZip() throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory()) {
+                name = entry.getName();
+                size = entry.getSize();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ----- Tar -----
+
+    private boolean nextTar() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+
+        byte[] header = new byte[BLOCK];
+        String longName = null;
+        while (true) {
+            if (!readBlock(header)) {
+                return false;
+            }
+            if (isZeroBlock(header)) {
+                return false; // end-of-archive marker
+            }
+            verifyChecksum(header);
+
+            long entrySize = parseSize(header, 124, 12);
+            char type = (char) header[156];
+            if (type == 'L' || type == 'x') {
+                byte[] data = readData(entrySize);
+                longName = type == 'L' ? cString(data, 0, data.length) : paxPath(data, longName);
+                continue;
+            }
+
+            remaining = entrySize;
+            padding = (BLOCK - entrySize % BLOCK) % BLOCK;
+            if (type != '0' && type != '\0' && type != '7') {
+                // Directory, link, device or unsupported extension: skip its data.
+                skipFully(remaining + padding);
+                remaining = 0;
+                padding = 0;
+                longName = null;
+                continue;
+            }
+
+            name = longName != null ? longName : headerName(header);
+            size = entrySize;
+            return true;
+        }
+    }
+
+    private static String headerName(byte[] header) {
+        String base = cString(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        String prefix = ustar ? cString(header, 345, 155) : "";
+        return prefix.isEmpty() ? base : prefix + "/" + base;
+    }
+
+    // Pax records are "<length> <key>=<value>\n"; only the path matters here.
+    private static String paxPath(byte[] data, String current) {
+        String records = new String(data, StandardCharsets.UTF_8);
+        int pos = 0;
+        while (pos < records.length()) {
+            int space = records.indexOf(' ', pos);
+            int end = records.indexOf('\n', pos);
+            if (space < 0 || end < 0) break;
+            String record = records.substring(space + 1, end);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            pos = end + 1;
+        }
+        return current;
+    }
+
+    private static String cString(byte[] bytes, int offset, int max) {
+        int end = offset;
+        while (end < offset + max && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long parseSize(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            // GNU base-256 encoding for sizes of 8 GB and more.
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) break;
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Corrupt tar header: invalid size");
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static void verifyChecksum(byte[] header) throws IOException {
+        long expected = parseSize(header, 148, 8);
+        long sum = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xFF);
+        }
+        if (sum != expected) {
+            throw new IOException("Not a zip or tar archive (bad tar header checksum)");
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean readBlock(byte[] block) throws IOException {
+        int read = 0;
+        while (read < BLOCK) {
+            int n = tar.read(block, read, BLOCK - read);
+            if (n < 0) {
+                if (read == 0) return false; // archives may omit the end marker
+                throw new EOFException("Truncated tar archive");
+            }
+            read += n;
+        }
+        return true;
+    }
+
+    private byte[] readData(long length) throws IOException {
+        if (length > 1 << 20) {
+            throw new IOException("Tar name record too large: " + length + " bytes");
+        }
+        byte[] data = new byte[(int) length];
+        int read = 0;
+        while (read < data.length) {
+            int n = tar.read(data, read, data.length - read);
+            if (n < 0) throw new EOFException("Truncated tar archive");
+            read += n;
+        }
+        skipFully((BLOCK - length % BLOCK) % BLOCK);
+        return data;
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            long skipped = tar.skip(count);
+            if (skipped <= 0) {
+                if (tar.read() < 0) throw new EOFException("Truncated tar archive");
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    // ----- Entry streams -----
+
+    // Shields the archive stream from close() by the entry's reader.
+    private static class EntryStream extends FilterInputStream {
+
+        EntryStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Stops at the end of the current tar entry.
+    private final class TarEntryStream extends EntryStream {
+
+        TarEntryStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated tar archive");
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) throw new EOFException("Truncated tar archive");
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
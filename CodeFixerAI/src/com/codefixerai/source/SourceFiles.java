@@ -0,0 +1,226 @@
+package com.codefixerai.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Loads source files into SourceViews without intermediate byte[] or
+ * String copies.
+ *
+ * Files of at least MAP_THRESHOLD bytes are memory-mapped with
+ * FileChannel.map and decoded straight from the mapping. Smaller files,
+ * where setting up a mapping costs more than it saves, are read into a
+ * direct buffer taken from a small pool. Either way the bytes are decoded
+ * as UTF-8 into one char[] that becomes the SourceView's backing array.
+ *
+ * Streams (uploads, archive entries) are decoded chunk by chunk straight
+ * into the growing char[], without collecting the bytes first.
+ *
+ * Malformed input is replaced with U+FFFD, exactly like
+ * new String(bytes, StandardCharsets.UTF_8), so results do not change
+ * compared to reading the file into a String first. Safe to call from
+ * several threads.
+ */
+
+public final class SourceFiles {
+
+    /**
+     * Files of at least this many bytes are memory-mapped.
+     */
+    public static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final int STREAM_CHUNK = 8192;
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final ThreadLocal<CharsetDecoder> DECODER = ThreadLocal.withInitial(() ->
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private SourceFiles() {
+    }
+
+    /**
+     * Reads a UTF-8 source file into a SourceView.
+     *
+     * @param file Path of the file.
+     * @return A new SourceView over the decoded file contents.
+     * @throws IOException If the file cannot be read or exceeds 2 GB.
+     */
+
+    public static SourceView read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                return map(file, channel, size);
+            }
+
+            ByteBuffer buffer = acquire();
+            try {
+                // The buffer is larger than the file was when its size was taken.
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) break;
+                }
+                if (buffer.hasRemaining() || channel.size() <= buffer.position()) {
+                    buffer.flip();
+                    return decode(buffer, buffer.remaining());
+                }
+            } finally {
+                release(buffer);
+            }
+            // The file grew past the buffer while it was read: map all of it.
+            return map(file, channel, channel.size());
+        }
+    }
+
+    private static SourceView map(Path file, FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException(file + " is too large to analyze (" + size + " bytes)");
+        }
+        // The mapping is released by the GC once the buffer is unreachable.
+        return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), (int) size);
+    }
+
+    /**
+     * Reads a UTF-8 stream into a SourceView. The stream is read to its end
+     * but not closed.
+     *
+     * @param in       Stream to read.
+     * @param sizeHint Expected number of bytes, or -1 if unknown; only sizes the first buffer.
+     * @param maxBytes Largest number of bytes accepted.
+     * @throws SourceTooLargeException As soon as more than maxBytes bytes have been read.
+     */
+
+    public static SourceView read(InputStream in, long sizeHint, long maxBytes) throws IOException {
+        int capacity = (int) Math.max(STREAM_CHUNK, Math.min(sizeHint, Math.min(maxBytes, Integer.MAX_VALUE - 8)));
+        char[] chars = new char[capacity];
+        CharBuffer out = CharBuffer.wrap(chars);
+        byte[] chunk = new byte[STREAM_CHUNK];
+        ByteBuffer bytes = ByteBuffer.wrap(chunk);
+        CharsetDecoder decoder = DECODER.get().reset();
+        long total = 0;
+
+        while (true) {
+            int n = in.read(chunk, bytes.position(), chunk.length - bytes.position());
+            if (n < 0) break;
+            total += n;
+            if (total > maxBytes) {
+                throw new SourceTooLargeException(maxBytes);
+            }
+            bytes.position(bytes.position() + n);
+            bytes.flip();
+            out = decodeInto(decoder, bytes, out, false);
+            bytes.compact();
+        }
+        bytes.flip();
+        out = decodeInto(decoder, bytes, out, true);
+        CoderResult result;
+        while ((result = decoder.flush(out)).isOverflow()) {
+            out = grow(out);
+        }
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return SourceView.of(out.array(), out.position());
+    }
+
+    // Decodes as much as possible, doubling the char[] whenever it fills.
+    private static CharBuffer decodeInto(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer out, boolean endOfInput)
+            throws CharacterCodingException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, out, endOfInput);
+            if (result.isOverflow()) {
+                out = grow(out);
+            } else if (result.isUnderflow()) {
+                return out;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private static CharBuffer grow(CharBuffer out) throws CharacterCodingException {
+        int length = out.position();
+        if (length >= Integer.MAX_VALUE - 8) {
+            throw new CharacterCodingException();
+        }
+        char[] larger = Arrays.copyOf(out.array(), (int) Math.min(Integer.MAX_VALUE - 8, 2L * out.capacity()));
+        CharBuffer grown = CharBuffer.wrap(larger);
+        grown.position(length);
+        return grown;
+    }
+
+    /**
+     * Decodes the remaining bytes into a fresh char[] backing a SourceView.
+     * UTF-8 never yields more chars than bytes, so the array never grows.
+     *
+     * The leading ASCII run, usually the whole of a Java file, is widened
+     * directly, eight bytes per check; CharsetDecoder takes over at the first
+     * non-ASCII byte, since its fast paths only apply to heap buffers.
+     */
+
+    private static SourceView decode(ByteBuffer bytes, int size) throws CharacterCodingException {
+        char[] chars = new char[size];
+        int start = bytes.position();
+        int limit = bytes.limit();
+        int i = start;
+        while (i + 8 <= limit && (bytes.getLong(i) & 0x8080808080808080L) == 0) {
+            for (int k = 0; k < 8; k++) {
+                chars[i - start + k] = (char) bytes.get(i + k);
+            }
+            i += 8;
+        }
+        while (i < limit && bytes.get(i) >= 0) {
+            chars[i - start] = (char) bytes.get(i);
+            i++;
+        }
+        if (i == limit) {
+            return SourceView.of(chars, i - start);
+        }
+
+        bytes.position(i);
+        CharBuffer out = CharBuffer.wrap(chars);
+        out.position(i - start);
+        CharsetDecoder decoder = DECODER.get().reset();
+
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(out);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return SourceView.of(chars, out.position());
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(MAP_THRESHOLD);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        // Dropped when the pool is full; the GC frees it.
+        BUFFERS.offer(buffer);
+    }
+}
@@ -0,0 +1,29 @@
+package com.codefixerai.source;
+
+import java.io.IOException;
+
+/**
+ * Thrown by SourceFiles.read(InputStream, ...) when a stream holds more
+ * bytes than the caller allows. Reading stops at the limit, so an oversized
+ * upload never ends up in memory.
+ */
+
+public class SourceTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long limit;
+
+    public SourceTooLargeException(long limit) {
+        super("source exceeds " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the byte limit that was exceeded.
+     */
+
+    public long getLimit() {
+        return limit;
+    }
+}
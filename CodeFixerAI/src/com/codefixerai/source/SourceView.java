@@ -0,0 +1,578 @@
+package com.codefixerai.source;
+
+import java.nio.CharBuffer;
+import java.util.BitSet;
+
+/**
+ * Immutable, pre-parsed view of a Java source file.
+ *
+ * A SourceView is built once per analysis and shared by every rule, so the
+ * source is only split and scanned a single time. It provides:
+ * - Line offsets (start/end of every line, without the line terminator).
+ * - Trimmed spans (the same bounds String.trim() would produce).
+ * - Comment and string-literal masks for every character.
+ * - A KeywordIndex of candidate lines, an IdentifierIndex of identifier
+ *   occurrences, a TokenStream and a Structure (block tree), all built
+ *   lazily on first use.
+ *
+ * Rules read spans through the accessor methods instead of allocating
+ * new Strings for every line. Line indexes are 0-based; issue line numbers
+ * remain 1-based as before.
+ */
+
+public final class SourceView {
+
+    private final char[] chars;
+    private final int length;
+    private final int initialState;
+    private String text;
+
+    private final int lineCount;
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final int[] trimStarts;
+    private final int[] trimEnds;
+
+    private final BitSet commentMask;
+    private final BitSet literalMask;
+
+    private volatile KeywordIndex keywords;
+    private volatile IdentifierIndex identifiers;
+    private volatile TokenStream tokens;
+    private volatile Structure structure;
+
+    private SourceView(char[] chars, int length, String text, int initialState) {
+        this.chars = chars;
+        this.length = length;
+        this.initialState = initialState;
+        this.text = text;
+
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+        int lineStart = 0;
+        boolean terminated = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (isLineTerminator(c)) {
+                if (count == starts.length) {
+                    starts = grow(starts);
+                    ends = grow(ends);
+                }
+                starts[count] = lineStart;
+                ends[count] = i;
+                count++;
+                if (c == '\r' && i + 1 < length && chars[i + 1] == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+                terminated = true;
+            }
+        }
+        if (count == starts.length) {
+            starts = grow(starts);
+            ends = grow(ends);
+        }
+        starts[count] = lineStart;
+        ends[count] = length;
+        count++;
+
+        // Match String.split("\\R"): trailing empty lines are dropped
+        // whenever at least one line terminator was present.
+        if (terminated) {
+            while (count > 0 && starts[count - 1] == ends[count - 1]) {
+                count--;
+            }
+        }
+
+        this.lineCount = count;
+        this.lineStarts = starts;
+        this.lineEnds = ends;
+        this.trimStarts = new int[count];
+        this.trimEnds = new int[count];
+
+        for (int line = 0; line < count; line++) {
+            int s = starts[line];
+            int e = ends[line];
+            while (s < e && chars[s] <= ' ') s++;
+            while (e > s && chars[e - 1] <= ' ') e--;
+            trimStarts[line] = s;
+            trimEnds[line] = e;
+        }
+
+        this.commentMask = new BitSet(length);
+        this.literalMask = new BitSet(length);
+        buildMasks();
+    }
+
+    /**
+     * Builds a view over the given source string.
+     *
+     * @param sourceCode Raw Java source as a String.
+     * @return A new SourceView sharing nothing mutable with the caller.
+     */
+
+    public static SourceView of(String sourceCode) {
+        return new SourceView(sourceCode.toCharArray(), sourceCode.length(), sourceCode, STATE_CODE);
+    }
+
+    /**
+     * Builds a view over the first {@code length} characters of the given array.
+     * The array is not copied and must not be modified afterwards.
+     *
+     * @param chars  Decoded source characters.
+     * @param length Number of valid characters in the array.
+     * @return A new SourceView backed by the array.
+     */
+
+    public static SourceView of(char[] chars, int length) {
+        return of(chars, length, STATE_CODE);
+    }
+
+    /**
+     * Builds a view over one chunk of a larger source that starts in the
+     * given lexical state, e.g. the stateAtEnd() of the previous chunk.
+     * Used by streaming analysis, which never holds the whole file.
+     *
+     * @param chars        Decoded source characters.
+     * @param length       Number of valid characters in the array.
+     * @param initialState STATE_CODE, STATE_COMMENT or STATE_LITERAL.
+     * @return A new SourceView backed by the array.
+     */
+
+    public static SourceView of(char[] chars, int length, int initialState) {
+        if (length < 0 || length > chars.length) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        if (initialState < STATE_CODE || initialState > STATE_LITERAL) {
+            throw new IllegalArgumentException("Invalid lexical state: " + initialState);
+        }
+        return new SourceView(chars, length, null, initialState);
+    }
+
+    // ----- Text access -----
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int offset) {
+        return chars[offset];
+    }
+
+    /**
+     * Returns the whole source as a String. Only used by the compatibility
+     * path for rules that still implement apply(String).
+     */
+
+    public String text() {
+        if (text == null) {
+            text = new String(chars, 0, length);
+        }
+        return text;
+    }
+
+    /**
+     * Returns a read-only CharSequence over the source without copying it,
+     * suitable for Matcher.region(...) based regex matching.
+     *
+     * When the calling thread runs under a Deadline, the sequence checks it
+     * while it is read, so a runaway match is cancelled.
+     */
+
+    public CharSequence chars() {
+        CharSequence guarded = Deadline.guard(chars, length);
+        if (guarded != null) {
+            return guarded;
+        }
+        return CharBuffer.wrap(chars, 0, length).asReadOnlyBuffer();
+    }
+
+    // ----- Line spans -----
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    public int lineEnd(int line) {
+        return lineEnds[line];
+    }
+
+    public int trimStart(int line) {
+        return trimStarts[line];
+    }
+
+    public int trimEnd(int line) {
+        return trimEnds[line];
+    }
+
+    public boolean isBlank(int line) {
+        return trimStarts[line] == trimEnds[line];
+    }
+
+    /**
+     * Returns the 0-based line index that contains the given offset.
+     */
+
+    public int lineOf(int offset) {
+        int lo = 0;
+        int hi = lineCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lineStarts[mid] <= offset) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Allocates the raw text of a line. Prefer the span methods in hot loops.
+     */
+
+    public String line(int line) {
+        return new String(chars, lineStarts[line], lineEnds[line] - lineStarts[line]);
+    }
+
+    /**
+     * Allocates the trimmed text of a line. Prefer the span methods in hot loops.
+     */
+
+    public String trimmedLine(int line) {
+        return new String(chars, trimStarts[line], trimEnds[line] - trimStarts[line]);
+    }
+
+    /**
+     * Allocates the text between two absolute offsets.
+     */
+
+    public String substring(int from, int to) {
+        return new String(chars, from, to - from);
+    }
+
+    // ----- Span queries (no allocation) -----
+
+    /**
+     * Returns true if the trimmed line starts with the given prefix.
+     */
+
+    public boolean startsWith(int line, String prefix) {
+        return trimEnds[line] - trimStarts[line] >= prefix.length()
+                && regionMatches(trimStarts[line], prefix);
+    }
+
+    /**
+     * Returns true if the trimmed line is exactly the given text.
+     */
+
+    public boolean trimmedEquals(int line, String value) {
+        return trimEnds[line] - trimStarts[line] == value.length()
+                && regionMatches(trimStarts[line], value);
+    }
+
+    /**
+     * Returns true if the raw line contains the given text.
+     */
+
+    public boolean contains(int line, String needle) {
+        return indexOf(needle, lineStarts[line], lineEnds[line]) >= 0;
+    }
+
+    /**
+     * Returns true if the raw line contains the given character.
+     */
+
+    public boolean contains(int line, char c) {
+        for (int i = lineStarts[line]; i < lineEnds[line]; i++) {
+            if (chars[i] == c) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts occurrences of a character on the raw line.
+     */
+
+    public int count(int line, char c) {
+        int n = 0;
+        for (int i = lineStarts[line]; i < lineEnds[line]; i++) {
+            if (chars[i] == c) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Finds the first occurrence of {@code needle} lying completely inside [from, to).
+     *
+     * @return The absolute offset of the match, or -1 if there is none.
+     */
+
+    public int indexOf(String needle, int from, int to) {
+        int n = needle.length();
+        if (n == 0) return from <= to ? from : -1;
+        char first = needle.charAt(0);
+        int last = to - n;
+        for (int i = from; i <= last; i++) {
+            if (chars[i] == first && regionMatches(i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the source at {@code offset} starts with the given text.
+     */
+
+    public boolean regionMatches(int offset, String value) {
+        int n = value.length();
+        if (offset < 0 || offset + n > length) return false;
+        for (int i = 0; i < n; i++) {
+            if (chars[offset + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first offset in [from, to) whose character is not
+     * whitespace in the String.trim() sense, or {@code to} if there is none.
+     */
+
+    public int skipWhitespace(int from, int to) {
+        while (from < to && chars[from] <= ' ') from++;
+        return from;
+    }
+
+    // ----- Derived indexes -----
+
+    /**
+     * Returns the keyword index of this source, building it on first use.
+     * Safe to call from several rules running in parallel.
+     */
+
+    public KeywordIndex keywords() {
+        KeywordIndex index = keywords;
+        if (index == null) {
+            // Concurrent first calls may both build it; the results are identical.
+            index = new KeywordIndex(this);
+            keywords = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the identifier occurrence index of this source, building it on first use.
+     */
+
+    public IdentifierIndex identifiers() {
+        IdentifierIndex index = identifiers;
+        if (index == null) {
+            index = new IdentifierIndex(this);
+            identifiers = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the token stream of this source, lexing it on first use.
+     */
+
+    public TokenStream tokens() {
+        TokenStream stream = tokens;
+        if (stream == null) {
+            stream = new TokenStream(this);
+            tokens = stream;
+        }
+        return stream;
+    }
+
+    /**
+     * Returns the structural model of this source, building it on first use.
+     * Only rules that need method, switch or try boundaries should ask for it.
+     */
+
+    public Structure structure() {
+        Structure model = structure;
+        if (model == null) {
+            model = new Structure(this);
+            structure = model;
+        }
+        return model;
+    }
+
+    // ----- Lexical masks -----
+
+    /**
+     * Returns true if the character at the offset belongs to a line or block comment.
+     */
+
+    public boolean isComment(int offset) {
+        return commentMask.get(offset);
+    }
+
+    /**
+     * Returns true if the character at the offset belongs to a string,
+     * text block or character literal (including the quotes).
+     */
+
+    public boolean isLiteral(int offset) {
+        return literalMask.get(offset);
+    }
+
+    /**
+     * Returns true if the character at the offset is neither comment nor literal.
+     */
+
+    public boolean isCode(int offset) {
+        return !commentMask.get(offset) && !literalMask.get(offset);
+    }
+
+    /**
+     * Lexical state at a line start: plain code.
+     */
+    public static final int STATE_CODE = 0;
+
+    /**
+     * Lexical state at a line start: inside a block comment.
+     */
+    public static final int STATE_COMMENT = 1;
+
+    /**
+     * Lexical state at a line start: inside a multi-line literal (e.g. a text block).
+     */
+    public static final int STATE_LITERAL = 2;
+
+    /**
+     * Returns the lexical state the given line starts in.
+     *
+     * Everything after a line start depends only on this state and the text
+     * that follows, so two versions of a source whose suffixes match and whose
+     * states match at that line have identical masks from there on.
+     */
+
+    public int stateAtLineStart(int line) {
+        return stateBefore(lineStarts[line]);
+    }
+
+    /**
+     * Returns the lexical state right after the last character, which is
+     * the state a following chunk of the same source starts in.
+     */
+
+    public int stateAtEnd() {
+        return stateBefore(length);
+    }
+
+    /**
+     * Returns the state the text starting at {@code offset} is lexed in.
+     * Only meaningful at line starts and at the end of the source.
+     */
+
+    private int stateBefore(int offset) {
+        if (offset == 0) return initialState;
+        // Multi-line comments and literals also cover the line terminator before the line.
+        if (commentMask.get(offset - 1)) return STATE_COMMENT;
+        if (literalMask.get(offset - 1)) return STATE_LITERAL;
+        return STATE_CODE;
+    }
+
+    /**
+     * Returns the offset just past the block comment or text block the
+     * source starts in, or 0 when it starts in plain code. Shared with
+     * TokenStream so both continue an open construct alike.
+     */
+
+    int continuationEnd() {
+        int end = 0;
+        if (initialState == STATE_COMMENT) {
+            while (end < length && !(chars[end] == '*' && end + 1 < length && chars[end + 1] == '/')) end++;
+            end = Math.min(length, end + 2);
+        } else if (initialState == STATE_LITERAL) {
+            while (end < length && !regionMatches(end, "\"\"\"")) {
+                end += chars[end] == '\\' ? 2 : 1;
+            }
+            end = Math.min(length, end + 3);
+        }
+        return end;
+    }
+
+    /**
+     * Returns the lexical state the first line starts in.
+     */
+
+    int initialState() {
+        return initialState;
+    }
+
+    /**
+     * Scans the source once and marks comment and literal characters.
+     */
+
+    private void buildMasks() {
+        int i = continuationEnd();
+        if (initialState == STATE_COMMENT) {
+            commentMask.set(0, i);
+        } else if (initialState == STATE_LITERAL) {
+            literalMask.set(0, i);
+        }
+        while (i < length) {
+            char c = chars[i];
+
+            if (c == '/' && i + 1 < length && chars[i + 1] == '/') {
+                int end = i + 2;
+                while (end < length && !isLineTerminator(chars[end])) end++;
+                commentMask.set(i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && chars[i + 1] == '*') {
+                int end = i + 2;
+                while (end < length && !(chars[end] == '*' && end + 1 < length && chars[end + 1] == '/')) end++;
+                end = Math.min(length, end + 2);
+                commentMask.set(i, end);
+                i = end;
+            } else if (c == '"' && regionMatches(i, "\"\"\"")) {
+                int end = i + 3;
+                while (end < length && !regionMatches(end, "\"\"\"")) {
+                    end += chars[end] == '\\' ? 2 : 1;
+                }
+                end = Math.min(length, end + 3);
+                literalMask.set(i, end);
+                i = end;
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && chars[end] != c && !isLineTerminator(chars[end])) {
+                    end += chars[end] == '\\' ? 2 : 1;
+                }
+                if (end < length && chars[end] == c) {
+                    end++; // closing quote; an unterminated literal stops at the line end
+                }
+                end = Math.min(length, end);
+                literalMask.set(i, end);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Line terminators recognised by the regex construct \R.
+     */
+
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int[] grow(int[] array) {
+        int[] bigger = new int[array.length * 2];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
+    }
+}
@@ -0,0 +1,522 @@
+package com.codefixerai.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lightweight structural model of a source: a tree of brace blocks, each
+ * classified as class, method, switch, try, loop or plain block.
+ *
+ * Built from the TokenStream in one forward pass, and only when a rule asks
+ * for it (SourceView.structure()), so rule sets that work on lines never pay
+ * for it. It is not a full parser: it recognises block headers from the
+ * tokens in front of each '{', which is enough to answer the questions the
+ * structural rules ask:
+ * - Which methods are declared and what are their parameter lists?
+ *   (Abstract and interface methods appear as METHOD nodes without a body.)
+ * - Where does a switch block end, and does it have a default label of its own?
+ * - Which tokens are try-with-resources declarations?
+ * - Which method or class encloses a given token?
+ */
+
+public final class Structure {
+
+    /**
+     * What a node's block is the body of.
+     */
+
+    public enum Kind {
+        CLASS, METHOD, SWITCH, TRY, LOOP, BLOCK
+    }
+
+    /**
+     * One block of the tree. Token indexes refer to the source's TokenStream;
+     * fields that do not apply to the node's kind are -1.
+     */
+
+    public static final class Node {
+        private final Kind kind;
+        private final int index;
+        private final int startToken;
+        private final int line;
+        private final Node parent;
+        private final List<Node> children = new ArrayList<>(2);
+
+        private int open = -1;
+        private int close = -1;
+        private int nameToken = -1;
+        private int parametersOpen = -1;
+        private int parametersClose = -1;
+        private int resourcesOpen = -1;
+        private int resourcesClose = -1;
+        private int defaultLabel = -1;
+
+        private Node(Kind kind, int index, int startToken, int line, Node parent) {
+            this.kind = kind;
+            this.index = index;
+            this.startToken = startToken;
+            this.line = line;
+            this.parent = parent;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * Returns the position of this node in source order.
+         */
+
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Returns the first token of the construct (e.g. "switch" or the method name).
+         */
+
+        public int startToken() {
+            return startToken;
+        }
+
+        /**
+         * Returns the 0-based line of the first token of the construct.
+         */
+
+        public int line() {
+            return line;
+        }
+
+        public Node parent() {
+            return parent;
+        }
+
+        public List<Node> children() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Returns the opening brace, or -1 for a method without a body.
+         */
+
+        public int open() {
+            return open;
+        }
+
+        /**
+         * Returns the closing brace, or -1 if the body is missing or unterminated.
+         */
+
+        public int close() {
+            return close;
+        }
+
+        /**
+         * Returns true if the body has an opening brace.
+         */
+
+        public boolean hasBody() {
+            return open >= 0;
+        }
+
+        /**
+         * Returns true if the token lies strictly inside the braces.
+         */
+
+        public boolean contains(int token) {
+            return open >= 0 && token > open && (close < 0 || token < close);
+        }
+
+        /**
+         * METHOD: the name token.
+         */
+
+        public int nameToken() {
+            return nameToken;
+        }
+
+        /**
+         * METHOD: the '(' of the parameter list.
+         */
+
+        public int parametersOpen() {
+            return parametersOpen;
+        }
+
+        /**
+         * METHOD: the ')' of the parameter list.
+         */
+
+        public int parametersClose() {
+            return parametersClose;
+        }
+
+        /**
+         * TRY: the '(' of the resource specification, or -1 for a plain try.
+         */
+
+        public int resourcesOpen() {
+            return resourcesOpen;
+        }
+
+        /**
+         * TRY: the ')' of the resource specification, or -1 for a plain try.
+         */
+
+        public int resourcesClose() {
+            return resourcesClose;
+        }
+
+        /**
+         * SWITCH: the first "default" label ("default:" or "default ->")
+         * directly inside the block, not in a nested switch, or -1.
+         */
+
+        public int defaultLabel() {
+            return defaultLabel;
+        }
+    }
+
+    private final TokenStream tokens;
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Kind, List<Node>> byKind = new EnumMap<>(Kind.class);
+
+    // innermost[token] = index of the innermost node whose braces contain the token, or -1.
+    private final int[] innermost;
+
+    // resourceOwner[token] = 1 + index of the innermost try whose resource
+    // specification contains the token, or 0. Null while there is none.
+    private int[] resourceOwner;
+
+    // Method header seen at class level whose body brace has not been reached yet.
+    private int pendingBrace = -1;
+    private int pendingName;
+    private int pendingOpen;
+    private int pendingClose;
+
+    Structure(SourceView source) {
+        this.tokens = source.tokens();
+        this.innermost = new int[tokens.count()];
+        for (Kind kind : Kind.values()) {
+            byKind.put(kind, new ArrayList<>());
+        }
+        build();
+    }
+
+    /**
+     * Returns all nodes in source order (ordered by their opening brace,
+     * bodiless methods by their name).
+     */
+
+    public List<Node> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Returns the nodes of one kind in source order.
+     */
+
+    public List<Node> nodes(Kind kind) {
+        return Collections.unmodifiableList(byKind.get(kind));
+    }
+
+    /**
+     * Returns the innermost node whose braces contain the token, or null.
+     * A node's own braces count as inside it.
+     */
+
+    public Node enclosing(int token) {
+        int node = innermost[token];
+        return node < 0 ? null : nodes.get(node);
+    }
+
+    /**
+     * Returns the innermost enclosing node of the given kind, or null.
+     */
+
+    public Node enclosing(int token, Kind kind) {
+        Node node = enclosing(token);
+        while (node != null && node.kind != kind) {
+            node = node.parent;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the try statement whose resource specification contains the token, or null.
+     */
+
+    public Node resourceTry(int token) {
+        int owner = resourceOwner == null ? 0 : resourceOwner[token];
+        return owner == 0 ? null : nodes.get(owner - 1);
+    }
+
+    // ----- Construction -----
+
+    private void build() {
+        int count = tokens.count();
+        Node current = null;
+        int previous = -1;
+        Deadline deadline = Deadline.current();
+
+        for (int k = 0; k < count; k++) {
+            if (deadline != null && (k & 4095) == 0) {
+                deadline.check();
+            }
+            innermost[k] = current == null ? -1 : current.index;
+            if (tokens.isComment(k)) continue;
+
+            switch (tokens.kind(k)) {
+                case TokenStream.OPEN_PAREN:
+                    if (current == null || current.kind == Kind.CLASS) {
+                        methodHeader(k, previous, current);
+                    }
+                    break;
+                case TokenStream.OPEN_BRACE:
+                    current = openBlock(k, previous, current);
+                    innermost[k] = current.index;
+                    break;
+                case TokenStream.CLOSE_BRACE:
+                    if (current != null) {
+                        current.close = k;
+                        current = current.parent;
+                    }
+                    break;
+                default:
+                    if (current != null && current.kind == Kind.SWITCH && current.defaultLabel < 0
+                            && isDefaultLabel(k)) {
+                        current.defaultLabel = k;
+                    }
+                    break;
+            }
+            previous = k;
+        }
+    }
+
+    /**
+     * Checks whether the '(' at class level starts a method or constructor
+     * parameter list and, if so, records it until its body brace is reached
+     * (or adds a bodiless METHOD node for an abstract declaration).
+     */
+
+    private void methodHeader(int open, int name, Node owner) {
+        if (name < 0 || tokens.kind(name) != TokenStream.IDENTIFIER || isKeyword(name)) return;
+        int close = tokens.matchingClose(open);
+        if (close < 0) return;
+
+        if (isTypeDeclaration(name)) return; // record header
+
+        int before = tokens.previousCode(name);
+        int beforeKind = before < 0 ? -1 : tokens.kind(before);
+        boolean typed = beforeKind == TokenStream.IDENTIFIER && !tokens.is(before, "new")
+                || beforeKind == TokenStream.CLOSE_BRACKET
+                || beforeKind == TokenStream.OPERATOR && (tokens.is(before, ">") || tokens.is(before, ">>"));
+        boolean constructor = before < 0 || beforeKind == TokenStream.SEMICOLON
+                || beforeKind == TokenStream.CLOSE_BRACE
+                || beforeKind == TokenStream.OPEN_BRACE && !isEnum(owner);
+        if (!typed && !constructor) return;
+
+        int after = tokens.nextCode(close + 1);
+        if (after < tokens.count() && tokens.is(after, "throws")) {
+            after = tokens.nextCode(after + 1);
+            while (after < tokens.count() && (tokens.kind(after) == TokenStream.IDENTIFIER
+                    || tokens.kind(after) == TokenStream.DOT || tokens.kind(after) == TokenStream.COMMA)) {
+                after = tokens.nextCode(after + 1);
+            }
+        }
+        if (after >= tokens.count()) return;
+
+        if (tokens.kind(after) == TokenStream.OPEN_BRACE) {
+            pendingBrace = after;
+            pendingName = name;
+            pendingOpen = open;
+            pendingClose = close;
+        } else if (typed && (tokens.kind(after) == TokenStream.SEMICOLON || tokens.is(after, "default"))) {
+            Node method = add(Kind.METHOD, name, owner);
+            method.nameToken = name;
+            method.parametersOpen = open;
+            method.parametersClose = close;
+        }
+    }
+
+    /**
+     * Creates the node for the '{' at {@code brace}, classified by the tokens in front of it.
+     */
+
+    private Node openBlock(int brace, int previous, Node parent) {
+        Node node;
+        if (brace == pendingBrace) {
+            node = add(Kind.METHOD, pendingName, parent);
+            node.nameToken = pendingName;
+            node.parametersOpen = pendingOpen;
+            node.parametersClose = pendingClose;
+        } else if (previous >= 0 && tokens.kind(previous) == TokenStream.CLOSE_PAREN) {
+            int open = matchingOpen(previous);
+            int keyword = open < 0 ? -1 : tokens.previousCode(open);
+            if (keyword >= 0 && tokens.is(keyword, "switch")) {
+                node = add(Kind.SWITCH, keyword, parent);
+            } else if (keyword >= 0 && (tokens.is(keyword, "for") || tokens.is(keyword, "while"))) {
+                node = add(Kind.LOOP, keyword, parent);
+            } else if (keyword >= 0 && tokens.is(keyword, "try")) {
+                node = add(Kind.TRY, keyword, parent);
+                node.resourcesOpen = open;
+                node.resourcesClose = previous;
+                markResources(node);
+            } else if (keyword >= 0 && isEnum(parent) && isEnumConstant(keyword)) {
+                node = add(Kind.CLASS, keyword, parent);
+            } else if (keyword < 0 || isKeyword(keyword)) {
+                node = add(Kind.BLOCK, brace, parent);
+            } else if (isAnonymousClass(keyword)) {
+                node = add(Kind.CLASS, keyword, parent);
+            } else if (isTypeDeclaration(keyword)) {
+                node = add(Kind.CLASS, typeKeyword(keyword), parent);
+            } else {
+                node = add(Kind.BLOCK, brace, parent);
+            }
+        } else if (previous >= 0 && tokens.is(previous, "try")) {
+            node = add(Kind.TRY, previous, parent);
+        } else if (previous >= 0 && tokens.is(previous, "do")) {
+            node = add(Kind.LOOP, previous, parent);
+        } else if (previous >= 0 && isEnum(parent) && isEnumConstant(previous)) {
+            node = add(Kind.CLASS, previous, parent);
+        } else if (previous >= 0 && isTypeDeclaration(previous)) {
+            node = add(Kind.CLASS, typeKeyword(previous), parent);
+        } else {
+            node = add(Kind.BLOCK, brace, parent);
+        }
+        node.open = brace;
+        return node;
+    }
+
+    // Tokens of a nested try's resources (inside a lambda, say) were marked
+    // when its brace was reached, before this one's; they keep that owner.
+    private void markResources(Node node) {
+        if (resourceOwner == null) {
+            resourceOwner = new int[tokens.count()];
+        }
+        for (int k = node.resourcesOpen; k < node.resourcesClose; k++) {
+            if (resourceOwner[k] == 0) {
+                resourceOwner[k] = node.index + 1;
+            }
+        }
+    }
+
+    private boolean isDefaultLabel(int token) {
+        if (!tokens.is(token, "default")) return false;
+        int next = tokens.nextCode(token + 1);
+        return next < tokens.count() && (tokens.is(next, ":") || tokens.is(next, "->"));
+    }
+
+    private Node add(Kind kind, int startToken, Node parent) {
+        Node node = new Node(kind, nodes.size(), startToken, tokens.line(startToken), parent);
+        nodes.add(node);
+        byKind.get(kind).add(node);
+        if (parent != null) {
+            parent.children.add(node);
+        }
+        return node;
+    }
+
+    private int matchingOpen(int close) {
+        int depth = 0;
+        for (int k = close; k >= 0; k--) {
+            int kind = tokens.kind(k);
+            if (kind == TokenStream.CLOSE_PAREN) {
+                depth++;
+            } else if (kind == TokenStream.OPEN_PAREN && --depth == 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the tokens ending at {@code last} read "new Type<...>".
+     */
+
+    private boolean isAnonymousClass(int last) {
+        return tokens.is(skipTypeBackwards(last), "new");
+    }
+
+    /**
+     * Returns true if the tokens ending at {@code last} are the header of a
+     * class, interface, enum or record declaration.
+     */
+
+    private boolean isTypeDeclaration(int last) {
+        return typeKeyword(last) >= 0;
+    }
+
+    /**
+     * Walks back over a declaration header (names, generics, extends and
+     * implements lists, record components) to its class/interface/enum/record
+     * keyword. Returns the keyword token, or -1 if there is none.
+     */
+
+    private int typeKeyword(int last) {
+        int k = last;
+        while (k >= 0) {
+            int kind = tokens.kind(k);
+            if (kind == TokenStream.IDENTIFIER) {
+                if (tokens.is(k, "class") || tokens.is(k, "interface") || tokens.is(k, "enum")
+                        || tokens.is(k, "record")) {
+                    int before = tokens.previousCode(k);
+                    // "Foo.class" is a literal, not a declaration.
+                    return before >= 0 && tokens.kind(before) == TokenStream.DOT ? -1 : k;
+                }
+            } else if (kind == TokenStream.CLOSE_PAREN) {
+                k = matchingOpen(k);
+                if (k < 0) return -1;
+            } else if (kind != TokenStream.DOT && kind != TokenStream.COMMA && !isTypeOperator(k)) {
+                return -1;
+            }
+            k = tokens.previousCode(k);
+        }
+        return -1;
+    }
+
+    private int skipTypeBackwards(int last) {
+        int k = last;
+        while (k >= 0 && (tokens.kind(k) == TokenStream.IDENTIFIER && !tokens.is(k, "new")
+                || tokens.kind(k) == TokenStream.DOT || tokens.kind(k) == TokenStream.COMMA
+                || isTypeOperator(k))) {
+            k = tokens.previousCode(k);
+        }
+        return k < 0 ? 0 : k;
+    }
+
+    private boolean isTypeOperator(int token) {
+        return tokens.kind(token) == TokenStream.OPERATOR && (tokens.is(token, "<") || tokens.is(token, ">")
+                || tokens.is(token, ">>") || tokens.is(token, ">>>") || tokens.is(token, "?")
+                || tokens.is(token, "&") || tokens.is(token, "@"));
+    }
+
+    /**
+     * Returns true if the identifier is an enum constant (the first one or
+     * one after a comma), whose body is an anonymous class.
+     */
+
+    private boolean isEnumConstant(int name) {
+        if (tokens.kind(name) != TokenStream.IDENTIFIER) return false;
+        int before = tokens.previousCode(name);
+        return before >= 0 && (tokens.kind(before) == TokenStream.COMMA || tokens.kind(before) == TokenStream.OPEN_BRACE);
+    }
+
+    private boolean isEnum(Node node) {
+        return node != null && node.kind == Kind.CLASS && tokens.is(node.startToken, "enum");
+    }
+
+    /**
+     * Keywords that can stand in front of '(' but never name a method.
+     */
+
+    private boolean isKeyword(int token) {
+        return tokens.is(token, "if") || tokens.is(token, "for") || tokens.is(token, "while")
+                || tokens.is(token, "switch") || tokens.is(token, "catch") || tokens.is(token, "try")
+                || tokens.is(token, "synchronized") || tokens.is(token, "return") || tokens.is(token, "new")
+                || tokens.is(token, "this") || tokens.is(token, "super") || tokens.is(token, "throw");
+    }
+}
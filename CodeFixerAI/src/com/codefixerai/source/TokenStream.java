@@ -0,0 +1,344 @@
+package com.codefixerai.source;
+
+/**
+ * Java token stream of a source, produced by one linear lexer pass.
+ *
+ * Tokens are stored column-wise in int arrays (kind, start, end, line), so
+ * lexing a file allocates a handful of arrays instead of one object per
+ * token. Rules walk the stream by index:
+ *
+ *   TokenStream tokens = source.tokens();
+ *   for (int k = 0; k < tokens.count(); k++) {
+ *       if (tokens.kind(k) == TokenStream.OPEN_BRACE) ...
+ *   }
+ *
+ * Comments and literals are delimited exactly like SourceView's masks, so
+ * braces or keywords inside them never show up as code tokens. Keywords
+ * are IDENTIFIER tokens; compare them with is(token, "while").
+ */
+
+public final class TokenStream {
+
+    /** Identifier or keyword. */
+    public static final int IDENTIFIER = 0;
+    /** Numeric literal such as 42, 0x1F, 1.5e3 or 10L. */
+    public static final int NUMBER = 1;
+    /** String literal or text block, quotes included. */
+    public static final int STRING = 2;
+    /** Character literal, quotes included. */
+    public static final int CHAR = 3;
+    /** Line comment, from the slashes to the end of the line. */
+    public static final int LINE_COMMENT = 4;
+    /** Block or Javadoc comment. */
+    public static final int BLOCK_COMMENT = 5;
+    /** Operator such as +=, ==, ->, @ or any other single character. */
+    public static final int OPERATOR = 6;
+    public static final int OPEN_BRACE = 7;
+    public static final int CLOSE_BRACE = 8;
+    public static final int OPEN_PAREN = 9;
+    public static final int CLOSE_PAREN = 10;
+    public static final int OPEN_BRACKET = 11;
+    public static final int CLOSE_BRACKET = 12;
+    public static final int SEMICOLON = 13;
+    public static final int COMMA = 14;
+    public static final int DOT = 15;
+
+    // Longest first, so the lexer takes the maximal munch.
+    private static final String[] OPERATORS = {
+            ">>>=", "<<=", ">>=", ">>>",
+            "->", "::", "==", "<=", ">=", "!=", "&&", "||", "++", "--",
+            "+=", "-=", "*=", "/=", "&=", "|=", "^=", "%=", "<<", ">>"
+    };
+
+    private final SourceView source;
+
+    private int count;
+    private int[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+
+    // lineFirst[line] = index of the first token starting on or after that line.
+    private final int[] lineFirst;
+
+    TokenStream(SourceView source) {
+        this.source = source;
+        int capacity = Math.max(16, source.length() / 4);
+        kinds = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        lines = new int[capacity];
+        lineFirst = new int[source.lineCount() + 1];
+        lex();
+    }
+
+    /**
+     * Returns the number of tokens, comments included.
+     */
+
+    public int count() {
+        return count;
+    }
+
+    public int kind(int token) {
+        return kinds[token];
+    }
+
+    /**
+     * Returns the offset of the token's first character.
+     */
+
+    public int start(int token) {
+        return starts[token];
+    }
+
+    /**
+     * Returns the offset just past the token's last character.
+     */
+
+    public int end(int token) {
+        return ends[token];
+    }
+
+    /**
+     * Returns the 0-based line the token starts on.
+     */
+
+    public int line(int token) {
+        return lines[token];
+    }
+
+    /**
+     * Returns true if the token's text is exactly the given value.
+     */
+
+    public boolean is(int token, String value) {
+        return ends[token] - starts[token] == value.length() && source.regionMatches(starts[token], value);
+    }
+
+    /**
+     * Returns the token's text. Allocates; prefer is(...) in hot paths.
+     */
+
+    public String text(int token) {
+        return source.substring(starts[token], ends[token]);
+    }
+
+    /**
+     * Returns true for line and block comments.
+     */
+
+    public boolean isComment(int token) {
+        return kinds[token] == LINE_COMMENT || kinds[token] == BLOCK_COMMENT;
+    }
+
+    /**
+     * Returns the index of the first token starting on or after the given line.
+     * Tokens of the line are [firstOnLine(line), firstOnLine(line + 1)).
+     */
+
+    public int firstOnLine(int line) {
+        return lineFirst[line];
+    }
+
+    /**
+     * Returns the first token at or after {@code from} that is not a comment,
+     * or count() if there is none.
+     */
+
+    public int nextCode(int from) {
+        while (from < count && isComment(from)) from++;
+        return from;
+    }
+
+    /**
+     * Returns the last token before {@code from} that is not a comment, or -1.
+     */
+
+    public int previousCode(int from) {
+        from--;
+        while (from >= 0 && isComment(from)) from--;
+        return from;
+    }
+
+    /**
+     * Returns the token closing the parenthesis, brace or bracket opened by
+     * {@code open}, or -1 if the source ends first.
+     */
+
+    public int matchingClose(int open) {
+        int openKind = kinds[open];
+        int closeKind = openKind + 1;
+        int depth = 0;
+        for (int k = open; k < count; k++) {
+            if (kinds[k] == openKind) {
+                depth++;
+            } else if (kinds[k] == closeKind && --depth == 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // ----- Lexer -----
+
+    private void lex() {
+        int length = source.length();
+        int lineCount = source.lineCount();
+        int line = 0;
+        int i = 0;
+
+        // A chunk of a streamed source may start inside a block comment or text block.
+        i = source.continuationEnd();
+        if (i > 0) {
+            add(source.initialState() == SourceView.STATE_COMMENT ? BLOCK_COMMENT : STRING, 0, i, 0);
+        }
+
+        // Lexing a huge input counts against the budget of the rule that asked for it.
+        Deadline deadline = Deadline.current();
+        int untilCheck = 4096;
+
+        while (i < length) {
+            if (deadline != null && --untilCheck < 0) {
+                untilCheck = 4096;
+                deadline.check();
+            }
+            char c = source.charAt(i);
+            if (c <= ' ' || SourceView.isLineTerminator(c) || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            int kind;
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                kind = LINE_COMMENT;
+                i += 2;
+                while (i < length && !SourceView.isLineTerminator(source.charAt(i))) i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                kind = BLOCK_COMMENT;
+                i += 2;
+                while (i < length && !(source.charAt(i) == '*' && i + 1 < length && source.charAt(i + 1) == '/')) i++;
+                i = Math.min(length, i + 2);
+            } else if (c == '"' && source.regionMatches(i, "\"\"\"")) {
+                kind = STRING;
+                i += 3;
+                while (i < length && !source.regionMatches(i, "\"\"\"")) {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i = Math.min(length, i + 3);
+            } else if (c == '"' || c == '\'') {
+                kind = c == '"' ? STRING : CHAR;
+                i++;
+                while (i < length && source.charAt(i) != c && !SourceView.isLineTerminator(source.charAt(i))) {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                if (i < length && source.charAt(i) == c) {
+                    i++; // closing quote; an unterminated literal stops at the line end
+                }
+                i = Math.min(length, i);
+            } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(source.charAt(i + 1)))) {
+                kind = NUMBER;
+                i = scanNumber(i, length);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                kind = IDENTIFIER;
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) i++;
+            } else if (source.regionMatches(i, "...")) {
+                kind = OPERATOR;
+                i += 3;
+            } else {
+                kind = punctuation(c);
+                i += kind == OPERATOR ? operatorLength(i) : 1;
+            }
+
+            while (line + 1 < lineCount && start >= source.lineStart(line + 1)) {
+                lineFirst[++line] = count;
+            }
+            add(kind, start, i, line);
+        }
+        while (line < lineCount) {
+            lineFirst[++line] = count;
+        }
+    }
+
+    private int scanNumber(int i, int length) {
+        boolean hex = source.charAt(i) == '0' && i + 1 < length
+                && (source.charAt(i + 1) == 'x' || source.charAt(i + 1) == 'X');
+        i++;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isJavaIdentifierPart(c) || c == '.') {
+                i++;
+            } else if ((c == '+' || c == '-') && isExponent(source.charAt(i - 1), hex)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isExponent(char c, boolean hex) {
+        return hex ? c == 'p' || c == 'P' : c == 'e' || c == 'E';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int punctuation(char c) {
+        switch (c) {
+            case '{':
+                return OPEN_BRACE;
+            case '}':
+                return CLOSE_BRACE;
+            case '(':
+                return OPEN_PAREN;
+            case ')':
+                return CLOSE_PAREN;
+            case '[':
+                return OPEN_BRACKET;
+            case ']':
+                return CLOSE_BRACKET;
+            case ';':
+                return SEMICOLON;
+            case ',':
+                return COMMA;
+            case '.':
+                return DOT;
+            default:
+                return OPERATOR;
+        }
+    }
+
+    private int operatorLength(int i) {
+        for (String operator : OPERATORS) {
+            if (source.regionMatches(i, operator)) {
+                return operator.length();
+            }
+        }
+        return 1;
+    }
+
+    private void add(int kind, int start, int end, int line) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = copyOf(kinds, capacity);
+            starts = copyOf(starts, capacity);
+            ends = copyOf(ends, capacity);
+            lines = copyOf(lines, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        lines[count] = line;
+        count++;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -1,11 +1,17 @@
 package com.codefixerai.ui;
 
 import com.codefixerai.analyzer.CodeAnalyzer;
+import com.codefixerai.analyzer.IncrementalAnalyzer;
 import com.codefixerai.db.AnalysisRecordDAO;
 import com.codefixerai.model.AnalysisRecord;
 import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueCounts;
+import com.codefixerai.model.Severity;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Element;
 import java.awt.*;
 import java.io.File;
 import java.io.FileWriter;
@@ -42,6 +48,12 @@ public class MainFrame extends JFrame {
      */
     private final CodeAnalyzer analyzer;
 
+    /**
+     * Wraps the analyzer so that repeated analyses only re-run line-local rules
+     * on the lines edited since the previous run.
+     */
+    private final IncrementalAnalyzer incrementalAnalyzer;
+
     /**
      * Data Access Object (DAO) used to store and retrieve analysis history from the database.
      */
@@ -73,6 +85,7 @@ public class MainFrame extends JFrame {
 
         // Initialize core objects.
         analyzer = new CodeAnalyzer();
+        incrementalAnalyzer = new IncrementalAnalyzer(analyzer);
         historyDao = new AnalysisRecordDAO();
 
         // ----- CODE INPUT AREA (TOP) -----
@@ -80,6 +93,24 @@ public class MainFrame extends JFrame {
         codeArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
         codeArea.setLineWrap(false); // Keep code formatting
 
+        // Track which lines are edited so the next analysis can be incremental.
+        codeArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                recordLineChange(e);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                recordLineChange(e);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only; the text is unchanged.
+            }
+        });
+
         // ----- OUTPUT / RESULT AREA (BOTTOM) -----
         outputArea = new JTextArea();
         outputArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
@@ -126,34 +157,24 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Maps a rule type (issue type) to a severity level.
-     * This is a simple heuristic categorization used to give a quick summary.
+     * Converts a document event into the changed line range and line count
+     * difference, and passes it on to the incremental analyzer.
      *
-     * @param type the type of the issue (e.g., "StringEquality", "MagicNumber").
-     * @return "HIGH", "MEDIUM", or "LOW" severity.
+     * @param e insert or remove event from the code area's document.
      */
-    private String classifySeverity(String type) {
-        switch (type) {
-            // HIGH severity issues are likely to cause bugs or runtime errors.
-            case "ResourceLeak":
-            case "OffByOneLoop":
-            case "StringEquality":
-            case "EmptyCatch":
-                return "HIGH";
-
-            // MEDIUM severity issues are performance or maintainability concerns.
-            case "DeepNesting":
-            case "ExcessiveParameters":
-            case "StringConcatInLoop":
-            case "MagicNumber":
-                return "MEDIUM";
-
-            // LOW severity issues are style problems or potential improvements.
-            case "UnusedVariable":
-            case "TodoComment":
-            case "MissingDefaultInSwitch":
-            default:
-                return "LOW";
+    private void recordLineChange(DocumentEvent e) {
+        Element root = codeArea.getDocument().getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+
+        if (change == null) {
+            // Edit stayed within a single line.
+            int line = root.getElementIndex(e.getOffset());
+            incrementalAnalyzer.recordChange(line, line, 0);
+        } else {
+            int added = change.getChildrenAdded().length;
+            int removed = change.getChildrenRemoved().length;
+            int first = change.getIndex();
+            incrementalAnalyzer.recordChange(first, first + Math.max(added, 1) - 1, added - removed);
         }
     }
 
@@ -166,15 +187,19 @@ public class MainFrame extends JFrame {
      *  - Synchronization (updating shared lastIssues within a synchronized block)
      */
     private void analyzeCode() {
+        // Read the code and the edits made since the last run together on the EDT,
+        // so they always describe the same version of the text.
+        String source = codeArea.getText();
+        IncrementalAnalyzer.Edit edit = incrementalAnalyzer.takeEdit();
+
         // Create a separate thread so that the GUI remains responsive while analyzing.
         Thread analysisThread = new Thread(() -> {
-            String source = codeArea.getText(); // Read the code from the UI
-
             StringBuilder sb = new StringBuilder();
 
             try {
-                // Run all rules through the analyzer. This may take some time.
-                List<Issue> issues = analyzer.analyze(source);
+                // Run the rules through the analyzer. Only edited lines are re-checked
+                // by line-local rules; whole-file rules always run on the full text.
+                List<Issue> issues = incrementalAnalyzer.analyze(source, edit);
 
                 // Store the latest issues in a thread-safe manner.
                 // We synchronize to prevent race conditions with exportReport().
@@ -182,21 +207,9 @@ public class MainFrame extends JFrame {
                     lastIssues = new ArrayList<>(issues);
                 }
 
-                // Count severities for summary.
-                int high = 0, medium = 0, low = 0;
-                for (Issue issue : issues) {
-                    String sev = classifySeverity(issue.getType());
-                    switch (sev) {
-                        case "HIGH":
-                            high++;
-                            break;
-                        case "MEDIUM":
-                            medium++;
-                            break;
-                        default:
-                            low++;
-                    }
-                }
+                // Count severities for summary: one histogram pass over issue type ids.
+                IssueCounts counts = new IssueCounts();
+                counts.addAll(issues);
 
                 // Build the output text for the user.
                 if (issues.isEmpty()) {
@@ -205,14 +218,13 @@ public class MainFrame extends JFrame {
                     int total = issues.size();
                     sb.append("Summary: Total Issues = ")
                             .append(total)
-                            .append("  (High: ").append(high)
-                            .append(", Medium: ").append(medium)
-                            .append(", Low: ").append(low)
+                            .append("  (High: ").append(counts.count(Severity.HIGH))
+                            .append(", Medium: ").append(counts.count(Severity.MEDIUM))
+                            .append(", Low: ").append(counts.count(Severity.LOW))
                             .append(")\n");
                     sb.append("----------------------------------------------------\n");
                     for (Issue issue : issues) {
-                        String sev = classifySeverity(issue.getType());
-                        sb.append("[").append(sev).append("] ")
+                        sb.append("[").append(issue.getIssueType().getSeverity()).append("] ")
                                 .append(issue).append("\n");
                     }
                 }
@@ -283,20 +295,8 @@ public class MainFrame extends JFrame {
         try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
 
             // Count severity levels based on the snapshot.
-            int high = 0, medium = 0, low = 0;
-            for (Issue issue : snapshot) {
-                String sev = classifySeverity(issue.getType());
-                switch (sev) {
-                    case "HIGH":
-                        high++;
-                        break;
-                    case "MEDIUM":
-                        medium++;
-                        break;
-                    default:
-                        low++;
-                }
-            }
+            IssueCounts counts = new IssueCounts();
+            counts.addAll(snapshot);
             int total = snapshot.size();
 
             // Write the header and summary section.
@@ -304,17 +304,16 @@ public class MainFrame extends JFrame {
             out.println("======================================");
             out.println("Summary:");
             out.println("  Total Issues: " + total);
-            out.println("  High:   " + high);
-            out.println("  Medium: " + medium);
-            out.println("  Low:    " + low);
+            out.println("  High:   " + counts.count(Severity.HIGH));
+            out.println("  Medium: " + counts.count(Severity.MEDIUM));
+            out.println("  Low:    " + counts.count(Severity.LOW));
             out.println();
             out.println("Detailed Issues:");
             out.println("--------------------------------------");
 
             // Write detailed information for each issue.
             for (Issue issue : snapshot) {
-                String sev = classifySeverity(issue.getType());
-                out.println("[" + sev + "] " + issue.toString());
+                out.println("[" + issue.getIssueType().getSeverity() + "] " + issue.toString());
             }
 
             // Inform the user that export was successful.
@@ -0,0 +1,211 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.MagicNumberRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.SourceView;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the time budgets and the input size cap of CodeAnalyzer, and how
+ * skipped rules are reported and kept out of reused results.
+ */
+
+public class AnalysisBudgetTest {
+
+    private static final String SOURCE = "class A {\n    int a = 42;\n    int b = 7;\n}\n";
+
+    private final Rule magic = new MagicNumberRule();
+
+    @Test
+    public void aRuleOverItsBudgetIsSkippedAlone() {
+        List<String> expected = render(new CodeAnalyzer(Arrays.asList(magic)).analyze(SOURCE));
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(new SpinningRule(), magic));
+        analyzer.setFused(false);
+        analyzer.setRuleTimeBudget(20);
+
+        List<Issue> issues = analyzer.analyze(SOURCE);
+        assertSkipped(issues.get(0), "Spinning");
+        assertEquals(expected, render(issues.subList(1, issues.size())));
+        assertTrue(CodeAnalyzer.isIncomplete(issues));
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void aRuleOverItsBudgetIsSkippedInParallelMode() {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(magic, new SpinningRule()));
+            analyzer.setExecutor(pool);
+            analyzer.setParallelThreshold(0);
+            analyzer.setRuleTimeBudget(20);
+
+            List<Issue> issues = analyzer.analyze(SOURCE);
+            // Sorted by line: the skipped finding on line 0 comes first.
+            assertSkipped(issues.get(0), "Spinning");
+            assertEquals(render(new CodeAnalyzer(Arrays.asList(magic)).analyze(SOURCE)),
+                    render(issues.subList(1, issues.size())));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void theAnalysisBudgetSkipsEveryRuleThatHasNotFinished() {
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(new SpinningRule(), magic));
+        analyzer.setFused(false);
+        analyzer.setAnalysisTimeBudget(20);
+
+        List<Issue> issues = analyzer.analyze(SOURCE);
+        assertEquals(2, issues.size());
+        assertSkipped(issues.get(0), "Spinning");
+        assertSkipped(issues.get(1), magic.getName());
+    }
+
+    @Test
+    public void aBacktrackingRegexIsCancelled() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            line.append('a');
+        }
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.<Rule>asList(new BacktrackingRule()));
+        analyzer.setRuleTimeBudget(20);
+        List<Issue> issues = analyzer.analyze(line + "\n");
+        assertEquals(1, issues.size());
+        assertSkipped(issues.get(0), "Backtracking");
+    }
+
+    @Test
+    public void inputsOverTheCapAreNotAnalyzed() {
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(new SpinningRule(), magic));
+        analyzer.setMaxInputChars(SOURCE.length() - 1);
+
+        List<Issue> issues = analyzer.analyze(SOURCE);
+        assertEquals(1, issues.size());
+        assertEquals(IssueType.RULE_SKIPPED, issues.get(0).getIssueType());
+        assertEquals(0, issues.get(0).getLine());
+        assertTrue(issues.get(0).getMessage(), issues.get(0).getMessage().contains(String.valueOf(SOURCE.length() - 1)));
+        assertTrue(CodeAnalyzer.isIncomplete(issues));
+
+        CodeAnalyzer capped = new CodeAnalyzer(Arrays.asList(magic));
+        capped.setMaxInputChars(SOURCE.length());
+        assertEquals(render(new CodeAnalyzer(Arrays.asList(magic)).analyze(SOURCE)), render(capped.analyze(SOURCE)));
+    }
+
+    @Test
+    public void completeResultsAreNotIncomplete() {
+        assertFalse(CodeAnalyzer.isIncomplete(new CodeAnalyzer().analyze(SOURCE)));
+        assertFalse(CodeAnalyzer.isIncomplete(Collections.<Issue>emptyList()));
+        assertTrue(CodeAnalyzer.isIncomplete(Arrays.asList(
+                new Issue(3, IssueType.MAGIC_NUMBER, "m", "f"), new Issue(0, IssueType.RULE_SKIPPED, "m", "f"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANegativeBudget() {
+        new CodeAnalyzer().setRuleTimeBudget(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANegativeInputCap() {
+        new CodeAnalyzer().setMaxInputChars(-1);
+    }
+
+    @Test
+    public void skippedResultsAreNotCached() {
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(new SpinningRule(), magic));
+        analyzer.setRuleTimeBudget(20);
+        AnalysisCache cache = new AnalysisCache();
+        SourceView source = SourceView.of(SOURCE);
+
+        assertTrue(CodeAnalyzer.isIncomplete(cache.analyze(analyzer, source)));
+        assertEquals(0, cache.size());
+        assertTrue(CodeAnalyzer.isIncomplete(cache.analyze(analyzer, source)));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void anIncrementalRunAfterASkippedRuleIsFull() {
+        SpinningRule spinning = new SpinningRule();
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.asList(spinning, magic));
+        analyzer.setRuleTimeBudget(20);
+        IncrementalAnalyzer incremental = new IncrementalAnalyzer(analyzer);
+
+        assertTrue(CodeAnalyzer.isIncomplete(incremental.analyze(SOURCE, incremental.takeEdit())));
+        spinning.spin = false;
+        String edited = SOURCE.replace("7", "8");
+        incremental.recordChange(2, 2, 0);
+        List<Issue> issues = incremental.analyze(edited, incremental.takeEdit());
+        assertFalse(incremental.wasLastRunIncremental());
+        assertEquals(render(analyzer.analyze(edited)), render(issues));
+        assertFalse(CodeAnalyzer.isIncomplete(issues));
+    }
+
+    // ----- Helpers -----
+
+    private static void assertSkipped(Issue issue, String rule) {
+        assertEquals(IssueType.RULE_SKIPPED, issue.getIssueType());
+        assertEquals(0, issue.getLine());
+        assertTrue(issue.getMessage(), issue.getMessage().contains("'" + rule + "'"));
+    }
+
+    private static List<String> render(List<Issue> issues) {
+        List<String> rendered = new ArrayList<>();
+        for (Issue issue : issues) {
+            rendered.add(issue.toString());
+        }
+        return rendered;
+    }
+
+    // Runs until its Deadline cancels it, while spin is set.
+    private static final class SpinningRule implements LineLocalRule {
+        volatile boolean spin = true;
+
+        @Override
+        public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> out) {
+            while (spin) {
+                Deadline.checkCurrent();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Spinning";
+        }
+    }
+
+    // Matches a pattern that backtracks for minutes on a line of a's.
+    private static final class BacktrackingRule implements LineLocalRule {
+        private static final Pattern PATTERN = Pattern.compile("(.*a){12}!");
+
+        @Override
+        public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> out) {
+            Matcher matcher = PATTERN.matcher(source.chars());
+            for (int line = fromLine; line < toLine; line++) {
+                matcher.region(source.lineStart(line), source.lineEnd(line));
+                if (matcher.find()) throw new AssertionError("matched");
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Backtracking";
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the memory and disk tiers of AnalysisCache.
+ */
+
+public class AnalysisCacheTest {
+
+    private static final String KEY = "ab0123456789";
+
+    private Path dir;
+
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("analysis-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void diskTierOutlivesTheMemoryTier() {
+        List<Issue> issues = issues(3);
+        new AnalysisCache(100, dir).put(KEY, issues);
+        assertTrue(Files.exists(entryFile(KEY)));
+
+        AnalysisCache cache = new AnalysisCache(100, dir);
+        assertEquals(strings(issues), strings(cache.get(KEY)));
+        assertEquals(1, cache.getDiskHitCount());
+        // The disk hit was promoted to memory.
+        assertNotNull(cache.get(KEY));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getDiskHitCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(strings(issues), strings(cache.get(KEY)));
+        assertEquals(2, cache.getDiskHitCount());
+    }
+
+    @Test
+    public void truncatedFileOnDiskIsAMissAndIsRemoved() throws IOException {
+        new AnalysisCache(100, dir).put(KEY, issues(2));
+        byte[] bytes = Files.readAllBytes(entryFile(KEY));
+        Files.write(entryFile(KEY), Arrays.copyOf(bytes, bytes.length - 3));
+
+        AnalysisCache cache = new AnalysisCache(100, dir);
+        assertNull(cache.get(KEY));
+        assertEquals(1, cache.getMissCount());
+        assertFalse(Files.exists(entryFile(KEY)));
+    }
+
+    @Test
+    public void badHeaderOnDiskIsAMiss() throws IOException {
+        new AnalysisCache(100, dir).put(KEY, issues(1));
+        byte[] bytes = Files.readAllBytes(entryFile(KEY));
+        bytes[0] ^= 0x7F;
+        Files.write(entryFile(KEY), bytes);
+        assertNull(new AnalysisCache(100, dir).get(KEY));
+        assertFalse(Files.exists(entryFile(KEY)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntriesByWeight() {
+        // Each entry weighs one plus its issue count.
+        AnalysisCache cache = new AnalysisCache(10, null);
+        cache.put("a", issues(3));
+        cache.put("b", issues(4));
+        assertNotNull(cache.get("a"));
+        cache.put("c", issues(0));
+        assertEquals(3, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.put("d", issues(1));
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    public void replacingAnEntryReleasesItsOldWeight() {
+        AnalysisCache cache = new AnalysisCache(10, null);
+        cache.put("a", issues(8));
+        cache.put("a", issues(0));
+        cache.put("b", issues(7));
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void anEntryHeavierThanTheLimitIsNotKeptInMemory() {
+        AnalysisCache cache = new AnalysisCache(5, dir);
+        cache.put("cd0123456789", issues(1));
+        List<Issue> copy = cache.put(KEY, issues(5));
+        assertEquals(5, copy.size());
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+        // It still reaches the disk tier.
+        assertEquals(5, cache.get(KEY).size());
+        assertEquals(1, cache.getDiskHitCount());
+    }
+
+    @Test
+    public void unknownIssueTypeOnDiskIsAMiss() throws IOException {
+        int typesBefore = IssueType.count();
+        writeEntry(KEY, 1, "NoSuchIssueTypeFromAnOldVersion");
+
+        AnalysisCache cache = new AnalysisCache(100, dir);
+        assertNull(cache.get(KEY));
+        assertEquals(typesBefore, IssueType.count());
+        assertNull(IssueType.find("NoSuchIssueTypeFromAnOldVersion"));
+        assertFalse(Files.exists(entryFile(KEY)));
+    }
+
+    @Test
+    public void negativeIssueCountOnDiskIsAMiss() throws IOException {
+        writeEntry(KEY, -5, null);
+        AnalysisCache cache = new AnalysisCache(100, dir);
+        assertNull(cache.get(KEY));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    // ----- Helpers -----
+
+    private static List<Issue> issues(int count) {
+        List<Issue> issues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            issues.add(new Issue(i + 1, IssueType.MAGIC_NUMBER, "message " + i, "fix \u00e9"));
+        }
+        return issues;
+    }
+
+    private static List<String> strings(List<Issue> issues) {
+        assertNotNull(issues);
+        List<String> strings = new ArrayList<>();
+        for (Issue issue : issues) {
+            strings.add(issue.getLine() + " " + issue.getType() + " " + issue.getMessage() + " " + issue.getSuggestedFix());
+        }
+        return strings;
+    }
+
+    private Path entryFile(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".issues");
+    }
+
+    // Writes an entry in the cache's file format: magic, count, then
+    // (line, type, message, fix) per issue.
+    private void writeEntry(String key, int count, String type) throws IOException {
+        Path file = entryFile(key);
+        Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x43464331);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(i + 1);
+                out.writeUTF(type);
+                out.writeUTF("message");
+                out.writeUTF("fix");
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.source.SourceView;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests what AnalyzerMetrics records per rule and how it renders as JSON.
+ */
+
+public class AnalyzerMetricsTest {
+
+    @Test
+    public void recordsOneRunPerAnalysis() {
+        AnalyzerMetrics metrics = analyze("Quiet", 3);
+        RuleMetrics quiet = metrics.get("Quiet");
+        assertEquals(3, quiet.getRuns());
+        assertEquals(0, quiet.getIssueCount());
+        assertEquals(0, quiet.getBudgetExceeded());
+        metrics.reset();
+        assertEquals(0, quiet.getRuns());
+        assertEquals(Arrays.asList(quiet), metrics.getAll());
+    }
+
+    @Test
+    public void jsonListsEveryRuleWithEscapedNames() {
+        String json = analyze("Tab\tand \"quote\"\n", 1).toJson();
+        assertTrue(json, json.startsWith("{\"allocationSupported\":" + AnalyzerMetrics.isAllocationSupported()
+                + ",\"rules\":[{\"rule\":\"Tab\\tand \\\"quote\\\"\\n\",\"runs\":1,\"issues\":0,\"totalMillis\":"));
+        for (String member : Arrays.asList("meanMillis", "p50Millis", "p99Millis", "allocatedBytes")) {
+            assertTrue(member, json.contains("\"" + member + "\":"));
+        }
+        assertTrue(json, json.endsWith(",\"budgetExceeded\":0}]}"));
+    }
+
+    private static AnalyzerMetrics analyze(String ruleName, int times) {
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.<Rule>asList(new QuietRule(ruleName)));
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        analyzer.setMetrics(metrics);
+        for (int i = 0; i < times; i++) {
+            analyzer.analyze("class A {\n}\n");
+        }
+        return metrics;
+    }
+
+    // Reports nothing.
+    private static final class QuietRule implements LineLocalRule {
+        private final String name;
+
+        QuietRule(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> out) {
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.BatchSummary;
+import com.codefixerai.model.FileAnalysisResult;
+import com.codefixerai.source.SourceView;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests delivery, backpressure and cancellation of BatchAnalyzer runs.
+ */
+
+public class BatchAnalyzerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void analyzesEveryJavaFileBelowADirectory() throws IOException {
+        Path root = Files.createTempDirectory("batch");
+        try {
+            Files.createDirectories(root.resolve("a/b"));
+            write(root.resolve("A.java"), "class A { int x = 42; }\n");
+            write(root.resolve("a/B.java"), "class B { }\n");
+            write(root.resolve("a/b/C.java"), "class C { String s = \"x\"; }\n");
+            write(root.resolve("a/notes.txt"), "int y = 7;\n");
+
+            List<String> names = new ArrayList<>();
+            BatchSummary summary = new BatchAnalyzer(new CodeAnalyzer(), 2).analyzeDirectory(root,
+                    result -> names.add(root.relativize(Paths.get(result.getName())).toString().replace('\\', '/')));
+            Collections.sort(names);
+
+            assertEquals(Arrays.asList("A.java", "a/B.java", "a/b/C.java"), names);
+            assertEquals(3, summary.getFileCount());
+            assertEquals(0, summary.getFailedCount());
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void loaderFailuresAreReportedAndCounted() throws IOException {
+        List<FileAnalysisResult> results = Collections.synchronizedList(new ArrayList<>());
+        BatchAnalyzer.Run run = new BatchAnalyzer(new CodeAnalyzer(), pool, 2).start(results::add);
+        run.submit("Good.java", () -> SourceView.of("class A {}\n"));
+        run.submit("Bad.java", () -> {
+            throw new IOException("unreadable");
+        });
+        BatchSummary summary = run.finish();
+
+        assertEquals(2, summary.getFileCount());
+        assertEquals(1, summary.getFailedCount());
+        for (FileAnalysisResult result : results) {
+            if (result.getName().equals("Bad.java")) {
+                assertTrue(result.isFailed());
+                assertTrue(result.getError(), result.getError().contains("unreadable"));
+            }
+        }
+    }
+
+    @Test
+    public void aFailingSinkAbortsTheRunAndFinishThrows() throws IOException {
+        AtomicInteger accepted = new AtomicInteger();
+        BatchAnalyzer.Run run = new BatchAnalyzer(new CodeAnalyzer(), pool, 2).start(result -> {
+            accepted.incrementAndGet();
+            throw new IOException("client gone");
+        });
+        for (int i = 0; i < 20 && !run.isAborted(); i++) {
+            run.submit("F" + i + ".java", () -> SourceView.of("class A {}\n"));
+        }
+        try {
+            run.finish();
+            fail("finish() did not report the sink failure");
+        } catch (IOException e) {
+            assertEquals("client gone", e.getMessage());
+        }
+        assertTrue(run.isAborted());
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    public void cancelSkipsQueuedEntriesAndFinishStillReturns() throws IOException {
+        AtomicInteger loaded = new AtomicInteger();
+        BatchAnalyzer.Run run = new BatchAnalyzer(new CodeAnalyzer(), 1, 8).start(result -> {
+        });
+        for (int i = 0; i < 8; i++) {
+            run.submit("F" + i + ".java", () -> {
+                loaded.incrementAndGet();
+                LockSupport.parkNanos(20_000_000);
+                return SourceView.of("class A {}\n");
+            });
+        }
+        run.cancel();
+        run.submit("Late.java", () -> {
+            throw new AssertionError("loaded after cancel");
+        });
+        run.finish();
+        assertTrue(run.isAborted());
+        assertTrue("loaded " + loaded.get(), loaded.get() < 8);
+    }
+
+    @Test
+    public void queuedRunDeliversEveryResultOnTheFeedingThread() throws Exception {
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        List<String> names = Collections.synchronizedList(new ArrayList<>());
+        BatchAnalyzer.Run run = new BatchAnalyzer(new CodeAnalyzer(), pool, 3).startQueued(result -> {
+            threads.add(Thread.currentThread());
+            names.add(result.getName());
+        });
+        for (int i = 0; i < 50; i++) {
+            run.submit("F" + i + ".java", () -> SourceView.of("int x = 42;\n"));
+        }
+        BatchSummary summary = run.finish();
+
+        assertEquals(50, summary.getFileCount());
+        assertEquals(50L * new CodeAnalyzer().analyze("int x = 42;\n").size(), summary.getIssueCount());
+        assertEquals(50, names.size());
+        for (Thread thread : threads) {
+            assertTrue(thread == Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void queuedResultsKeepTheirSlotUntilDelivered() throws Exception {
+        int maxInFlight = 2;
+        AtomicInteger undelivered = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        BatchAnalyzer.Run run = new BatchAnalyzer(new CodeAnalyzer(), pool, maxInFlight).startQueued(result -> {
+            undelivered.decrementAndGet();
+            LockSupport.parkNanos(2_000_000);
+        });
+        for (int i = 0; i < 40; i++) {
+            run.submit("F" + i + ".java", () -> {
+                peak.accumulateAndGet(undelivered.incrementAndGet(), Math::max);
+                return SourceView.of("class A {}\n");
+            });
+        }
+        run.finish();
+        assertTrue("peak " + peak.get(), peak.get() <= maxInFlight);
+        assertEquals(0, undelivered.get());
+    }
+
+    @Test
+    public void cancelStopsDeliveryAndFinishReturns() throws Exception {
+        List<FileAnalysisResult> delivered = new ArrayList<>();
+        BatchAnalyzer.Run[] holder = new BatchAnalyzer.Run[1];
+        holder[0] = new BatchAnalyzer(new CodeAnalyzer(), pool, 4).startQueued(result -> {
+            delivered.add(result);
+            holder[0].cancel();
+        });
+        for (int i = 0; i < 20; i++) {
+            holder[0].submit("F" + i + ".java", () -> SourceView.of("class A {}\n"));
+        }
+        holder[0].finish();
+        assertEquals(1, delivered.size());
+        assertTrue(holder[0].isAborted());
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+}
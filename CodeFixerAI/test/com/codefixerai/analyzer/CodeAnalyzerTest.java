@@ -0,0 +1,191 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.bench.Corpus;
+import com.codefixerai.model.Issue;
+import com.codefixerai.model.IssueType;
+import com.codefixerai.rules.LineLocalRule;
+import com.codefixerai.rules.MagicNumberRule;
+import com.codefixerai.rules.Rule;
+import com.codefixerai.rules.RuleVisitor;
+import com.codefixerai.rules.VisitorRule;
+import com.codefixerai.source.Deadline;
+import com.codefixerai.source.SourceView;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that fused single-pass execution reports exactly what running each
+ * rule on its own reports, in the same order, also when it is measured and
+ * budgeted.
+ */
+
+public class CodeAnalyzerTest {
+
+    private static final List<String> SOURCES = Arrays.asList(
+            "",
+            "class A {\n}\n",
+            "class A {\n"
+                    + "    /* if (true) { int x = 42; } */\n"
+                    + "    String s = \"\"\"\n"
+                    + "        if (a) { if (b) { 99 } }\n"
+                    + "        \"\"\";\n"
+                    + "    // TODO remove\n"
+                    + "    void f(String a, String b) {\n"
+                    + "        if (a == \"x\") { }\n"
+                    + "        for (int i = 0; i <= a.length(); i++) { }\n"
+                    + "        try { g(); } catch (Exception e) { }\n"
+                    + "        if (true) { int unused = 7; }\n"
+                    + "    }\n"
+                    + "}\n",
+            "class B {\r\n\tint a = 5;\r\n\tswitch (a) { case 1: break; }\r\n}\r\n",
+            Corpus.mixed(500),
+            Corpus.mixed(500, 7),
+            Corpus.nested(300, 9),
+            Corpus.literalHeavy(300));
+
+    @Test
+    public void fusedMatchesPerRule() {
+        CodeAnalyzer fused = new CodeAnalyzer();
+        fused.setFused(true);
+        CodeAnalyzer perRule = new CodeAnalyzer();
+        perRule.setFused(false);
+        for (String source : SOURCES) {
+            assertEquals(render(perRule.analyze(source)), render(fused.analyze(source)));
+        }
+    }
+
+    @Test
+    public void fusedFindsIssues() {
+        CodeAnalyzer analyzer = new CodeAnalyzer();
+        analyzer.setFused(true);
+        assertFalse(analyzer.analyze(SOURCES.get(2)).isEmpty());
+    }
+
+    @Test
+    public void fusedMatchesPerRuleForEachSingleRule() {
+        CodeAnalyzer all = new CodeAnalyzer();
+        for (int i = 0; i < all.getRules().size(); i++) {
+            CodeAnalyzer fused = new CodeAnalyzer(all.getRules().subList(i, i + 1));
+            fused.setFused(true);
+            CodeAnalyzer perRule = new CodeAnalyzer(all.getRules().subList(i, i + 1));
+            perRule.setFused(false);
+            for (String source : SOURCES) {
+                assertEquals(all.getRules().get(i).getClass().getSimpleName(),
+                        render(perRule.analyze(source)), render(fused.analyze(source)));
+            }
+        }
+    }
+
+    @Test
+    public void measuredAndBudgetedFusedPassMatchesPerRule() {
+        CodeAnalyzer perRule = new CodeAnalyzer();
+        perRule.setFused(false);
+        CodeAnalyzer fused = new CodeAnalyzer();
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        fused.setMetrics(metrics);
+        fused.setRuleTimeBudget(60_000);
+        fused.setAnalysisTimeBudget(60_000);
+        for (String source : SOURCES) {
+            assertEquals(render(perRule.analyze(source)), render(fused.analyze(source)));
+        }
+        for (Rule rule : fused.getRules()) {
+            assertEquals(rule.getName(), SOURCES.size(), metrics.get(rule.getName()).getRuns());
+            assertEquals(rule.getName(), 0, metrics.get(rule.getName()).getBudgetExceeded());
+        }
+        assertTrue(Deadline.current() == null);
+    }
+
+    @Test
+    public void measuredAnalysisStillRunsOnePass() {
+        List<String> log = new ArrayList<>();
+        CodeAnalyzer analyzer = new CodeAnalyzer(Arrays.<Rule>asList(new LoggingRule("a", log), new LoggingRule("b", log)));
+        analyzer.setMetrics(new AnalyzerMetrics());
+        analyzer.analyze(SOURCES.get(4));
+        // Windows of lines alternate between the rules instead of one rule running to the end.
+        assertTrue(log.size() > 600);
+        assertTrue(log.indexOf("b") < log.lastIndexOf("a"));
+    }
+
+    @Test
+    public void aRuleOutOfTimeIsSkippedAloneInTheFusedPass() {
+        Rule magic = new MagicNumberRule();
+        List<String> expected = render(new CodeAnalyzer(Arrays.<Rule>asList(magic)).analyze(SOURCES.get(4)));
+
+        CodeAnalyzer fused = new CodeAnalyzer(Arrays.asList(new SpinningRule(), magic));
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        fused.setMetrics(metrics);
+        fused.setRuleTimeBudget(20);
+        List<Issue> issues = fused.analyze(SOURCES.get(4));
+
+        assertEquals(IssueType.RULE_SKIPPED, issues.get(0).getIssueType());
+        assertTrue(issues.get(0).getMessage().contains("Spinning"));
+        assertEquals(expected, render(issues.subList(1, issues.size())));
+        assertEquals(1, metrics.get("Spinning").getBudgetExceeded());
+        assertEquals(0, metrics.get(magic.getName()).getBudgetExceeded());
+        assertTrue(CodeAnalyzer.isIncomplete(issues));
+    }
+
+    // Logs its name for every line it visits.
+    private static final class LoggingRule implements VisitorRule {
+        private final String name;
+        private final List<String> log;
+
+        LoggingRule(String name, List<String> log) {
+            this.name = name;
+            this.log = log;
+        }
+
+        @Override
+        public RuleVisitor visitor(SourceView source, List<Issue> out) {
+            return new RuleVisitor() {
+                @Override
+                public int events() {
+                    return LINES;
+                }
+
+                @Override
+                public void lineStart(int line) {
+                    log.add(name);
+                }
+            };
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    // Runs until its Deadline cancels it.
+    private static final class SpinningRule implements LineLocalRule {
+
+        @Override
+        public void applyToLines(SourceView source, int fromLine, int toLine, List<Issue> out) {
+            Deadline deadline = Deadline.current();
+            if (deadline == null) throw new AssertionError("Rule runs without a Deadline");
+            while (true) {
+                deadline.check();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "Spinning";
+        }
+    }
+
+    private static List<String> render(List<Issue> issues) {
+        List<String> rendered = new ArrayList<>();
+        for (Issue issue : issues) {
+            rendered.add(issue.toString());
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,192 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that IncrementalAnalyzer returns what a full analysis returns
+ * after edits, and when it may build on the previous result.
+ */
+
+public class IncrementalAnalyzerTest {
+
+    private static final String[] SOURCE = {
+            "class A {",
+            "    int a = 42; // TODO first",
+            "    void f(String s) {",
+            "        if (s == \"x\") { a = 7; }",
+            "        int b = 99;",
+            "    }",
+            "    // TODO second",
+            "    int c = 1000;",
+            "}",
+    };
+
+    private final CodeAnalyzer analyzer = new CodeAnalyzer();
+    private final IncrementalAnalyzer incremental = new IncrementalAnalyzer(analyzer);
+    private final List<String> lines = new ArrayList<>(Arrays.asList(SOURCE));
+
+    @Test
+    public void aLineEditReusesTheEarlierResult() {
+        analyzeAndCompare();
+        assertFalse(incremental.wasLastRunIncremental());
+
+        replace(4, "        int b = 12345; // TODO third");
+        analyzeAndCompare();
+        assertTrue(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void insertedAndRemovedLinesShiftLaterIssues() {
+        analyzeAndCompare();
+        insert(2, "    int inserted = 64;");
+        analyzeAndCompare();
+        assertTrue(incremental.wasLastRunIncremental());
+
+        delete(1);
+        analyzeAndCompare();
+        assertTrue(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void editsBeforeOneCaptureAreMerged() {
+        analyzeAndCompare();
+        replace(7, "    int c = 2000;");
+        // Inserting above the first edit moves it down a line.
+        insert(0, "// TODO header");
+        insert(0, "import java.util.List;");
+        replace(3, "    int a = 43;");
+        analyzeAndCompare();
+        assertTrue(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void randomEditsMatchAFullAnalysis() {
+        String[] pool = {
+                "", "    int x = 42;", "    // TODO later", "    x = 7; y = 8;", "    void g() {", "    }",
+                "    String s = \"13 /* 14\";", "    int z = 0x1F; // 99",
+        };
+        Random random = new Random(7);
+        analyzeAndCompare();
+        int reused = 0;
+        for (int round = 0; round < 300; round++) {
+            int edits = 1 + random.nextInt(3);
+            for (int e = 0; e < edits; e++) {
+                int line = random.nextInt(lines.size());
+                String text = pool[random.nextInt(pool.length)];
+                switch (random.nextInt(3)) {
+                    case 0:
+                        replace(line, text);
+                        break;
+                    case 1:
+                        insert(line, text);
+                        break;
+                    default:
+                        if (lines.size() > 2) delete(line); else replace(line, text);
+                }
+            }
+            analyzeAndCompare();
+            if (incremental.wasLastRunIncremental()) reused++;
+        }
+        assertTrue("reused " + reused, reused > 150);
+    }
+
+    @Test
+    public void openingABlockCommentForcesAFullRun() {
+        analyzeAndCompare();
+        replace(2, "    /* void f(String s) {");
+        analyzeAndCompare();
+        assertFalse(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void anUnknownEditForcesAFullRun() {
+        analyzeAndCompare();
+        lines.set(4, "        int b = 5;");
+        incremental.recordChange(-1, -1, 0);
+        analyzeAndCompare();
+        assertFalse(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void aStaleCaptureDoesNotReplaceNewerState() {
+        analyzeAndCompare();
+        replace(1, "    int a = 43;");
+        String older = text();
+        IncrementalAnalyzer.Edit olderEdit = incremental.takeEdit();
+        replace(4, "        int b = 100;");
+        String newer = text();
+        IncrementalAnalyzer.Edit newerEdit = incremental.takeEdit();
+
+        // The newer capture cannot build on the older one, which never ran.
+        assertEquals(strings(analyzer.analyze(newer)), strings(incremental.analyze(newer, newerEdit)));
+        assertFalse(incremental.wasLastRunIncremental());
+        // The older capture finishes late; its result is returned but not kept.
+        assertEquals(strings(analyzer.analyze(older)), strings(incremental.analyze(older, olderEdit)));
+
+        replace(7, "    int c = 3;");
+        analyzeAndCompare();
+        assertTrue(incremental.wasLastRunIncremental());
+    }
+
+    @Test
+    public void anEditTakenButNeverAnalyzedForcesAFullRun() {
+        analyzeAndCompare();
+        replace(1, "    int a = 43;");
+        incremental.takeEdit();
+        replace(4, "        int b = 100;");
+        analyzeAndCompare();
+        assertFalse(incremental.wasLastRunIncremental());
+    }
+
+    // ----- Helpers -----
+
+    private void replace(int line, String text) {
+        lines.set(line, text);
+        incremental.recordChange(line, line, 0);
+    }
+
+    // Reported the way MainFrame sees a new line typed before an existing one.
+    private void insert(int line, String text) {
+        lines.add(line, text);
+        incremental.recordChange(line, line, 1);
+    }
+
+    // Reported the way MainFrame sees a line joined with the next one.
+    private void delete(int line) {
+        lines.remove(line);
+        int changed = Math.min(line, lines.size() - 1);
+        incremental.recordChange(changed, changed, -1);
+    }
+
+    private String text() {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    private void analyzeAndCompare() {
+        String text = text();
+        IncrementalAnalyzer.Edit edit = incremental.takeEdit();
+        assertEquals(text, strings(analyzer.analyze(text)), strings(incremental.analyze(text, edit)));
+    }
+
+    private static List<String> strings(List<Issue> issues) {
+        List<String> strings = new ArrayList<>();
+        for (Issue issue : issues) {
+            strings.add(issue.getLine() + " " + issue.getType() + " " + issue.getMessage());
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,87 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.rules.DeepNestingRule;
+import com.codefixerai.rules.MagicNumberRule;
+import com.codefixerai.rules.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests rule id matching and selection in RuleRegistry.
+ */
+
+public class RuleRegistryTest {
+
+    private final RuleRegistry registry = new RuleRegistry();
+
+    @Test
+    public void registersTheBuiltInRulesInOrder() {
+        List<String> ids = registry.getRuleIds();
+        assertEquals(12, ids.size());
+        assertEquals("StringEqualityRule", ids.get(0));
+        assertEquals("TodoCommentRule", ids.get(11));
+    }
+
+    @Test
+    public void matchesIdsIgnoringCaseAndRuleSuffix() {
+        for (String id : Arrays.asList("MagicNumberRule", "MagicNumber", "magicnumber", " MAGICNUMBERRULE ")) {
+            List<Rule> selected = registry.select(Collections.singletonList(id));
+            assertEquals(id, 1, selected.size());
+            assertTrue(id, selected.get(0) instanceof MagicNumberRule);
+        }
+    }
+
+    @Test
+    public void keepsRegistrationOrderAndDropsDuplicates() {
+        List<Rule> selected = registry.select("DeepNesting, MagicNumber,magicnumberrule,,");
+        assertEquals(2, selected.size());
+        assertTrue(selected.get(0) instanceof MagicNumberRule);
+        assertTrue(selected.get(1) instanceof DeepNestingRule);
+    }
+
+    @Test
+    public void nullSelectsEveryRule() {
+        assertEquals(registry.getRules(), registry.select((List<String>) null));
+    }
+
+    @Test
+    public void rejectsUnknownIds() {
+        try {
+            registry.select("MagicNumber,NoSuchRule");
+            fail("Unknown id was accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("NoSuchRule"));
+            assertTrue(e.getMessage(), e.getMessage().contains("MagicNumberRule"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptySelection() {
+        registry.select(Collections.<String>emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAListOfOnlySeparators() {
+        registry.select(" , ,");
+    }
+
+    @Test
+    public void sharesOneConfiguredAnalyzerPerSelection() {
+        AtomicInteger setups = new AtomicInteger();
+        RuleRegistry counting = new RuleRegistry(null, analyzer -> setups.incrementAndGet());
+        CodeAnalyzer first = counting.analyzer("MagicNumber,DeepNesting");
+        CodeAnalyzer second = counting.analyzer("deepnestingrule, magicnumber");
+        assertTrue(first == second);
+        assertEquals(2, first.getRules().size());
+        assertEquals(1, setups.get());
+        assertTrue(counting.newAnalyzer(Arrays.asList("MagicNumber")) != counting.analyzer("MagicNumber"));
+    }
+}
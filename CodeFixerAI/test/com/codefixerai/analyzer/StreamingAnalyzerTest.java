@@ -0,0 +1,163 @@
+package com.codefixerai.analyzer;
+
+import com.codefixerai.model.Issue;
+import com.codefixerai.rules.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that StreamingAnalyzer reports the same issues as a whole-file
+ * analysis with its rules, wherever the chunk boundaries fall.
+ */
+
+public class StreamingAnalyzerTest {
+
+    private static final String SOURCE =
+            "class A {\n"
+            + "\n"
+            + "    /* int hidden = 42;\n"
+            + "       if (a) { if (b) { if (c) { if (d) { } } } } */\n"
+            + "    int a = 7; /* 8 */ int b = 9;\n"
+            + "    String s = \"/* 10 */ if (x) {\";\n"
+            + "    String t = \"quote \\\" 11\"; int c = 12;\n"
+            + "    // int d = 13; if (e) {\n"
+            + "    void f() {\n"
+            + "        if (a > 3) { if (b > 4) { if (c > 5) { if (a > 6) {\n"
+            + "\n"
+            + "\n"
+            + "            a = 99;\n"
+            + "        } } } }\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void everyChunkSizeMatchesTheWholeFile() throws IOException {
+        assertEveryChunkSizeMatches(SOURCE);
+    }
+
+    @Test
+    public void crlfLineEndingsMatchTheWholeFile() throws IOException {
+        assertEveryChunkSizeMatches(SOURCE.replace("\n", "\r\n"));
+    }
+
+    @Test
+    public void chunksEndingOnCommentCloseOrClosingQuote() throws IOException {
+        CodeAnalyzer analyzer = new CodeAnalyzer();
+        StreamingAnalyzer streaming = new StreamingAnalyzer(analyzer);
+        List<String> expected = wholeFile(streaming, SOURCE);
+        int[] ends = {
+                SOURCE.indexOf("*/") + 2,
+                SOURCE.indexOf("*/ int b") + 2,
+                SOURCE.indexOf("{\";") + 2,
+                SOURCE.indexOf("11\";") + 3,
+        };
+        for (int end : ends) {
+            // A first chunk of exactly this many characters ends on the token.
+            streaming.setChunkChars(end);
+            assertEquals("chunk ending at " + end, expected, streamed(streaming, SOURCE));
+        }
+    }
+
+    @Test
+    public void emptyLinesBeforeALongLineKeepTheirIssues() throws IOException {
+        // DeepNesting reports the empty lines too. With 9-character chunks the
+        // buffer once held only "\n" plus the start of the longer line.
+        String source = "{\n{\n{\nif (a) {\n\n\nint x = 42;\n\n";
+        StreamingAnalyzer streaming = new StreamingAnalyzer(new CodeAnalyzer());
+        streaming.setChunkChars(9);
+        assertEquals(wholeFile(streaming, source), streamed(streaming, source));
+        String crlf = source.replace("\n", "\r\n");
+        assertEquals(wholeFile(streaming, crlf), streamed(streaming, crlf));
+    }
+
+    @Test
+    public void randomSourcesMatchTheWholeFile() throws IOException {
+        String[] lines = {
+                "", "", "{", "}", "if (a) {", "} else {", "int x = 42;", "/* open", "close */ int y = 7;",
+                "String s = \"{ 5 /*\";", "// TODO 9 {", "\"\"\"", "while (true) { x++; }",
+                "String longLine = \"..............................................................\";",
+        };
+        String[] terminators = {"\n", "\r\n"};
+        Random random = new Random(42);
+        StreamingAnalyzer streaming = new StreamingAnalyzer(new CodeAnalyzer());
+        for (int round = 0; round < 300; round++) {
+            StringBuilder source = new StringBuilder();
+            String terminator = terminators[random.nextInt(terminators.length)];
+            int count = 1 + random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                source.append(lines[random.nextInt(lines.length)]).append(terminator);
+            }
+            String text = source.toString();
+            List<String> expected = wholeFile(streaming, text);
+            int chunk = 1 + random.nextInt(120);
+            streaming.setChunkChars(chunk);
+            assertEquals("round " + round + ", chunk size " + chunk, expected, streamed(streaming, text));
+        }
+    }
+
+    @Test
+    public void byteChannelInputMatchesReaderInput() throws IOException {
+        StreamingAnalyzer streaming = new StreamingAnalyzer(new CodeAnalyzer());
+        String source = SOURCE.replace("hidden", "h\u00e9\u20acidden");
+        streaming.setChunkChars(5);
+        List<String> fromReader = streamed(streaming, source);
+        List<String> fromChannel = new ArrayList<>();
+        for (Issue issue : streaming.analyze(Channels.newChannel(
+                new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8)) {
+            fromChannel.add(issue.toString());
+        }
+        Collections.sort(fromChannel);
+        assertEquals(fromReader, fromChannel);
+    }
+
+    @Test
+    public void rulesNeedingTheWholeFileAreSkipped() {
+        CodeAnalyzer analyzer = new CodeAnalyzer();
+        StreamingAnalyzer streaming = new StreamingAnalyzer(analyzer);
+        assertFalse(streaming.getRules().isEmpty());
+        assertEquals(analyzer.getRules().size(), streaming.getRules().size() + streaming.getSkippedRules().size());
+        for (Rule rule : streaming.getSkippedRules()) {
+            assertFalse(streaming.getRules().contains(rule));
+        }
+    }
+
+    private static void assertEveryChunkSizeMatches(String source) throws IOException {
+        StreamingAnalyzer streaming = new StreamingAnalyzer(new CodeAnalyzer());
+        List<String> expected = wholeFile(streaming, source);
+        assertFalse(expected.isEmpty());
+        for (int chunk = 1; chunk <= source.length() + 1; chunk++) {
+            streaming.setChunkChars(chunk);
+            assertEquals("chunk size " + chunk, expected, streamed(streaming, source));
+        }
+    }
+
+    private static List<String> wholeFile(StreamingAnalyzer streaming, String source) {
+        List<String> issues = new ArrayList<>();
+        for (Issue issue : new CodeAnalyzer(streaming.getRules()).analyze(source)) {
+            issues.add(issue.toString());
+        }
+        Collections.sort(issues);
+        return issues;
+    }
+
+    private static List<String> streamed(StreamingAnalyzer streaming, String source) throws IOException {
+        List<String> issues = new ArrayList<>();
+        for (Issue issue : streaming.analyze(new StringReader(source))) {
+            issues.add(issue.toString());
+        }
+        Collections.sort(issues);
+        return issues;
+    }
+}
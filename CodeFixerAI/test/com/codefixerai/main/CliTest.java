@@ -0,0 +1,142 @@
+package com.codefixerai.main;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the exit codes of Cli and the --fail-on threshold, with stdout,
+ * stderr and stdin redirected.
+ */
+
+public class CliTest {
+
+    private static final String MEDIUM = "class A {\n    int x = 42;\n}\n";
+    private static final String HIGH = "class B {\n    void f() {\n        try { g(); } catch (Exception e) { }\n    }\n}\n";
+
+    private Path dir;
+    private PrintStream stdout, stderr;
+    private InputStream stdin;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void redirect() throws IOException {
+        dir = Files.createTempDirectory("cli");
+        stdout = System.out;
+        stderr = System.err;
+        stdin = System.in;
+        System.setOut(new PrintStream(out, true, "UTF-8"));
+        System.setErr(new PrintStream(err, true, "UTF-8"));
+    }
+
+    @After
+    public void restore() throws IOException {
+        System.setOut(stdout);
+        System.setErr(stderr);
+        System.setIn(stdin);
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void issuesBelowTheDefaultThresholdExitZero() throws IOException {
+        assertEquals(Cli.EXIT_OK, run(write("A.java", MEDIUM)));
+        assertTrue(stdout(), stdout().contains("\"MagicNumber\""));
+    }
+
+    @Test
+    public void aHighIssueHitsTheDefaultThreshold() throws IOException {
+        assertEquals(Cli.EXIT_THRESHOLD, run(write("B.java", HIGH)));
+    }
+
+    @Test
+    public void failOnMovesTheThreshold() throws IOException {
+        String medium = write("A.java", MEDIUM);
+        String high = write("B.java", HIGH);
+        assertEquals(Cli.EXIT_THRESHOLD, run("--fail-on", "medium", medium));
+        assertEquals(Cli.EXIT_THRESHOLD, run("--fail-on", "LOW", medium));
+        assertEquals(Cli.EXIT_OK, run("--fail-on", "none", high));
+        assertEquals(Cli.EXIT_OK, run("--fail-on", "high", medium));
+    }
+
+    @Test
+    public void theThresholdCountsIssuesFromEveryFileOfADirectory() throws IOException {
+        write("A.java", MEDIUM);
+        write("B.java", HIGH);
+        write("C.java", "class C {}\n");
+        assertEquals(Cli.EXIT_THRESHOLD, run("--threads", "2", dir.toString()));
+        assertTrue(stdout(), stdout().contains("\"files\":3"));
+    }
+
+    @Test
+    public void readsStdinForADash() throws IOException {
+        System.setIn(new ByteArrayInputStream(HIGH.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Cli.EXIT_THRESHOLD, run("--format", "text", "-"));
+        assertTrue(stdout(), stdout().startsWith("-:3: [HIGH] EmptyCatch: "));
+    }
+
+    @Test
+    public void aMissingFileIsAnError() throws IOException {
+        assertEquals(Cli.EXIT_ERROR, run(dir.resolve("Missing.java").toString()));
+        assertTrue(stdout(), stdout().contains("\"error\""));
+    }
+
+    @Test
+    public void usageErrorsExitTwo() throws IOException {
+        String file = write("A.java", MEDIUM);
+        assertEquals(Cli.EXIT_ERROR, run("--bogus", file));
+        assertEquals(Cli.EXIT_ERROR, run("--fail-on", "urgent", file));
+        assertEquals(Cli.EXIT_ERROR, run("--fail-on"));
+        assertEquals(Cli.EXIT_ERROR, run("--format", "xml", file));
+        assertEquals(Cli.EXIT_ERROR, run("--threads", "0", file));
+        assertEquals(Cli.EXIT_ERROR, run("--threads", "many", file));
+        assertEquals(Cli.EXIT_ERROR, run("--rules", "NoSuchRule", file));
+        assertEquals("", stdout());
+        assertTrue(stderr(), stderr().contains("unknown severity: urgent"));
+        assertTrue(stderr(), stderr().contains("usage: "));
+    }
+
+    @Test
+    public void selectedRulesDecideTheExitCode() throws IOException {
+        String high = write("B.java", HIGH);
+        assertEquals(Cli.EXIT_OK, run("--rules", "MagicNumber", high));
+        assertEquals(Cli.EXIT_THRESHOLD, run("--rules", "emptycatchblock", high));
+    }
+
+    // ----- Helpers -----
+
+    private int run(String... args) {
+        out.reset();
+        return new Cli().run(args);
+    }
+
+    private String write(String name, String source) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    private String stdout() {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String stderr() {
+        return new String(err.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package com.codefixerai.model;
+
+import com.codefixerai.source.SourceView;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that IssueBuffer behaves like an ordinary mutable List of issues.
+ */
+
+public class IssueBufferTest {
+
+    private static final IssueTemplate TEMPLATE =
+            new IssueTemplate(IssueType.MAGIC_NUMBER, "Value {} found", "Name {}");
+
+    @Test
+    public void rendersEachArgumentKind() {
+        IssueBuffer buffer = filled();
+        assertEquals(4, buffer.size());
+        assertEquals("Value 42 found", buffer.get(0).getMessage());
+        assertEquals("Value 7 found", buffer.get(1).getMessage());
+        assertEquals("Name text", buffer.get(2).getSuggestedFix());
+        assertEquals("Value  found", buffer.get(3).getMessage());
+        assertEquals(4, buffer.line(3));
+        assertEquals(IssueType.MAGIC_NUMBER, buffer.type(3));
+    }
+
+    @Test
+    public void supportsInsertRemoveAndSet() {
+        IssueBuffer buffer = filled();
+        List<String> expected = render(buffer);
+        Issue extra = new Issue(9, IssueType.TODO_COMMENT, "extra", "fix");
+
+        buffer.add(1, extra);
+        expected.add(1, extra.toString());
+        buffer.add(0, extra);
+        expected.add(0, extra.toString());
+        buffer.add(buffer.size(), extra);
+        expected.add(extra.toString());
+        assertEquals(expected, render(buffer));
+        assertNull(buffer.template(0));
+
+        assertEquals(extra.toString(), buffer.remove(0).toString());
+        expected.remove(0);
+        assertEquals(expected.get(3), buffer.remove(3).toString());
+        expected.remove(3);
+        buffer.set(0, extra);
+        expected.set(0, extra.toString());
+        assertEquals(expected, render(buffer));
+
+        Iterator<Issue> it = buffer.iterator();
+        it.next();
+        it.remove();
+        expected.remove(0);
+        buffer.subList(0, 1).clear();
+        expected.remove(0);
+        assertEquals(expected, render(buffer));
+    }
+
+    @Test
+    public void detachedCopyRendersTheSame() {
+        IssueBuffer buffer = filled();
+        buffer.add(0, new Issue(1, IssueType.TODO_COMMENT, "object", "fix"));
+        buffer.remove(2);
+        assertEquals(render(buffer), render(buffer.detach()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsInsertPastTheEnd() {
+        IssueBuffer buffer = filled();
+        buffer.add(buffer.size() + 1, new Issue(1, IssueType.TODO_COMMENT, "x", "y"));
+    }
+
+    // One finding per argument kind: source span, int, text and none.
+    private static IssueBuffer filled() {
+        SourceView source = SourceView.of("int x = 42;\n");
+        IssueBuffer buffer = new IssueBuffer(source, 1);
+        buffer.append(1, TEMPLATE, 8, 10);
+        buffer.append(2, TEMPLATE, 7);
+        buffer.append(3, TEMPLATE, "text");
+        buffer.append(4, TEMPLATE);
+        return buffer;
+    }
+
+    private static List<String> render(List<Issue> issues) {
+        List<String> rendered = new ArrayList<>();
+        for (Issue issue : issues) {
+            rendered.add(issue.toString());
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,68 @@
+package com.codefixerai.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the per-type and per-severity counts of IssueCounts.
+ */
+
+public class IssueCountsTest {
+
+    @Test
+    public void countsBySeverity() {
+        IssueCounts counts = new IssueCounts();
+        counts.add(IssueType.RESOURCE_LEAK);
+        counts.add(IssueType.MAGIC_NUMBER);
+        counts.add(IssueType.MAGIC_NUMBER);
+        counts.add(IssueType.TODO_COMMENT);
+        assertEquals(4, counts.total());
+        assertEquals(1, counts.count(Severity.HIGH));
+        assertEquals(2, counts.count(Severity.MEDIUM));
+        assertEquals(1, counts.count(Severity.LOW));
+        assertEquals(3, counts.countAtLeast(Severity.MEDIUM));
+        assertEquals(2, counts.count(IssueType.MAGIC_NUMBER));
+    }
+
+    @Test
+    public void skippedRulesAreNotIssues() {
+        assertFalse(IssueType.RULE_SKIPPED.isFinding());
+        assertTrue(IssueType.TODO_COMMENT.isFinding());
+
+        IssueCounts counts = new IssueCounts();
+        counts.add(IssueType.RULE_SKIPPED);
+        counts.add(IssueType.RULE_SKIPPED);
+        assertEquals(0, counts.total());
+        assertEquals(0, counts.count(Severity.LOW));
+        assertEquals(0, counts.countAtLeast(Severity.LOW));
+        assertEquals(2, counts.count(IssueType.RULE_SKIPPED));
+    }
+
+    @Test
+    public void countsBuffersWithoutRendering() {
+        IssueBuffer buffer = new IssueBuffer(null);
+        buffer.add(new Issue(1, IssueType.EMPTY_CATCH, "m", "f"));
+        buffer.add(new Issue(0, IssueType.RULE_SKIPPED, "m", "f"));
+        List<Issue> plain = new ArrayList<>(buffer);
+
+        IssueCounts fromBuffer = new IssueCounts();
+        fromBuffer.addAll(buffer);
+        IssueCounts fromList = new IssueCounts();
+        fromList.addAll(plain);
+        assertEquals(1, fromBuffer.total());
+        assertEquals(1, fromList.total());
+        assertEquals(1, fromBuffer.countAtLeast(Severity.HIGH));
+
+        IssueCounts merged = new IssueCounts();
+        merged.addAll(fromBuffer);
+        merged.addAll(fromList);
+        assertEquals(2, merged.total());
+        assertEquals(2, merged.count(IssueType.RULE_SKIPPED));
+    }
+}
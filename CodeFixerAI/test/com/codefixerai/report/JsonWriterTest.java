@@ -0,0 +1,114 @@
+package com.codefixerai.report;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the string escaping and structure of JsonWriter.
+ */
+
+public class JsonWriterTest {
+
+    @Test
+    public void escapesQuotesBackslashesAndControlCharacters() throws IOException {
+        assertEquals("\"a\\\"b\\\\c\\n\\r\\t\\u0001\\u001f\"", write("a\"b\\c\n\r\t\u0001\u001f"));
+    }
+
+    @Test
+    public void escapesLineAndParagraphSeparators() throws IOException {
+        assertEquals("\"x\\u2028y\\u2029z\"", write("x\u2028y\u2029z"));
+    }
+
+    @Test
+    public void encodesSurrogatePairsAsOneFourByteSequence() throws IOException {
+        byte[] bytes = bytes("\uD83D\uDE00");
+        assertEquals(6, bytes.length);
+        assertEquals(0xF0, bytes[1] & 0xFF);
+        assertEquals("\"\uD83D\uDE00\"", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void escapesUnpairedSurrogates() throws IOException {
+        assertEquals("\"\\ud83d\"", write("\uD83D"));
+        assertEquals("\"a\\ude00b\"", write("a\uDE00b"));
+        assertEquals("\"\\ude00\\ud83d\"", write("\uDE00\uD83D"));
+        assertEquals("\"\\ud83d\uD83D\uDE00\"", write("\uD83D\uD83D\uDE00"));
+    }
+
+    @Test
+    public void encodesTwoAndThreeByteCharacters() throws IOException {
+        assertEquals("\"\u00e9\u20ac\uffff\"", write("\u00e9\u20ac\uffff"));
+    }
+
+    @Test
+    public void escapesStringsLongerThanTheBuffer() throws IOException {
+        StringBuilder value = new StringBuilder();
+        StringBuilder expected = new StringBuilder("\"");
+        for (int i = 0; i < 5000; i++) {
+            value.append("\u2028\uD83D\uDE00");
+            expected.append("\\u2028\uD83D\uDE00");
+        }
+        assertEquals(expected.append('"').toString(), write(value.toString()));
+    }
+
+    @Test
+    public void insertsCommasAndColons() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject().name("a").value(1).name("b").beginArray()
+                .value(true).nullValue().value(2.5).value(Double.NaN)
+                .endArray().name("c").beginObject().endObject().endObject().finish();
+        assertEquals("{\"a\":1,\"b\":[true,null,2.5,null],\"c\":{}}", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void writesOneDocumentPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject().name("n").value(1).endObject().newline();
+        json.beginObject().name("n").value(2).endObject().newline();
+        json.finish();
+        assertEquals("{\"n\":1}\n{\"n\":2}\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void gzipOutputDecompressesToTheSameDocument() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = JsonWriter.gzip(out);
+        json.beginArray().value("x\u2028\uD83D\uDE00").endArray().finish();
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] chunk = new byte[256];
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                plain.write(chunk, 0, n);
+            }
+        }
+        assertEquals("[\"x\\u2028\uD83D\uDE00\"]", plain.toString("UTF-8"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnbalancedClose() throws IOException {
+        new JsonWriter(new ByteArrayOutputStream()).beginArray().endArray().endArray();
+    }
+
+    private static String write(String value) throws IOException {
+        return new String(bytes(value), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(out);
+        json.value(value).finish();
+        return out.toByteArray();
+    }
+}
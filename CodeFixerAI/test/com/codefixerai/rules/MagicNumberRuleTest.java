@@ -0,0 +1,44 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins which lines MagicNumberRule reports: every line with a number
+ * except lines that start with a line comment.
+ */
+
+public class MagicNumberRuleTest {
+
+    @Test
+    public void skipsOnlyLinesStartingWithALineComment() {
+        String source = "int a = 42;\n"
+                + "    // int b = 43;\n"
+                + "/* int c = 44; */\n"
+                + " * 45 inside a block comment\n"
+                + "int d = 1; // 46\n"
+                + "int e = 2;\n";
+        assertEquals(Arrays.asList(1, 3, 4, 5), lines(new MagicNumberRule().apply(source)));
+    }
+
+    @Test
+    public void reportsTheFirstNumberOfALine() {
+        List<Issue> issues = new MagicNumberRule().apply("x = 7 + 100;\n");
+        assertEquals(1, issues.size());
+        assertEquals("Magic number '7' found in code.", issues.get(0).getMessage());
+    }
+
+    private static List<Integer> lines(List<Issue> issues) {
+        List<Integer> lines = new ArrayList<>();
+        for (Issue issue : issues) {
+            lines.add(issue.getLine());
+        }
+        return lines;
+    }
+}
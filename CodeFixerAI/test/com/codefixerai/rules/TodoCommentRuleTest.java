@@ -0,0 +1,38 @@
+package com.codefixerai.rules;
+
+import com.codefixerai.model.Issue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins which lines TodoCommentRule reports: every line containing "TODO",
+ * wherever it appears on the line.
+ */
+
+public class TodoCommentRuleTest {
+
+    @Test
+    public void reportsEveryLineContainingTheMarker() {
+        String source = "// TODO: finish\n"
+                + "int todo = 1;\n"
+                + "String s = \"TODO\";\n"
+                + "/*\n"
+                + " * TODO later\n"
+                + " */\n"
+                + "void TODOs() { } // TODO TODO\n";
+        assertEquals(Arrays.asList(1, 3, 5, 7), lines(new TodoCommentRule().apply(source)));
+    }
+
+    private static List<Integer> lines(List<Issue> issues) {
+        List<Integer> lines = new ArrayList<>();
+        for (Issue issue : issues) {
+            lines.add(issue.getLine());
+        }
+        return lines;
+    }
+}
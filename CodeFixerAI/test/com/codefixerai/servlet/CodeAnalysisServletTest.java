@@ -0,0 +1,48 @@
+package com.codefixerai.servlet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests If-None-Match matching of CodeAnalysisServlet.
+ */
+
+public class CodeAnalysisServletTest {
+
+    private static final String ETAG = "\"abc-1\"";
+
+    @Test
+    public void matchesTheExactTag() {
+        assertTrue(CodeAnalysisServlet.matchesETag(ETAG, ETAG, false));
+        assertTrue(CodeAnalysisServlet.matchesETag(ETAG, ETAG, true));
+    }
+
+    @Test
+    public void matchesWeakTags() {
+        assertTrue(CodeAnalysisServlet.matchesETag("W/" + ETAG, ETAG, false));
+    }
+
+    @Test
+    public void matchesAnyTagOfAList() {
+        assertTrue(CodeAnalysisServlet.matchesETag("\"x\", W/" + ETAG + " , \"y\"", ETAG, false));
+        assertTrue(CodeAnalysisServlet.matchesETag("\"x\"," + ETAG, ETAG, false));
+    }
+
+    @Test
+    public void doesNotMatchOtherTags() {
+        assertFalse(CodeAnalysisServlet.matchesETag(null, ETAG, true));
+        assertFalse(CodeAnalysisServlet.matchesETag("", ETAG, true));
+        assertFalse(CodeAnalysisServlet.matchesETag("\"abc\"", ETAG, true));
+        assertFalse(CodeAnalysisServlet.matchesETag("abc-1", ETAG, true));
+        assertFalse(CodeAnalysisServlet.matchesETag("\"x\", \"y\"", ETAG, true));
+    }
+
+    @Test
+    public void starMatchesOnlyAnExistingResult() {
+        assertTrue(CodeAnalysisServlet.matchesETag("*", ETAG, true));
+        assertFalse(CodeAnalysisServlet.matchesETag("*", ETAG, false));
+        assertFalse(CodeAnalysisServlet.matchesETag(" * ", ETAG, false));
+    }
+}
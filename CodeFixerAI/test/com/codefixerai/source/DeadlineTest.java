@@ -0,0 +1,70 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests installing, nesting and checking Deadlines on the current thread.
+ */
+
+public class DeadlineTest {
+
+    @Test
+    public void checksAreNoOpsWithoutADeadline() {
+        assertNull(Deadline.current());
+        Deadline.checkCurrent();
+        assertEquals("abc", SourceView.of("abc").chars().toString());
+    }
+
+    @Test
+    public void exitRestoresTheEnclosingDeadline() {
+        Deadline outer = Deadline.enter(System.nanoTime() + 60_000_000_000L);
+        Deadline installed = Deadline.current();
+        Deadline inner = Deadline.enter(System.nanoTime() - 1);
+        try {
+            assertTrue(inner == installed);
+            try {
+                Deadline.checkCurrent();
+                fail("A passed deadline did not throw");
+            } catch (BudgetExceededException expected) {
+                // the inner deadline has passed
+            }
+        } finally {
+            Deadline.exit(inner);
+        }
+        try {
+            assertTrue(Deadline.current() == installed);
+            Deadline.checkCurrent();
+        } finally {
+            Deadline.exit(outer);
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void guardedCharsStopARegexOnceTheDeadlinePasses() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append('a');
+        }
+        SourceView source = SourceView.of(text.toString());
+        Deadline previous = Deadline.enter(System.nanoTime() + 20_000_000L);
+        try {
+            CharSequence chars = source.chars();
+            assertEquals(40, chars.length());
+            assertEquals("aa", chars.subSequence(3, 5).toString());
+            Pattern.compile("(.*a){12}!").matcher(chars).find();
+            fail("The match was not cancelled");
+        } catch (BudgetExceededException expected) {
+            // cancelled by the guarded CharSequence
+        } finally {
+            Deadline.exit(previous);
+        }
+    }
+}
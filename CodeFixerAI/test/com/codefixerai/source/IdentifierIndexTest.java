@@ -0,0 +1,72 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests identifier counting in IdentifierIndex.
+ */
+
+public class IdentifierIndexTest {
+
+    @Test
+    public void countsWholeIdentifiersInCodeOnly() {
+        SourceView source = SourceView.of(
+                "int i = 0; if (i < 10) { i++; }\n"
+                + "// i in a comment\n"
+                + "String s = \"i\" + 'i'; /* i */ long n = 0x1F + 10L + 1e5;\n"
+                + "$i = _i + i$ + i;\n");
+        IdentifierIndex index = source.identifiers();
+        assertEquals(4, index.count("i"));
+        assertEquals(1, index.count("if"));
+        assertEquals(1, index.count("$i"));
+        assertEquals(1, index.count("_i"));
+        assertEquals(1, index.count("i$"));
+        assertEquals(0, index.count("comment"));
+        assertEquals(0, index.count("x1F"));
+        assertEquals(0, index.count("L"));
+        assertEquals(0, index.count("e5"));
+        assertEquals(0, index.count(""));
+    }
+
+    @Test
+    public void countsOnASingleLine() {
+        SourceView source = SourceView.of("a = a + b; // a\nb = \"a\" + a;\r\naa = a1;\n");
+        IdentifierIndex index = source.identifiers();
+        assertEquals(2, index.countOnLine("a", 0));
+        assertEquals(1, index.countOnLine("a", 1));
+        assertEquals(0, index.countOnLine("a", 2));
+        assertEquals(1, index.countOnLine("aa", 2));
+        assertEquals(0, index.countOnLine("1", 2));
+    }
+
+    @Test
+    public void keepsNamesWithTheSameHashApart() {
+        // "Aa" and "BB" have the same String.hashCode.
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        IdentifierIndex index = SourceView.of("Aa BB BB AaBB BBAa Aa BB\n").identifiers();
+        assertEquals(2, index.count("Aa"));
+        assertEquals(3, index.count("BB"));
+        assertEquals(1, index.count("AaBB"));
+        assertEquals(1, index.count("BBAa"));
+        assertEquals(0, index.count("AaAa"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void growsPastTheInitialTable() {
+        StringBuilder text = new StringBuilder();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 2000; i++) {
+                text.append("v").append(i).append(i % 7 == 0 ? "\n" : " ");
+            }
+        }
+        IdentifierIndex index = SourceView.of(text.toString()).identifiers();
+        assertEquals(2000, index.size());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals("v" + i, 3, index.count("v" + i));
+        }
+        assertEquals(0, index.count("v2000"));
+    }
+}
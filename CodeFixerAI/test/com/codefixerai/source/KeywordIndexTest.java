@@ -0,0 +1,73 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the keyword masks of KeywordIndex against a plain substring
+ * search of every line.
+ */
+
+public class KeywordIndexTest {
+
+    @Test
+    public void findsOverlappingAndNestedKeywords() {
+        SourceView source = SourceView.of("printf(x <== y);\ndefaultcatch\nBufferedReaderInputStreamReader\n\u00e9if\u00e9\n");
+        KeywordIndex index = source.keywords();
+        assertEquals(Keyword.maskOf(Keyword.INT, Keyword.EQUALS, Keyword.LESS_EQUAL), index.mask(0));
+        assertEquals(Keyword.maskOf(Keyword.DEFAULT, Keyword.CATCH), index.mask(1));
+        assertTrue(index.has(2, Keyword.BUFFERED_READER));
+        assertTrue(index.has(2, Keyword.INPUT_STREAM_READER));
+        assertTrue(index.hasAll(2, Keyword.maskOf(Keyword.BUFFERED_READER, Keyword.INPUT_STREAM_READER)));
+        assertFalse(index.has(2, Keyword.FILE_READER));
+        assertEquals(Keyword.IF.bit(), index.mask(3));
+    }
+
+    @Test
+    public void matchesASubstringSearchOnRandomText() {
+        String[] pieces = {
+                "if", "i", "f", "for", "fo", "int", "in", "nt", "String", "Str", "==", "=", "<", "+", "{", "}",
+                "catch", "cat", "default", "TODO", "TOD", "Reader", "File", "FileInput", "Stream", "Scanner",
+                "new", "ne", "true", "false", "long", "double", "boolean", "char", " ", "\u00e9", "\u4e2d", "x",
+        };
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            int lines = 1 + random.nextInt(20);
+            for (int line = 0; line < lines; line++) {
+                int count = random.nextInt(12);
+                for (int i = 0; i < count; i++) {
+                    text.append(pieces[random.nextInt(pieces.length)]);
+                }
+                text.append(random.nextBoolean() ? "\n" : "\r\n");
+            }
+            SourceView source = SourceView.of(text.toString());
+            KeywordIndex index = source.keywords();
+            for (int line = 0; line < source.lineCount(); line++) {
+                String content = source.line(line);
+                long expected = 0;
+                for (Keyword keyword : Keyword.values()) {
+                    if (content.contains(keyword.text())) expected |= keyword.bit();
+                }
+                assertEquals(content, expected, index.mask(line));
+            }
+        }
+    }
+
+    @Test
+    public void nextLineFindsAnyKeywordOfTheMask() {
+        SourceView source = SourceView.of("a\nwhile (x) {\nb\n// TODO\nfor (;;)\n");
+        KeywordIndex index = source.keywords();
+        long loops = Keyword.maskOf(Keyword.WHILE, Keyword.FOR);
+        assertEquals(1, index.nextLine(0, loops));
+        assertEquals(4, index.nextLine(2, loops));
+        assertEquals(-1, index.nextLine(2, 4, loops));
+        assertEquals(3, index.nextLine(0, Keyword.TODO.bit()));
+        assertEquals(-1, index.nextLine(0, Keyword.SWITCH.bit()));
+    }
+}
@@ -0,0 +1,233 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests entry parsing of SourceArchive on zip, tar and tar.gz archives
+ * built in memory.
+ */
+
+public class SourceArchiveTest {
+
+    @Test
+    public void readsZipFilesAndSkipsDirectories() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes, StandardCharsets.UTF_8)) {
+            zip.putNextEntry(new ZipEntry("src/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("src/A.java"));
+            zip.write("class A {}".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("src/\u00c9.java"));
+            zip.write("class B {}".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        assertEquals(Arrays.asList("src/A.java=class A {}", "src/\u00c9.java=class B {}"), entries(bytes.toByteArray()));
+    }
+
+    @Test
+    public void readsTarFilesAndSkipsOtherEntryTypes() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("src/", '5', new byte[0]);
+        tar.entry("src/A.java", '0', "class A {}".getBytes(StandardCharsets.UTF_8));
+        tar.entry("src/link", '2', new byte[0]);
+        // Exactly one block, so no padding follows it.
+        tar.entry("src/B.java", '0', block('x'));
+        tar.entry("src/C.java", '\0', "class C {}".getBytes(StandardCharsets.UTF_8));
+        List<String> entries = entries(tar.finish());
+        assertEquals(3, entries.size());
+        assertEquals("src/A.java=class A {}", entries.get(0));
+        assertEquals("src/B.java=" + new String(block('x'), StandardCharsets.US_ASCII), entries.get(1));
+        assertEquals("src/C.java=class C {}", entries.get(2));
+    }
+
+    @Test
+    public void reportsTarEntrySizes() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', new byte[1000]);
+        SourceArchive archive = SourceArchive.open(new ByteArrayInputStream(tar.finish()));
+        assertTrue(archive.next());
+        assertEquals(1000L, archive.size());
+        // Leaving the entry unread must not break the next call.
+        assertFalse(archive.next());
+    }
+
+    @Test
+    public void readsGnuLongNames() throws IOException {
+        String name = repeat("dir/", 40) + "Long.java";
+        Tar tar = new Tar();
+        tar.entry("././@LongLink", 'L', (name + '\0').getBytes(StandardCharsets.UTF_8));
+        tar.entry(name.substring(0, 99), '0', "x".getBytes(StandardCharsets.UTF_8));
+        tar.entry("Short.java", '0', "y".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(name + "=x", "Short.java=y"), entries(tar.finish()));
+    }
+
+    @Test
+    public void readsPaxPaths() throws IOException {
+        String name = repeat("pax/", 40) + "Pax.java";
+        String record = "path=" + name + "\n";
+        String mtime = "mtime=1\n";
+        Tar tar = new Tar();
+        tar.entry("PaxHeader", 'x', (paxRecord(mtime) + paxRecord(record)).getBytes(StandardCharsets.UTF_8));
+        tar.entry("truncated", '0', "z".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(name + "=z"), entries(tar.finish()));
+    }
+
+    @Test
+    public void joinsUstarPrefixAndName() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', "a".getBytes(StandardCharsets.UTF_8), "some/prefix");
+        assertEquals(Arrays.asList("some/prefix/A.java=a"), entries(tar.finish()));
+    }
+
+    @Test
+    public void readsGzipCompressedTar() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', "class A {}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(tar.finish());
+        }
+        assertEquals(Arrays.asList("A.java=class A {}"), entries(gz.toByteArray()));
+    }
+
+    @Test
+    public void acceptsTarWithoutEndMarker() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', "a".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("A.java=a"), entries(tar.bytes.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsPlainText() throws IOException {
+        SourceArchive.open(new ByteArrayInputStream("class A {}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsBadHeaderChecksum() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', "a".getBytes(StandardCharsets.UTF_8));
+        byte[] bytes = tar.finish();
+        bytes[0] = 'B';
+        SourceArchive.open(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void rejectsTruncatedEntry() throws IOException {
+        Tar tar = new Tar();
+        tar.entry("A.java", '0', new byte[2000]);
+        byte[] bytes = Arrays.copyOf(tar.bytes.toByteArray(), 1024);
+        SourceArchive archive = SourceArchive.open(new ByteArrayInputStream(bytes));
+        assertTrue(archive.next());
+        try {
+            read(archive.stream());
+            fail("Truncated entry was read without error");
+        } catch (IOException expected) {
+            // EOFException
+        }
+    }
+
+    // ----- Helpers -----
+
+    private static List<String> entries(byte[] archiveBytes) throws IOException {
+        SourceArchive archive = SourceArchive.open(new ByteArrayInputStream(archiveBytes));
+        List<String> entries = new ArrayList<>();
+        while (archive.next()) {
+            entries.add(archive.name() + "=" + new String(read(archive.stream()), StandardCharsets.UTF_8));
+        }
+        return entries;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[300];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] block(char c) {
+        byte[] block = new byte[512];
+        Arrays.fill(block, (byte) c);
+        return block;
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            out.append(s);
+        }
+        return out.toString();
+    }
+
+    // "<length> <record>", where the length counts itself.
+    private static String paxRecord(String record) {
+        int length = record.length() + 2;
+        while (String.valueOf(length).length() + 1 + record.length() != length) {
+            length++;
+        }
+        return length + " " + record;
+    }
+
+    // Writes ustar entries with valid checksums.
+    private static final class Tar {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        void entry(String name, char type, byte[] data) {
+            entry(name, type, data, "");
+        }
+
+        void entry(String name, char type, byte[] data, String prefix) {
+            byte[] header = new byte[512];
+            put(header, 0, name);
+            put(header, 100, "0000644");
+            put(header, 124, String.format("%011o", data.length));
+            put(header, 136, "00000000000");
+            header[156] = (byte) type;
+            put(header, 257, "ustar");
+            put(header, 263, "00");
+            put(header, 345, prefix);
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            int sum = 0;
+            for (byte b : header) {
+                sum += b & 0xFF;
+            }
+            put(header, 148, String.format("%06o", sum));
+            header[154] = 0;
+            bytes.write(header, 0, header.length);
+            bytes.write(data, 0, data.length);
+            int padding = (512 - data.length % 512) % 512;
+            bytes.write(new byte[padding], 0, padding);
+        }
+
+        byte[] finish() {
+            bytes.write(new byte[1024], 0, 1024);
+            return bytes.toByteArray();
+        }
+
+        private static void put(byte[] header, int offset, String value) {
+            byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(raw, 0, header, offset, raw.length);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.codefixerai.source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that SourceFiles decodes files and streams exactly like
+ * new String(bytes, UTF_8), on both sides of the mapping threshold.
+ */
+
+public class SourceFilesTest {
+
+    private Path dir;
+
+    @Before
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("source-files");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void readsFilesOnBothSidesOfTheMapThreshold() throws IOException {
+        int threshold = SourceFiles.MAP_THRESHOLD;
+        for (int size : new int[] {0, 1, 7, 8, 9, threshold - 1, threshold, threshold + 1, 3 * threshold + 5}) {
+            byte[] bytes = ascii(size);
+            assertEquals("size " + size, new String(bytes, StandardCharsets.UTF_8), readFile(bytes));
+        }
+    }
+
+    @Test
+    public void decodesNonAsciiAndMalformedBytesLikeString() throws IOException {
+        byte[] utf8 = "class A { String s = \"\u00e9\u20ac\ud83d\ude00\"; }\n".getBytes(StandardCharsets.UTF_8);
+        byte[] malformed = {'a', 'b', (byte) 0xC3, 'c', (byte) 0xFF, (byte) 0xE2, (byte) 0x82};
+        for (byte[] tail : Arrays.asList(utf8, malformed)) {
+            for (int prefix : new int[] {0, 3, 8, 17, SourceFiles.MAP_THRESHOLD}) {
+                byte[] bytes = concat(ascii(prefix), tail);
+                String expected = new String(bytes, StandardCharsets.UTF_8);
+                assertEquals("prefix " + prefix, expected, readFile(bytes));
+                assertEquals("prefix " + prefix, expected, readStream(bytes, 1, Long.MAX_VALUE));
+            }
+        }
+    }
+
+    @Test
+    public void streamsGrowPastTheirSizeHint() throws IOException {
+        byte[] bytes = concat(ascii(50_000), "\u00e9".getBytes(StandardCharsets.UTF_8));
+        String expected = new String(bytes, StandardCharsets.UTF_8);
+        assertEquals(expected, readStream(bytes, -1, Long.MAX_VALUE));
+        assertEquals(expected, readStream(bytes, 100, bytes.length));
+        assertEquals(expected, readStream(bytes, bytes.length, bytes.length));
+    }
+
+    @Test
+    public void streamsOverTheLimitAreRejected() throws IOException {
+        try {
+            readStream(ascii(20_000), -1, 19_999);
+            fail("20000 bytes were accepted with a limit of 19999");
+        } catch (SourceTooLargeException e) {
+            assertEquals(19_999, e.getLimit());
+        }
+    }
+
+    @Test
+    public void aSmallFileThatGrowsWhileReadIsNotTruncated() throws Exception {
+        // Each file starts with a few bytes and is then written well past the
+        // pooled buffer, leaving a hole. Its size jumps over MAP_THRESHOLD, so a
+        // read of exactly that many bytes stopped at the end of the buffer.
+        // Files only grow: truncating a mapped file would fault the reader.
+        byte[] head = ascii(10);
+        int offset = SourceFiles.MAP_THRESHOLD + 1000;
+        byte[] body = ascii(1000);
+        String full = new String(concat(Arrays.copyOf(head, offset), body), StandardCharsets.US_ASCII);
+        AtomicReference<Path> current = new AtomicReference<>(write("Growing0.java", head));
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int round = 1; round <= 2000; round++) {
+                    Path file = write("Growing" + round + ".java", head);
+                    current.set(file);
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.write(ByteBuffer.wrap(body), offset);
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                done.set(true);
+            }
+        });
+        writer.start();
+        int reads = 0;
+        while (!done.get() || reads == 0) {
+            String text = SourceFiles.read(current.get()).text();
+            assertTrue("read " + text.length() + " chars", text.length() != SourceFiles.MAP_THRESHOLD);
+            assertTrue(full.startsWith(text));
+            reads++;
+        }
+        writer.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    // ----- Helpers -----
+
+    private String readFile(byte[] bytes) throws IOException {
+        return SourceFiles.read(write("A.java", bytes)).text();
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(dir.resolve(name), bytes);
+    }
+
+    private static String readStream(byte[] bytes, long sizeHint, long maxBytes) throws IOException {
+        return SourceFiles.read(new ByteArrayInputStream(bytes), sizeHint, maxBytes).text();
+    }
+
+    // Lines of printable ASCII, so every offset is a different character.
+    private static byte[] ascii(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i % 61 == 60 ? '\n' : ' ' + 1 + i % 90);
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+}
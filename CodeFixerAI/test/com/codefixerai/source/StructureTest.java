@@ -0,0 +1,127 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests block classification, default labels and resource ranges of Structure.
+ */
+
+public class StructureTest {
+
+    @Test
+    public void classifiesBlocks() {
+        Structure structure = structure(
+                "class A {\n"
+                + "    abstract int size();\n"
+                + "    void f(int a) throws IOException {\n"
+                + "        for (int i = 0; i < a; i++) { }\n"
+                + "        try { } finally { }\n"
+                + "        Runnable r = new Runnable() { public void run() { } };\n"
+                + "    }\n"
+                + "}\n");
+        List<Structure.Node> methods = structure.nodes(Structure.Kind.METHOD);
+        assertEquals(3, methods.size());
+        assertFalse(methods.get(0).hasBody());
+        assertTrue(methods.get(1).hasBody());
+        assertEquals(2, methods.get(1).line());
+        assertEquals(1, structure.nodes(Structure.Kind.LOOP).size());
+        assertEquals(1, structure.nodes(Structure.Kind.TRY).size());
+        assertEquals(2, structure.nodes(Structure.Kind.CLASS).size());
+        assertEquals(1, structure.nodes(Structure.Kind.BLOCK).size());
+    }
+
+    @Test
+    public void defaultLabelsBelongToTheirOwnSwitch() {
+        SourceView source = SourceView.of(
+                "class A {\n"
+                + "    void f(int a, int b) {\n"
+                + "        switch (a) {\n"
+                + "            case 1:\n"
+                + "                switch (b) { default: break; }\n"
+                + "                break;\n"
+                + "        }\n"
+                + "        int c = switch (b) { case 1 -> 2; default -> 3; };\n"
+                + "    }\n"
+                + "    default void g() { }\n"
+                + "}\n");
+        TokenStream tokens = source.tokens();
+        List<Structure.Node> switches = source.structure().nodes(Structure.Kind.SWITCH);
+        assertEquals(3, switches.size());
+        assertEquals(-1, switches.get(0).defaultLabel());
+        assertEquals(find(tokens, "default", 0), switches.get(1).defaultLabel());
+        assertEquals(find(tokens, "default", 1), switches.get(2).defaultLabel());
+    }
+
+    @Test
+    public void resourceTryCoversTheResourceSpecificationOnly() {
+        SourceView source = SourceView.of(
+                "class A {\n"
+                + "    void f() throws IOException {\n"
+                + "        try (InputStream in = open(); Reader r = reader(in)) {\n"
+                + "            InputStream other = open();\n"
+                + "        }\n"
+                + "        try (Writer w = writer()) { }\n"
+                + "    }\n"
+                + "}\n");
+        TokenStream tokens = source.tokens();
+        Structure structure = source.structure();
+        List<Structure.Node> tries = structure.nodes(Structure.Kind.TRY);
+        assertEquals(2, tries.size());
+        assertTrue(tries.get(0) == structure.resourceTry(find(tokens, "in", 0)));
+        assertTrue(tries.get(0) == structure.resourceTry(find(tokens, "r", 0)));
+        assertNull(structure.resourceTry(find(tokens, "other", 0)));
+        assertTrue(tries.get(1) == structure.resourceTry(find(tokens, "w", 0)));
+        assertNull(structure.resourceTry(find(tokens, "f", 0)));
+    }
+
+    @Test
+    public void nestedTryInResourcesBelongsToTheInnerTry() {
+        SourceView source = SourceView.of(
+                "class A {\n"
+                + "    void f() {\n"
+                + "        try (Closeable c = () -> { try (Reader inner = reader()) { } }) { }\n"
+                + "    }\n"
+                + "}\n");
+        TokenStream tokens = source.tokens();
+        Structure structure = source.structure();
+        Structure.Node outer = structure.resourceTry(find(tokens, "c", 0));
+        Structure.Node inner = structure.resourceTry(find(tokens, "inner", 0));
+        assertTrue(outer != null && inner != null && outer != inner);
+        assertTrue(outer.resourcesOpen() < inner.resourcesOpen());
+    }
+
+    @Test
+    public void enclosingFindsTheInnermostNodeOfAKind() {
+        SourceView source = SourceView.of(
+                "class A {\n"
+                + "    void f() {\n"
+                + "        while (true) { int x = 1; }\n"
+                + "    }\n"
+                + "}\n");
+        TokenStream tokens = source.tokens();
+        Structure structure = source.structure();
+        int x = find(tokens, "x", 0);
+        assertEquals(Structure.Kind.LOOP, structure.enclosing(x).kind());
+        assertEquals("f", tokens.text(structure.enclosing(x, Structure.Kind.METHOD).nameToken()));
+        assertEquals(Structure.Kind.CLASS, structure.enclosing(x, Structure.Kind.CLASS).kind());
+        assertNull(structure.enclosing(0));
+    }
+
+    private static Structure structure(String source) {
+        return SourceView.of(source).structure();
+    }
+
+    private static int find(TokenStream tokens, String text, int skip) {
+        for (int k = 0; k < tokens.count(); k++) {
+            if (tokens.is(k, text) && skip-- == 0) return k;
+        }
+        throw new AssertionError("no token " + text);
+    }
+}
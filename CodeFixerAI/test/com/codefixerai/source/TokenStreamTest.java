@@ -0,0 +1,123 @@
+package com.codefixerai.source;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the lexer and navigation helpers of TokenStream.
+ */
+
+public class TokenStreamTest {
+
+    @Test
+    public void lexesOperatorsAndNumbersByMaximalMunch() {
+        assertEquals(Arrays.asList(
+                "id:a", "op:+=", "num:0x1F", "op:+", "num:1.5e-3", "op:-", "num:.5f", "op:>>>=", "id:b",
+                "op:->", "id:c", "op:::", "id:d", "op:...", "op:@", "id:A", "dot:.", "id:x", "num:0x1.8p+3",
+                "op:!=", "op:<", "op:<<=", "op:>", "num:10L", "semi:;"),
+                tokens("a += 0x1F + 1.5e-3 - .5f >>>= b -> c :: d ... @A.x 0x1.8p+3 != < <<= > 10L;"));
+    }
+
+    @Test
+    public void bracesInCommentsAndLiteralsAreNotCode() {
+        assertEquals(Arrays.asList(
+                "id:s", "op:=", "str:\"{ \\\" }\"", "op:+", "char:'}'", "op:+", "char:'\\''", "semi:;",
+                "block:/* { */", "line:// }", "{:{", "}:}"),
+                tokens("s = \"{ \\\" }\" + '}' + '\\''; /* { */ // }\n{}"));
+    }
+
+    @Test
+    public void lexesTextBlocksAcrossLines() {
+        TokenStream tokens = SourceView.of("x = \"\"\"\n  { \\\"\"\" }\n  \"\"\";\ny").tokens();
+        assertEquals(5, tokens.count());
+        assertEquals(TokenStream.STRING, tokens.kind(2));
+        assertEquals("\"\"\"\n  { \\\"\"\" }\n  \"\"\"", tokens.text(2));
+        assertEquals(0, tokens.line(2));
+        assertEquals(3, tokens.line(4));
+    }
+
+    @Test
+    public void anUnterminatedLiteralStopsAtTheLineEnd() {
+        assertEquals(Arrays.asList("id:s", "op:=", "str:\"open", "{:{", "}:}"), tokens("s = \"open\n{}"));
+    }
+
+    @Test
+    public void indexesTheFirstTokenOfEveryLine() {
+        TokenStream tokens = SourceView.of("a b\n\n  c\r\n// d\nx y z").tokens();
+        assertEquals(0, tokens.firstOnLine(0));
+        assertEquals(2, tokens.firstOnLine(1));
+        assertEquals(2, tokens.firstOnLine(2));
+        assertEquals(3, tokens.firstOnLine(3));
+        assertEquals(4, tokens.firstOnLine(4));
+        assertEquals(7, tokens.firstOnLine(5));
+        assertEquals(2, tokens.line(2));
+        assertEquals(4, tokens.line(6));
+    }
+
+    @Test
+    public void skipsCommentsWhenLookingForCode() {
+        TokenStream tokens = SourceView.of("a /* x */ // y\nb /**/").tokens();
+        assertTrue(tokens.isComment(1));
+        assertEquals(3, tokens.nextCode(1));
+        assertEquals(0, tokens.previousCode(3));
+        assertEquals(-1, tokens.previousCode(0));
+        assertEquals(tokens.count(), tokens.nextCode(4));
+        assertFalse(tokens.isComment(3));
+    }
+
+    @Test
+    public void findsTheMatchingClose() {
+        TokenStream tokens = SourceView.of("f(a(b), (c)) { [ ] { } } (").tokens();
+        assertEquals(10, tokens.matchingClose(1));
+        assertEquals(5, tokens.matchingClose(3));
+        assertEquals(16, tokens.matchingClose(11));
+        assertEquals(13, tokens.matchingClose(12));
+        assertEquals(15, tokens.matchingClose(14));
+        assertEquals(-1, tokens.matchingClose(17));
+    }
+
+    @Test
+    public void aChunkStartingInsideACommentStartsWithTheRestOfIt() {
+        String text = "still comment */ int x;";
+        TokenStream tokens = SourceView.of(text.toCharArray(), text.length(), SourceView.STATE_COMMENT).tokens();
+        assertEquals(TokenStream.BLOCK_COMMENT, tokens.kind(0));
+        assertEquals("still comment */", tokens.text(0));
+        assertTrue(tokens.is(1, "int"));
+        assertEquals(4, tokens.count());
+    }
+
+    @Test
+    public void growsPastTheInitialCapacity() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("a;");
+        }
+        TokenStream tokens = SourceView.of(text.toString()).tokens();
+        assertEquals(1000, tokens.count());
+        assertTrue(tokens.is(998, "a"));
+        assertEquals(999, tokens.start(999));
+        assertEquals(999, tokens.end(998));
+    }
+
+    // ----- Helpers -----
+
+    private static final String[] KINDS = {
+            "id", "num", "str", "char", "line", "block", "op", "{", "}", "(", ")", "[", "]", "semi", "comma", "dot",
+    };
+
+    private static List<String> tokens(String text) {
+        TokenStream tokens = SourceView.of(text).tokens();
+        List<String> list = new ArrayList<>();
+        for (int k = 0; k < tokens.count(); k++) {
+            list.add(KINDS[tokens.kind(k)] + ":" + tokens.text(k));
+        }
+        return list;
+    }
+}